@@ -1,6 +1,7 @@
 package org.example.hci;
 
 
+import org.example.hci.auth.MongoDBConnector;
 import org.example.hci.view.LoginView;
 
 import javax.swing.SwingUtilities;
@@ -18,6 +19,11 @@ public class Main {
             e.printStackTrace();
         }
 
+        // Connect to MongoDB in the background while the login screen opens
+        if (MongoDBConnector.isConfigured()) {
+            MongoDBConnector.warmUp();
+        }
+
         // Launch application on the Event Dispatch Thread
         SwingUtilities.invokeLater(() -> {
             LoginView loginView = new LoginView();
@@ -0,0 +1,148 @@
+package org.example.hci.auth;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs authentication calls off the calling thread, so a user interface stays
+ * responsive during the round trips to the database.
+ *
+ * Every call runs on its own virtual thread and returns a {@link CompletableFuture}.
+ * Cancelling the future, or letting it time out, interrupts the call. Results complete
+ * on the worker thread; Swing callers hand them back to the event dispatch thread with
+ * e.g. {@code whenCompleteAsync(handler, SwingUtilities::invokeLater)}.
+ *
+ * The underlying service is created on first use, on a worker thread, since creating
+ * it may connect to the database.
+ */
+public class AsyncAuthService implements AutoCloseable {
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    private final Supplier<CredentialAuthService> serviceFactory;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final LatencyStats loginLatency = new LatencyStats();
+    private CredentialAuthService service;
+
+    /**
+     * Create an asynchronous view of an existing service
+     *
+     * @param service The service calls are run on
+     */
+    public AsyncAuthService(CredentialAuthService service) {
+        this(() -> service);
+    }
+
+    /**
+     * Create an asynchronous service whose underlying service is created on first use
+     *
+     * @param serviceFactory Creates the service, called once from a worker thread
+     */
+    public AsyncAuthService(Supplier<CredentialAuthService> serviceFactory) {
+        this.serviceFactory = serviceFactory;
+    }
+
+    /**
+     * Create the underlying service in the background, so the first call does not wait for the connection
+     */
+    public void warmUp() {
+        submit(this::service, null).exceptionally(e -> {
+            System.err.println("Error preparing authentication: " + e.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Check a user's credentials
+     *
+     * @param username The username
+     * @param password The password
+     * @param timeout How long to wait for the answer, or null to wait indefinitely
+     * @return A future completing with true if the credentials are valid, or failing if the
+     *         account store cannot be reached
+     */
+    public CompletableFuture<Boolean> authenticate(String username, String password, Duration timeout) {
+        return submit(() -> service().checkCredentials(username, password), timeout);
+    }
+
+    /**
+     * Log a user in: check the credentials and, if they are valid, record the login time.
+     * The login time is written in the background and does not delay the result.
+     *
+     * @param username The username
+     * @param password The password
+     * @param timeout How long to wait for the answer, or null to wait indefinitely
+     * @return A future completing with true if the user is logged in
+     */
+    public CompletableFuture<Boolean> login(String username, String password, Duration timeout) {
+        long start = System.nanoTime();
+        CompletableFuture<Boolean> result = authenticate(username, password, timeout);
+        result.whenComplete((valid, e) -> {
+            if (!result.isCancelled()) {
+                loginLatency.record(System.nanoTime() - start);
+            }
+            if (Boolean.TRUE.equals(valid)) {
+                submit(() -> {
+                    service().updateLastLogin(username);
+                    return null;
+                }, timeout).exceptionally(error -> {
+                    System.err.println("Error updating last login of " + username + ": " + error.getMessage());
+                    return null;
+                });
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Get the latencies of logins, from the call until the answer, whatever it was
+     *
+     * @return The login latency statistics
+     */
+    public LatencyStats getLoginLatency() {
+        return loginLatency;
+    }
+
+    /**
+     * Stop accepting calls. Calls already running are finished.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private synchronized CredentialAuthService service() {
+        if (service == null) {
+            service = serviceFactory.get();
+        }
+        return service;
+    }
+
+    /**
+     * Run a call on a virtual thread, interrupting it if the returned future is cancelled or times out
+     */
+    private <T> CompletableFuture<T> submit(Callable<T> call, Duration timeout) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> running = executor.submit(() -> {
+            try {
+                result.complete(call.call());
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((value, e) -> {
+            if (e != null) {
+                running.cancel(true);
+            }
+        });
+        if (timeout != null) {
+            result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,253 @@
+package org.example.hci.auth;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Authentication service storing accounts in any {@link CredentialStore}
+ */
+public class CredentialAuthService implements AutoCloseable {
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static CredentialAuthService shared;
+
+    private final CredentialStore store;
+
+    /**
+     * Create a service on a store, adding the default users if the store is empty
+     *
+     * @param store The store accounts are kept in
+     */
+    public CredentialAuthService(CredentialStore store) {
+        this.store = store;
+
+        // Initialize default users if the store is empty
+        initializeDefaultUsers();
+    }
+
+    /**
+     * Get the service the screens of the application share, opening it on first use.
+     * The local credential file can only be open once, so screens must not open their own.
+     *
+     * @return The shared service
+     */
+    public static synchronized CredentialAuthService getShared() {
+        if (shared == null) {
+            shared = openDefault();
+        }
+        return shared;
+    }
+
+    /**
+     * Open the service the application uses: MongoDB if a server is configured,
+     * otherwise the local credential file, which needs no network
+     *
+     * @return The service
+     */
+    public static CredentialAuthService openDefault() {
+        if (MongoDBConnector.isConfigured()) {
+            return new MongoDBAuthService();
+        }
+        try {
+            return new CredentialAuthService(FileCredentialStore.open(Paths.get(FileCredentialStore.DEFAULT_FILE)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the local credential store", e);
+        }
+    }
+
+    /**
+     * Initialize default users in the store if they don't exist
+     */
+    private void initializeDefaultUsers() {
+        try {
+            // Check if we have any users
+            if (store.count() == 0) {
+                System.out.println("Initializing default users...");
+
+                // Create default users in one write
+                store.insertAll(List.of(
+                        createAccount("designer1", "password1", "designer1@example.com", "Default Designer 1"),
+                        createAccount("designer2", "password2", "designer2@example.com", "Default Designer 2"),
+                        createAccount("admin", "admin123", "admin@example.com", "Administrator")));
+
+                System.out.println("Default users created successfully");
+            }
+        } catch (IOException e) {
+            System.err.println("Error initializing default users: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Authenticate a user based on username and password
+     *
+     * @param username The username
+     * @param password The password
+     * @return true if authentication succeeds, false otherwise
+     */
+    public boolean authenticate(String username, String password) {
+        try {
+            return checkCredentials(username, password);
+        } catch (Exception e) {
+            System.err.println("Error during authentication: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return false;
+    }
+
+    /**
+     * Check a user's credentials, failing instead of answering false when the store cannot be read
+     *
+     * @param username The username
+     * @param password The password
+     * @return true if the credentials are valid, false otherwise
+     * @throws IOException If the store cannot be read; MongoDB failures are thrown as MongoException
+     */
+    public boolean checkCredentials(String username, String password) throws IOException {
+        if (username == null || password == null) {
+            return false;
+        }
+
+        // Find the user's credentials
+        UserAccount account = store.findCredentials(username);
+
+        if (account != null) {
+            // Hash the provided password with the stored salt
+            String hashedPassword = hashPassword(password, account.getSalt());
+
+            // Compare the hashed password with the stored hash
+            return account.getPasswordHash().equals(hashedPassword);
+        }
+        return false;
+    }
+
+    /**
+     * Register a new user
+     *
+     * @param username The username for the new account
+     * @param password The password for the new account
+     * @param email The email address for the new account
+     * @param fullName The full name of the user
+     * @return true if registration succeeds, false if username already exists
+     * @throws DuplicateEmailException If email addresses must be unique and this one is already registered
+     */
+    public boolean registerUser(String username, String password, String email, String fullName)
+            throws DuplicateEmailException {
+        try {
+            if (!store.insert(createAccount(username, password, email, fullName))) {
+                System.out.println("Username already taken: " + username);
+                return false;
+            }
+
+            System.out.println("User registered successfully: " + username);
+            return true;
+
+        } catch (DuplicateEmailException e) {
+            System.out.println(e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            System.err.println("Error during registration: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Create an account with a new salt and the salted hash of its password, without adding it.
+     * Safe to call from several threads at once.
+     *
+     * @param username The username for the new account
+     * @param password The password for the new account
+     * @param email The email address for the new account
+     * @param fullName The full name of the user
+     * @return The account
+     */
+    public UserAccount createAccount(String username, String password, String email, String fullName) {
+        // Generate a random salt
+        String salt = generateSalt();
+
+        // Hash the password with the salt
+        String hashedPassword = hashPassword(password, salt);
+
+        return new UserAccount(username, hashedPassword, salt, email, fullName, System.currentTimeMillis(), 0, true);
+    }
+
+    /**
+     * Check if a username is already taken
+     *
+     * @param username The username to check
+     * @return true if the username is taken, false otherwise
+     */
+    public boolean isUsernameTaken(String username) {
+        try {
+            return store.exists(username);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Update the last login timestamp for a user
+     *
+     * @param username The username
+     */
+    public void updateLastLogin(String username) {
+        try {
+            store.updateLastLogin(username, System.currentTimeMillis());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get the store accounts are kept in
+     *
+     * @return The credential store
+     */
+    public CredentialStore getStore() {
+        return store;
+    }
+
+    /**
+     * Close the credential store
+     */
+    @Override
+    public void close() {
+        store.close();
+    }
+
+    /**
+     * Generate a random salt for password hashing
+     *
+     * @return A Base64 encoded random salt
+     */
+    private String generateSalt() {
+        byte[] salt = new byte[16];
+        RANDOM.nextBytes(salt);
+        return Base64.getEncoder().encodeToString(salt);
+    }
+
+    /**
+     * Hash a password with a salt using SHA-256
+     *
+     * @param password The password to hash
+     * @param salt The salt to use
+     * @return The hashed password
+     */
+    private String hashPassword(String password, String salt) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(salt.getBytes());
+            byte[] hashedPassword = md.digest(password.getBytes());
+            return Base64.getEncoder().encodeToString(hashedPassword);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Error hashing password", e);
+        }
+    }
+}
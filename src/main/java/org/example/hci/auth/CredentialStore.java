@@ -0,0 +1,100 @@
+package org.example.hci.auth;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Where designer accounts are kept.
+ *
+ * Implementations store accounts as they are given and look them up by username;
+ * hashing passwords and checking them is left to {@link CredentialAuthService}, so
+ * every store keeps the same salted hashes. Implementations are thread-safe.
+ */
+public interface CredentialStore extends AutoCloseable {
+    String USERNAME_TAKEN = "Username already taken";
+
+    /**
+     * Look up an account
+     *
+     * @param username The username
+     * @return The account, or null if there is no account with that username
+     * @throws IOException If the store cannot be read
+     */
+    UserAccount find(String username) throws IOException;
+
+    /**
+     * Look up only what is needed to check a password: the username, password hash, salt
+     * and active flag. Stores that can read less than the whole account override this.
+     *
+     * @param username The username
+     * @return The account, possibly without its other details, or null if there is no such account
+     * @throws IOException If the store cannot be read
+     */
+    default UserAccount findCredentials(String username) throws IOException {
+        return find(username);
+    }
+
+    /**
+     * Check whether an account exists
+     *
+     * @param username The username
+     * @return true if the username is taken
+     * @throws IOException If the store cannot be read
+     */
+    default boolean exists(String username) throws IOException {
+        return find(username) != null;
+    }
+
+    /**
+     * Add an account
+     *
+     * @param account The account to add
+     * @return true if the account was added, false if the username is already taken
+     * @throws DuplicateEmailException If the store keeps email addresses unique and the address is taken
+     * @throws IOException If the store cannot be written
+     */
+    boolean insert(UserAccount account) throws IOException;
+
+    /**
+     * Add many accounts at once. Accounts that cannot be added, e.g. because their username
+     * is taken, are skipped and the others are still added. Stores that can write several
+     * accounts in one go override this.
+     *
+     * @param accounts The accounts to add
+     * @return For each account, null if it was added, otherwise why not
+     * @throws IOException If the store cannot be written
+     */
+    default String[] insertAll(List<UserAccount> accounts) throws IOException {
+        String[] failures = new String[accounts.size()];
+        for (int i = 0; i < failures.length; i++) {
+            if (!insert(accounts.get(i))) {
+                failures[i] = USERNAME_TAKEN;
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Record when a user logged in
+     *
+     * @param username The username
+     * @param time The login time, in milliseconds since the epoch
+     * @return true if the account exists
+     * @throws IOException If the store cannot be written
+     */
+    boolean updateLastLogin(String username, long time) throws IOException;
+
+    /**
+     * Count the accounts
+     *
+     * @return The number of accounts
+     * @throws IOException If the store cannot be read
+     */
+    long count() throws IOException;
+
+    /**
+     * Release the store's connection or file
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,12 @@
+package org.example.hci.auth;
+
+import java.io.IOException;
+
+/**
+ * Thrown when an account cannot be added because its email address is already registered
+ */
+public class DuplicateEmailException extends IOException {
+    public DuplicateEmailException(String email) {
+        super("Email address already registered: " + email);
+    }
+}
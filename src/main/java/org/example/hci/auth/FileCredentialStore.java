@@ -0,0 +1,398 @@
+package org.example.hci.auth;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Keeps accounts in a local file, for studios working without a MongoDB server.
+ *
+ * The file is memory-mapped and holds a hash index of usernames next to the account
+ * records, so opening it reads nothing and finding an account touches one index slot
+ * and one record. Records are only ever appended, except for their last login time,
+ * which is updated in place.
+ *
+ * When the index is half full, an index with twice the slots is appended after the
+ * records and the header is switched to it last, so a crash leaves either the old or
+ * the new index in use. The file is never replaced, which would fail on Windows while
+ * it is mapped; the old index stays behind as unused space, less than the current one.
+ *
+ * Layout: a header (magic, version, slot count, account count, end of data, index
+ * offset), the slots, each the username's hash in the high and the record's file offset
+ * in the low 32 bits, 0 if empty, and the records: last login, registration time, active
+ * flag, and the username, password hash, salt, email and full name as length-prefixed
+ * UTF-8. The first index directly follows the header. The file is locked while open,
+ * so only one process uses it at a time.
+ */
+public class FileCredentialStore implements CredentialStore {
+    public static final String DEFAULT_FILE = "credentials.db";
+
+    private static final int MAGIC = 0x48434943; // "HCIC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int SLOT_COUNT_OFFSET = 8;
+    private static final int RECORD_COUNT_OFFSET = 12;
+    private static final int DATA_END_OFFSET = 16;
+    private static final int SLOT_TABLE_OFFSET = 24;
+    private static final int SLOT_SIZE = 8;
+    private static final int INITIAL_SLOT_COUNT = 4096;
+    private static final int INITIAL_DATA_SIZE = 64 * 1024;
+    private static final double MAX_LOAD = 0.5;
+
+    // Record layout: last login, registration time, active, then the strings
+    private static final int LAST_LOGIN_OFFSET = 0;
+    private static final int REGISTRATION_OFFSET = 8;
+    private static final int ACTIVE_OFFSET = 16;
+    private static final int STRINGS_OFFSET = 17;
+    private static final int NULL_LENGTH = 0xFFFF;
+    private static final int MAX_STRING_LENGTH = NULL_LENGTH - 1;
+
+    private final Path file;
+    private FileChannel channel;
+    private FileLock lock;
+    private MappedByteBuffer buffer;
+    private int slotTable;
+    private int slotCount;
+    private int recordCount;
+    private int dataEnd;
+
+    private FileCredentialStore(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Open a store, creating its file if it does not exist
+     *
+     * @param file The store's file
+     * @return The open store
+     * @throws IOException If the file cannot be created or read, is not a credential store, or is in use
+     */
+    public static FileCredentialStore open(Path file) throws IOException {
+        FileCredentialStore store = new FileCredentialStore(file);
+        store.map();
+        return store;
+    }
+
+    @Override
+    public synchronized UserAccount find(String username) {
+        ensureOpen();
+        int offset = recordOffset(username);
+        return offset == 0 ? null : readRecord(offset);
+    }
+
+    @Override
+    public synchronized boolean exists(String username) {
+        ensureOpen();
+        return recordOffset(username) != 0;
+    }
+
+    @Override
+    public synchronized boolean insert(UserAccount account) throws IOException {
+        ensureOpen();
+        if (!append(account)) {
+            return false;
+        }
+        buffer.force();
+        return true;
+    }
+
+    /**
+     * Add many accounts, writing them to disk once at the end instead of after each account
+     */
+    @Override
+    public synchronized String[] insertAll(List<UserAccount> accounts) throws IOException {
+        ensureOpen();
+        String[] failures = new String[accounts.size()];
+        for (int i = 0; i < failures.length; i++) {
+            if (!append(accounts.get(i))) {
+                failures[i] = USERNAME_TAKEN;
+            }
+        }
+        buffer.force();
+        return failures;
+    }
+
+    /**
+     * Append a record and its index slot without forcing them to disk
+     *
+     * @return false if the username is already taken
+     */
+    private boolean append(UserAccount account) throws IOException {
+        if (recordOffset(account.getUsername()) != 0) {
+            return false;
+        }
+        if (recordCount + 1 > slotCount * MAX_LOAD) {
+            rebuild(slotCount * 2);
+        }
+
+        byte[][] strings = {
+                encode(account.getUsername()), encode(account.getPasswordHash()), encode(account.getSalt()),
+                encode(account.getEmail()), encode(account.getFullName())
+        };
+        int length = STRINGS_OFFSET;
+        for (byte[] string : strings) {
+            length += 2 + (string == null ? 0 : string.length);
+        }
+        ensureCapacity((long) dataEnd + length);
+
+        // The record first, so the slot never points at a partial record
+        int offset = dataEnd;
+        buffer.putLong(offset + LAST_LOGIN_OFFSET, account.getLastLoginTime());
+        buffer.putLong(offset + REGISTRATION_OFFSET, account.getRegistrationTime());
+        buffer.put(offset + ACTIVE_OFFSET, (byte) (account.isActive() ? 1 : 0));
+        int position = offset + STRINGS_OFFSET;
+        for (byte[] string : strings) {
+            buffer.putShort(position, (short) (string == null ? NULL_LENGTH : string.length));
+            position += 2;
+            if (string != null) {
+                buffer.put(position, string);
+                position += string.length;
+            }
+        }
+        putSlot(buffer, slotTable, slotCount, hash(account.getUsername()), offset);
+        recordCount++;
+        dataEnd = position;
+        writeHeader(buffer, slotTable, slotCount, recordCount, dataEnd);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean updateLastLogin(String username, long time) {
+        ensureOpen();
+        int offset = recordOffset(username);
+        if (offset == 0) {
+            return false;
+        }
+        buffer.putLong(offset + LAST_LOGIN_OFFSET, time);
+        return true;
+    }
+
+    @Override
+    public synchronized long count() {
+        ensureOpen();
+        return recordCount;
+    }
+
+    /**
+     * Get the file the accounts are kept in
+     *
+     * @return The path of the file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Write pending changes to disk and release the file
+     */
+    @Override
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            buffer.force();
+            unmap();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void map() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            channel = null;
+            throw new IOException(file + " is in use by another store");
+        }
+
+        try {
+            if (channel.size() == 0) {
+                slotTable = HEADER_SIZE;
+                slotCount = INITIAL_SLOT_COUNT;
+                recordCount = 0;
+                dataEnd = slotTable + slotCount * SLOT_SIZE;
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, dataEnd + INITIAL_DATA_SIZE);
+                writeHeader(buffer, slotTable, slotCount, recordCount, dataEnd);
+                buffer.force();
+                return;
+            }
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is not a credential store");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException(file + " is not a credential store of version " + VERSION);
+            }
+            // Files written before the index could move have 0 here, their index follows the header
+            slotTable = buffer.getInt(SLOT_TABLE_OFFSET) == 0 ? HEADER_SIZE : buffer.getInt(SLOT_TABLE_OFFSET);
+            slotCount = buffer.getInt(SLOT_COUNT_OFFSET);
+            recordCount = buffer.getInt(RECORD_COUNT_OFFSET);
+            dataEnd = (int) buffer.getLong(DATA_END_OFFSET);
+            if (slotCount <= 0 || Integer.bitCount(slotCount) != 1 || recordCount < 0 || recordCount > slotCount
+                    || slotTable < HEADER_SIZE || (long) slotTable + (long) slotCount * SLOT_SIZE > dataEnd
+                    || dataEnd > buffer.capacity()) {
+                throw new IOException(file + " has a corrupt header");
+            }
+        } catch (IOException e) {
+            unmap();
+            throw e;
+        }
+    }
+
+    private void unmap() throws IOException {
+        buffer = null;
+        try {
+            lock.release();
+        } finally {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void ensureOpen() {
+        if (channel == null) {
+            throw new IllegalStateException("Credential store " + file + " is closed");
+        }
+    }
+
+    /**
+     * Find the offset of a user's record
+     *
+     * @return The file offset, or 0 if there is no such user
+     */
+    private int recordOffset(String username) {
+        byte[] name = encode(username);
+        int hash = hash(username);
+        int mask = slotCount - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            long slot = buffer.getLong(slotTable + i * SLOT_SIZE);
+            if (slot == 0) {
+                return 0;
+            }
+            int offset = (int) slot;
+            if ((int) (slot >>> 32) == hash && nameEquals(offset + STRINGS_OFFSET, name)) {
+                return offset;
+            }
+        }
+    }
+
+    private boolean nameEquals(int position, byte[] name) {
+        if ((buffer.getShort(position) & 0xFFFF) != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (buffer.get(position + 2 + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private UserAccount readRecord(int offset) {
+        String[] strings = new String[5];
+        int position = offset + STRINGS_OFFSET;
+        for (int i = 0; i < strings.length; i++) {
+            int length = buffer.getShort(position) & 0xFFFF;
+            position += 2;
+            if (length != NULL_LENGTH) {
+                byte[] bytes = new byte[length];
+                buffer.get(position, bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+                position += length;
+            }
+        }
+        return new UserAccount(strings[0], strings[1], strings[2], strings[3], strings[4],
+                buffer.getLong(offset + REGISTRATION_OFFSET), buffer.getLong(offset + LAST_LOGIN_OFFSET),
+                buffer.get(offset + ACTIVE_OFFSET) != 0);
+    }
+
+    private void ensureCapacity(long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException(file + " is full");
+        }
+        if (size > buffer.capacity()) {
+            buffer.force();
+            // The old mapping is released when it is collected; the file is only ever grown, never
+            // moved or truncated, so it may stay mapped until then
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(Integer.MAX_VALUE,
+                    Math.max(size, (long) buffer.capacity() * 2)));
+        }
+    }
+
+    /**
+     * Append an index with more slots after the records and switch the header to it once it is on disk
+     */
+    private void rebuild(int newSlotCount) throws IOException {
+        int newSlotTable = (dataEnd + SLOT_SIZE - 1) & -SLOT_SIZE;
+        int newDataEnd = newSlotTable + newSlotCount * SLOT_SIZE;
+        ensureCapacity((long) newDataEnd + INITIAL_DATA_SIZE);
+
+        for (int i = newSlotTable; i < newDataEnd; i += SLOT_SIZE) {
+            buffer.putLong(i, 0);
+        }
+        for (int i = 0; i < slotCount; i++) {
+            long slot = buffer.getLong(slotTable + i * SLOT_SIZE);
+            if (slot != 0) {
+                putSlot(buffer, newSlotTable, newSlotCount, (int) (slot >>> 32), (int) slot);
+            }
+        }
+        // The new index must be on disk before the header points at it
+        buffer.force();
+
+        slotTable = newSlotTable;
+        slotCount = newSlotCount;
+        dataEnd = newDataEnd;
+        writeHeader(buffer, slotTable, slotCount, recordCount, dataEnd);
+        buffer.force();
+    }
+
+    private static void putSlot(ByteBuffer target, int slotTable, int slotCount, int hash, int offset) {
+        int mask = slotCount - 1;
+        int i = hash & mask;
+        while (target.getLong(slotTable + i * SLOT_SIZE) != 0) {
+            i = (i + 1) & mask;
+        }
+        target.putLong(slotTable + i * SLOT_SIZE, (long) hash << 32 | (offset & 0xFFFFFFFFL));
+    }
+
+    private static void writeHeader(ByteBuffer target, int slotTable, int slotCount, int recordCount, int dataEnd) {
+        target.putInt(0, MAGIC);
+        target.putInt(4, VERSION);
+        target.putInt(SLOT_COUNT_OFFSET, slotCount);
+        target.putInt(RECORD_COUNT_OFFSET, recordCount);
+        target.putLong(DATA_END_OFFSET, dataEnd);
+        target.putInt(SLOT_TABLE_OFFSET, slotTable);
+    }
+
+    /**
+     * Hash a username for the index; String.hashCode is specified, so the hash is the same in every JVM
+     */
+    private static int hash(String username) {
+        int hash = username.hashCode() * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static byte[] encode(String string) {
+        if (string == null) {
+            return null;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_LENGTH) {
+            throw new IllegalArgumentException("Text too long for the credential store: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+}
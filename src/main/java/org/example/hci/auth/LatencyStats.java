@@ -0,0 +1,98 @@
+package org.example.hci.auth;
+
+import java.util.Arrays;
+
+/**
+ * Percentiles of recent call latencies, e.g. of logins.
+ *
+ * The last {@link #DEFAULT_CAPACITY} samples are kept in a ring, so the percentiles
+ * follow recent behavior and memory stays fixed. Recording and reading are
+ * thread-safe.
+ */
+public class LatencyStats {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final long[] samples;
+    private long count = 0;
+    private long maxNanos = 0;
+
+    public LatencyStats() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create empty statistics
+     *
+     * @param capacity The number of recent samples percentiles are computed from
+     */
+    public LatencyStats(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.samples = new long[capacity];
+    }
+
+    /**
+     * Record the duration of one call
+     *
+     * @param nanos The duration in nanoseconds
+     */
+    public synchronized void record(long nanos) {
+        samples[(int) (count % samples.length)] = nanos;
+        count++;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    /**
+     * Get a percentile of the recent samples
+     *
+     * @param percentile The percentile, from 0 to 100
+     * @return The latency in nanoseconds, or 0 if nothing was recorded
+     */
+    public long percentile(double percentile) {
+        return percentileOf(sortedSamples(), percentile);
+    }
+
+    /**
+     * Get the number of samples recorded since the statistics were created
+     *
+     * @return The sample count
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Get the longest latency recorded since the statistics were created
+     *
+     * @return The latency in nanoseconds
+     */
+    public synchronized long getMaxNanos() {
+        return maxNanos;
+    }
+
+    private static long percentileOf(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private synchronized long[] sortedSamples() {
+        long[] sorted = Arrays.copyOf(samples, (int) Math.min(count, samples.length));
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    @Override
+    public String toString() {
+        long[] sorted = sortedSamples();
+        if (sorted.length == 0) {
+            return "no samples";
+        }
+        return String.format("n=%d, p50 %.1f ms, p95 %.1f ms, p99 %.1f ms, max %.1f ms",
+                getCount(), percentileOf(sorted, 50) / 1_000_000.0, percentileOf(sorted, 95) / 1_000_000.0,
+                percentileOf(sorted, 99) / 1_000_000.0, getMaxNanos() / 1_000_000.0);
+    }
+}
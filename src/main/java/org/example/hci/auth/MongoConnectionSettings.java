@@ -0,0 +1,277 @@
+package org.example.hci.auth;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.ConnectionPoolListener;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection pool sizes and timeouts for the MongoDB client.
+ *
+ * Each setting can be given as a system property {@code hci.mongodb.<name>} or an
+ * environment variable {@code HCI_MONGODB_<NAME>}, e.g. {@code -Dhci.mongodb.pool.maxSize=20}
+ * or {@code HCI_MONGODB_POOL_MAXSIZE=20}. Settings given that way or with a setter win
+ * over the same options in the connection string; otherwise the connection string's
+ * options win over the defaults here.
+ */
+public class MongoConnectionSettings {
+    public static final String PREFIX = "hci.mongodb.";
+
+    private static final String POOL_MIN_SIZE = "pool.minSize";
+    private static final String POOL_MAX_SIZE = "pool.maxSize";
+    private static final String POOL_MAX_WAIT_TIME = "pool.maxWaitTimeMs";
+    private static final String POOL_MAX_IDLE_TIME = "pool.maxConnectionIdleTimeMs";
+    private static final String SERVER_SELECTION_TIMEOUT = "serverSelectionTimeoutMs";
+    private static final String CONNECT_TIMEOUT = "connectTimeoutMs";
+    private static final String READ_TIMEOUT = "readTimeoutMs";
+
+    private String connectionString;
+    private String databaseName = "furniture";
+    private int minPoolSize = 1;
+    private int maxPoolSize = 10;
+    private long maxWaitTimeMs = 2_000;
+    private long maxConnectionIdleTimeMs = 300_000;
+    private long serverSelectionTimeoutMs = 5_000;
+    private int connectTimeoutMs = 5_000;
+    private int readTimeoutMs = 15_000;
+    private boolean uniqueEmail = false;
+
+    // Settings given explicitly, which win over the connection string
+    private final Set<String> given = new HashSet<>();
+
+    /**
+     * Create settings with the defaults
+     *
+     * @param connectionString The MongoDB connection string
+     */
+    public MongoConnectionSettings(String connectionString) {
+        this.connectionString = connectionString;
+    }
+
+    /**
+     * Read the settings from system properties and environment variables
+     *
+     * @param connectionString The connection string, see {@link MongoDBConnector#getConnectionString()}
+     * @param defaultDatabaseName The database used unless {@code hci.mongodb.database} is set
+     * @return The settings
+     */
+    public static MongoConnectionSettings fromEnvironment(String connectionString, String defaultDatabaseName) {
+        MongoConnectionSettings settings = new MongoConnectionSettings(connectionString);
+        settings.databaseName = read("database", defaultDatabaseName);
+        settings.minPoolSize = settings.readInt(POOL_MIN_SIZE, settings.minPoolSize);
+        settings.maxPoolSize = Math.max(1, settings.readInt(POOL_MAX_SIZE, settings.maxPoolSize));
+        if (settings.minPoolSize > settings.maxPoolSize) {
+            System.err.println("MongoDB pool.minSize is above pool.maxSize, using " + settings.maxPoolSize);
+            settings.minPoolSize = settings.maxPoolSize;
+        }
+        settings.maxWaitTimeMs = settings.readLong(POOL_MAX_WAIT_TIME, settings.maxWaitTimeMs);
+        settings.maxConnectionIdleTimeMs = settings.readLong(POOL_MAX_IDLE_TIME, settings.maxConnectionIdleTimeMs);
+        settings.serverSelectionTimeoutMs = settings.readLong(SERVER_SELECTION_TIMEOUT,
+                settings.serverSelectionTimeoutMs);
+        settings.connectTimeoutMs = settings.readInt(CONNECT_TIMEOUT, settings.connectTimeoutMs);
+        settings.readTimeoutMs = settings.readInt(READ_TIMEOUT, settings.readTimeoutMs);
+        settings.uniqueEmail = Boolean.parseBoolean(read("users.uniqueEmail", String.valueOf(settings.uniqueEmail)));
+        return settings;
+    }
+
+    /**
+     * Build the driver settings, reporting pool and command events to the given listeners.
+     * Settings that were not given explicitly take the connection string's option where it
+     * has one, so the getters report what the client uses.
+     *
+     * @param poolListener Receives connection pool events, or null
+     * @param commandListener Receives command events, or null
+     * @return The client settings
+     */
+    public MongoClientSettings toClientSettings(ConnectionPoolListener poolListener, CommandListener commandListener) {
+        ConnectionString uri = new ConnectionString(connectionString);
+        minPoolSize = (int) resolve(POOL_MIN_SIZE, minPoolSize, uri.getMinConnectionPoolSize());
+        maxPoolSize = (int) resolve(POOL_MAX_SIZE, maxPoolSize, uri.getMaxConnectionPoolSize());
+        if (maxPoolSize > 0 && minPoolSize > maxPoolSize) {
+            // The driver rejects a minimum above the maximum; 0 means no maximum
+            minPoolSize = maxPoolSize;
+        }
+        maxWaitTimeMs = resolve(POOL_MAX_WAIT_TIME, maxWaitTimeMs, uri.getMaxWaitTime());
+        maxConnectionIdleTimeMs = resolve(POOL_MAX_IDLE_TIME, maxConnectionIdleTimeMs, uri.getMaxConnectionIdleTime());
+        serverSelectionTimeoutMs = resolve(SERVER_SELECTION_TIMEOUT, serverSelectionTimeoutMs,
+                uri.getServerSelectionTimeout());
+        connectTimeoutMs = (int) resolve(CONNECT_TIMEOUT, connectTimeoutMs, uri.getConnectTimeout());
+        readTimeoutMs = (int) resolve(READ_TIMEOUT, readTimeoutMs, uri.getSocketTimeout());
+
+        MongoClientSettings.Builder builder = MongoClientSettings.builder()
+                .applyConnectionString(uri)
+                .applyToConnectionPoolSettings(pool -> {
+                    pool.minSize(minPoolSize)
+                            .maxSize(maxPoolSize)
+                            .maxWaitTime(maxWaitTimeMs, TimeUnit.MILLISECONDS)
+                            .maxConnectionIdleTime(maxConnectionIdleTimeMs, TimeUnit.MILLISECONDS);
+                    if (poolListener != null) {
+                        pool.addConnectionPoolListener(poolListener);
+                    }
+                })
+                .applyToClusterSettings(cluster ->
+                        cluster.serverSelectionTimeout(serverSelectionTimeoutMs, TimeUnit.MILLISECONDS))
+                .applyToSocketSettings(socket -> socket
+                        .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+                        .readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS));
+        if (commandListener != null) {
+            builder.addCommandListener(commandListener);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Choose between a setting and the connection string's option
+     *
+     * @return The setting if it was given explicitly or the connection string lacks the option
+     */
+    private long resolve(String name, long value, Integer fromConnectionString) {
+        return fromConnectionString == null || given.contains(name) ? value : fromConnectionString;
+    }
+
+    private static String read(String name, String defaultValue) {
+        String value = System.getProperty(PREFIX + name);
+        if (value == null || value.isBlank()) {
+            value = System.getenv((PREFIX + name).replace('.', '_').toUpperCase(Locale.ROOT));
+        }
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    private int readInt(String name, int defaultValue) {
+        return (int) Math.min(Integer.MAX_VALUE, readLong(name, defaultValue));
+    }
+
+    private long readLong(String name, long defaultValue) {
+        String value = read(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            long parsed = Long.parseLong(value);
+            if (parsed < 0) {
+                throw new NumberFormatException("negative");
+            }
+            given.add(name);
+            return parsed;
+        } catch (NumberFormatException e) {
+            System.err.println("Ignoring invalid MongoDB setting " + PREFIX + name + "=" + value);
+            return defaultValue;
+        }
+    }
+
+    public String getConnectionString() {
+        return connectionString;
+    }
+
+    public String getDatabaseName() {
+        return databaseName;
+    }
+
+    public void setDatabaseName(String databaseName) {
+        this.databaseName = databaseName;
+    }
+
+    public int getMinPoolSize() {
+        return minPoolSize;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * Set how many connections the pool keeps open and may open
+     *
+     * @param minPoolSize Connections kept open even when idle
+     * @param maxPoolSize The most connections open at the same time
+     */
+    public void setPoolSize(int minPoolSize, int maxPoolSize) {
+        if (minPoolSize < 0 || maxPoolSize < 1 || minPoolSize > maxPoolSize) {
+            throw new IllegalArgumentException("Invalid pool size " + minPoolSize + ".." + maxPoolSize);
+        }
+        this.minPoolSize = minPoolSize;
+        this.maxPoolSize = maxPoolSize;
+        given.add(POOL_MIN_SIZE);
+        given.add(POOL_MAX_SIZE);
+    }
+
+    public long getMaxWaitTimeMs() {
+        return maxWaitTimeMs;
+    }
+
+    /**
+     * Set how long a call waits for a free connection when all are in use
+     *
+     * @param maxWaitTimeMs The wait queue timeout in milliseconds
+     */
+    public void setMaxWaitTimeMs(long maxWaitTimeMs) {
+        this.maxWaitTimeMs = maxWaitTimeMs;
+        given.add(POOL_MAX_WAIT_TIME);
+    }
+
+    public long getMaxConnectionIdleTimeMs() {
+        return maxConnectionIdleTimeMs;
+    }
+
+    public void setMaxConnectionIdleTimeMs(long maxConnectionIdleTimeMs) {
+        this.maxConnectionIdleTimeMs = maxConnectionIdleTimeMs;
+        given.add(POOL_MAX_IDLE_TIME);
+    }
+
+    public long getServerSelectionTimeoutMs() {
+        return serverSelectionTimeoutMs;
+    }
+
+    /**
+     * Set how long a call waits for a reachable server before failing
+     *
+     * @param serverSelectionTimeoutMs The timeout in milliseconds
+     */
+    public void setServerSelectionTimeoutMs(long serverSelectionTimeoutMs) {
+        this.serverSelectionTimeoutMs = serverSelectionTimeoutMs;
+        given.add(SERVER_SELECTION_TIMEOUT);
+    }
+
+    public int getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public void setConnectTimeoutMs(int connectTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+        given.add(CONNECT_TIMEOUT);
+    }
+
+    public int getReadTimeoutMs() {
+        return readTimeoutMs;
+    }
+
+    public void setReadTimeoutMs(int readTimeoutMs) {
+        this.readTimeoutMs = readTimeoutMs;
+        given.add(READ_TIMEOUT);
+    }
+
+    public boolean isUniqueEmail() {
+        return uniqueEmail;
+    }
+
+    /**
+     * Choose whether two accounts may share an email address
+     *
+     * @param uniqueEmail true to create a unique index on the email of accounts
+     */
+    public void setUniqueEmail(boolean uniqueEmail) {
+        this.uniqueEmail = uniqueEmail;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("database %s, pool %d..%d, wait %d ms, idle %d ms, server selection %d ms, "
+                        + "connect %d ms, read %d ms", databaseName, minPoolSize, maxPoolSize, maxWaitTimeMs,
+                maxConnectionIdleTimeMs, serverSelectionTimeoutMs, connectTimeoutMs, readTimeoutMs);
+    }
+}
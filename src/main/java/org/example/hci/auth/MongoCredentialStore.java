@@ -0,0 +1,210 @@
+package org.example.hci.auth;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Keeps accounts as documents of the MongoDB users collection.
+ *
+ * A unique index on the username, created when the store is opened, lets the
+ * database reject duplicates, so adding an account is a single insert and two
+ * people signing up with the same name at the same time cannot both succeed.
+ * Lookups only fetch the fields they need.
+ */
+public class MongoCredentialStore implements CredentialStore {
+    public static final String USERNAME_INDEX = "username_unique";
+    public static final String EMAIL_INDEX = "email_unique";
+
+    private static final Bson ACCOUNT_FIELDS = Projections.excludeId();
+    private static final Bson CREDENTIAL_FIELDS = Projections.fields(
+            Projections.include("username", "passwordHash", "salt", "isActive"), Projections.excludeId());
+    private static final Bson ID_FIELD = Projections.include("_id");
+
+    private final MongoCollection<Document> usersCollection;
+    private final boolean uniqueUsernames;
+
+    public MongoCredentialStore() {
+        this(MongoDBConnector.getInstance().getCollection(MongoDBConnector.USERS_COLLECTION),
+                MongoDBConnector.getInstance().getSettings().isUniqueEmail());
+    }
+
+    /**
+     * Create a store on a collection, creating its unique indexes if they do not exist
+     *
+     * @param usersCollection The collection holding one document per account
+     * @param uniqueEmail true to also reject accounts whose email address is already used
+     */
+    public MongoCredentialStore(MongoCollection<Document> usersCollection, boolean uniqueEmail) {
+        this.usersCollection = usersCollection;
+        this.uniqueUsernames = createIndexes(uniqueEmail);
+    }
+
+    /**
+     * Create the unique indexes
+     *
+     * @return false if the username index could not be created, e.g. because of existing duplicates
+     */
+    private boolean createIndexes(boolean uniqueEmail) {
+        try {
+            usersCollection.createIndex(Indexes.ascending("username"),
+                    new IndexOptions().unique(true).name(USERNAME_INDEX));
+        } catch (MongoException e) {
+            System.err.println("Could not create the unique username index, "
+                    + "registration checks for duplicates first: " + e.getMessage());
+            return false;
+        }
+        if (uniqueEmail) {
+            try {
+                // Only accounts with an email take part, so accounts without one do not collide
+                usersCollection.createIndex(Indexes.ascending("email"), new IndexOptions().unique(true)
+                        .name(EMAIL_INDEX).partialFilterExpression(Filters.type("email", BsonType.STRING)));
+            } catch (MongoException e) {
+                System.err.println("Could not create the unique email index: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public UserAccount find(String username) {
+        Document userDoc = usersCollection.find(Filters.eq("username", username)).projection(ACCOUNT_FIELDS).first();
+        return userDoc == null ? null : toAccount(userDoc);
+    }
+
+    @Override
+    public UserAccount findCredentials(String username) {
+        Document userDoc = usersCollection.find(Filters.eq("username", username)).projection(CREDENTIAL_FIELDS).first();
+        return userDoc == null ? null : toAccount(userDoc);
+    }
+
+    @Override
+    public boolean exists(String username) {
+        return usersCollection.find(Filters.eq("username", username)).projection(ID_FIELD).first() != null;
+    }
+
+    @Override
+    public boolean insert(UserAccount account) throws IOException {
+        // Without the unique index the database cannot reject duplicates itself
+        if (!uniqueUsernames && exists(account.getUsername())) {
+            return false;
+        }
+        try {
+            return usersCollection.insertOne(toDocument(account)).wasAcknowledged();
+        } catch (MongoWriteException e) {
+            if (e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) {
+                throw e;
+            }
+            if (e.getError().getMessage().contains(EMAIL_INDEX)) {
+                throw new DuplicateEmailException(account.getEmail());
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Add the accounts with one unordered insert, so the server writes all accounts it can
+     * and reports the rejected ones, e.g. taken usernames, instead of stopping at the first
+     */
+    @Override
+    public String[] insertAll(List<UserAccount> accounts) throws IOException {
+        if (!uniqueUsernames) {
+            return CredentialStore.super.insertAll(accounts);
+        }
+        String[] failures = new String[accounts.size()];
+        if (accounts.isEmpty()) {
+            return failures;
+        }
+        List<Document> documents = new ArrayList<>(accounts.size());
+        for (UserAccount account : accounts) {
+            documents.add(toDocument(account));
+        }
+        try {
+            usersCollection.insertMany(documents, new InsertManyOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            for (BulkWriteError error : e.getWriteErrors()) {
+                failures[error.getIndex()] = describe(error);
+            }
+        }
+        return failures;
+    }
+
+    private static String describe(BulkWriteError error) {
+        if (error.getCategory() != ErrorCategory.DUPLICATE_KEY) {
+            return error.getMessage();
+        }
+        return error.getMessage().contains(EMAIL_INDEX) ? "Email address already registered" : USERNAME_TAKEN;
+    }
+
+    @Override
+    public boolean updateLastLogin(String username, long time) {
+        UpdateResult result = usersCollection.updateOne(Filters.eq("username", username),
+                Updates.set("lastLogin", new Date(time)));
+        return !result.wasAcknowledged() || result.getMatchedCount() > 0;
+    }
+
+    /**
+     * Count the accounts from the collection's metadata, without scanning it
+     */
+    @Override
+    public long count() {
+        return usersCollection.estimatedDocumentCount();
+    }
+
+    /**
+     * Check whether the database rejects duplicate usernames itself
+     *
+     * @return false if the unique username index could not be created
+     */
+    public boolean hasUniqueUsernames() {
+        return uniqueUsernames;
+    }
+
+    /**
+     * Nothing to release, the connection is shared through {@link MongoDBConnector}
+     */
+    @Override
+    public void close() {
+    }
+
+    private static Document toDocument(UserAccount account) {
+        return new Document()
+                .append("username", account.getUsername())
+                .append("passwordHash", account.getPasswordHash())
+                .append("salt", account.getSalt())
+                .append("email", account.getEmail())
+                .append("fullName", account.getFullName())
+                .append("registrationDate", new Date(account.getRegistrationTime()))
+                .append("lastLogin", account.getLastLoginTime() == 0 ? null : new Date(account.getLastLoginTime()))
+                .append("isActive", account.isActive());
+    }
+
+    private static UserAccount toAccount(Document userDoc) {
+        Date registrationDate = userDoc.getDate("registrationDate");
+        Date lastLogin = userDoc.getDate("lastLogin");
+        Boolean active = userDoc.getBoolean("isActive");
+        return new UserAccount(userDoc.getString("username"), userDoc.getString("passwordHash"),
+                userDoc.getString("salt"), userDoc.getString("email"), userDoc.getString("fullName"),
+                registrationDate == null ? 0 : registrationDate.getTime(),
+                lastLogin == null ? 0 : lastLogin.getTime(),
+                active == null || active);
+    }
+}
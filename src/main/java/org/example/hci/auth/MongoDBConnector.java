@@ -7,10 +7,14 @@ import com.mongodb.client.MongoDatabase;
 import org.bson.Document;
 
 /**
- * Singleton class to manage MongoDB connection
+ * Singleton class to manage MongoDB connection.
+ *
+ * The pool sizes and timeouts come from {@link MongoConnectionSettings}, and the
+ * health of the connection is collected in {@link MongoPoolMetrics}.
  */
 public class MongoDBConnector {
-    private static MongoDBConnector instance;
+    private final MongoConnectionSettings settings;
+    private final MongoPoolMetrics metrics = new MongoPoolMetrics();
     private MongoClient mongoClient;
     private MongoDatabase database;
 
@@ -18,18 +22,23 @@ public class MongoDBConnector {
     private static final String CONNECTION_STRING = "MongoDB_URL";
     private static final String DATABASE_NAME = "furniture";
 
+    // The connection string can be set with this system property or environment variable instead
+    public static final String CONNECTION_STRING_PROPERTY = "hci.mongodb.uri";
+    public static final String CONNECTION_STRING_VARIABLE = "HCI_MONGODB_URI";
+
     // Collection names
     public static final String USERS_COLLECTION = "users";
 
     private MongoDBConnector() {
+        settings = MongoConnectionSettings.fromEnvironment(getConnectionString(), DATABASE_NAME);
         try {
-            // Create a MongoDB client
-            mongoClient = MongoClients.create(CONNECTION_STRING);
+            // Create a MongoDB client; it connects in the background, the first command waits for the server
+            mongoClient = MongoClients.create(settings.toClientSettings(metrics, metrics));
 
             // Connect to the database
-            database = mongoClient.getDatabase(DATABASE_NAME);
+            database = mongoClient.getDatabase(settings.getDatabaseName());
 
-            System.out.println("MongoDB connection established successfully");
+            System.out.println("MongoDB client created: " + settings);
         } catch (Exception e) {
             System.err.println("Error connecting to MongoDB: " + e.getMessage());
             e.printStackTrace();
@@ -37,13 +46,64 @@ public class MongoDBConnector {
     }
 
     /**
-     * Get the singleton instance
+     * Get the connection string, from the system property, the environment variable or the default
+     *
+     * @return The MongoDB connection string
      */
-    public static synchronized MongoDBConnector getInstance() {
-        if (instance == null) {
-            instance = new MongoDBConnector();
+    public static String getConnectionString() {
+        String connectionString = System.getProperty(CONNECTION_STRING_PROPERTY);
+        if (connectionString == null || connectionString.isBlank()) {
+            connectionString = System.getenv(CONNECTION_STRING_VARIABLE);
+        }
+        if (connectionString == null || connectionString.isBlank()) {
+            connectionString = CONNECTION_STRING;
+        }
+        return connectionString.trim();
+    }
+
+    /**
+     * Check whether a MongoDB server is configured, without connecting to it
+     *
+     * @return true if the connection string is a MongoDB URI
+     */
+    public static boolean isConfigured() {
+        String connectionString = getConnectionString();
+        return connectionString.startsWith("mongodb://") || connectionString.startsWith("mongodb+srv://");
+    }
+
+    /**
+     * Get the singleton instance, created on first use without locking afterwards
+     */
+    public static MongoDBConnector getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Create the client and open a connection on a background thread, so the first
+     * screen using the database does not wait for the server
+     */
+    public static void warmUp() {
+        // The ping waits for the connection; a failure is reported by ping() itself
+        Thread.ofVirtual().name("mongodb-warm-up").start(() -> getInstance().ping());
+    }
+
+    /**
+     * Send a ping to the server, which waits for it to be reachable and opens a pooled connection
+     *
+     * @return The round trip time in nanoseconds, or -1 if the server could not be reached
+     */
+    public long ping() {
+        if (database == null) {
+            return -1;
+        }
+        long start = System.nanoTime();
+        try {
+            database.runCommand(new Document("ping", 1));
+            return System.nanoTime() - start;
+        } catch (Exception e) {
+            System.err.println("MongoDB ping failed: " + e.getMessage());
+            return -1;
         }
-        return instance;
     }
 
     /**
@@ -56,6 +116,24 @@ public class MongoDBConnector {
         return database.getCollection(collectionName);
     }
 
+    /**
+     * Get the settings the client was created with
+     *
+     * @return The connection settings
+     */
+    public MongoConnectionSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Get the connection pool and command statistics
+     *
+     * @return The metrics, updated as commands run
+     */
+    public MongoPoolMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Close the MongoDB connection
      */
@@ -65,4 +143,8 @@ public class MongoDBConnector {
             System.out.println("MongoDB connection closed");
         }
     }
+
+    private static class Holder {
+        private static final MongoDBConnector INSTANCE = new MongoDBConnector();
+    }
 }
\ No newline at end of file
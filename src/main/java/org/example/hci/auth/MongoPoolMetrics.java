@@ -0,0 +1,178 @@
+package org.example.hci.auth;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionClosedEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolClearedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Health of the MongoDB connection, collected from the driver's pool and command events:
+ * open and in-use connections, how long calls wait for a connection, and the latency
+ * of each kind of command.
+ *
+ * The driver calls the listener methods on the threads running the commands, so the
+ * counters are atomic and the latencies are kept in thread-safe {@link LatencyStats}.
+ */
+public class MongoPoolMetrics implements ConnectionPoolListener, CommandListener {
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicInteger inUseConnections = new AtomicInteger();
+    private final AtomicLong checkOutCount = new AtomicLong();
+    private final AtomicLong checkOutFailedCount = new AtomicLong();
+    private final AtomicLong poolClearedCount = new AtomicLong();
+    private final AtomicLong commandFailedCount = new AtomicLong();
+    private final LatencyStats checkOutWait = new LatencyStats();
+    private final Map<String, LatencyStats> commandLatency = new ConcurrentHashMap<>();
+
+    // Check-outs of the sync driver start and end on the thread that needs the connection
+    private final ThreadLocal<long[]> checkOutStart = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+        checkOutStart.get()[0] = System.nanoTime();
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        checkOutWait.record(System.nanoTime() - checkOutStart.get()[0]);
+        checkOutCount.incrementAndGet();
+        inUseConnections.incrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        checkOutWait.record(System.nanoTime() - checkOutStart.get()[0]);
+        checkOutFailedCount.incrementAndGet();
+        System.err.println("MongoDB connection check-out failed: " + event.getReason());
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+        inUseConnections.decrementAndGet();
+    }
+
+    @Override
+    public void connectionCreated(ConnectionCreatedEvent event) {
+        openConnections.incrementAndGet();
+    }
+
+    @Override
+    public void connectionClosed(ConnectionClosedEvent event) {
+        openConnections.decrementAndGet();
+    }
+
+    @Override
+    public void connectionPoolCleared(ConnectionPoolClearedEvent event) {
+        // The driver clears the pool when the server becomes unreachable
+        poolClearedCount.incrementAndGet();
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        latencyOf(event.getCommandName()).record(event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        latencyOf(event.getCommandName()).record(event.getElapsedTime(TimeUnit.NANOSECONDS));
+        commandFailedCount.incrementAndGet();
+    }
+
+    private LatencyStats latencyOf(String commandName) {
+        return commandLatency.computeIfAbsent(commandName, name -> new LatencyStats());
+    }
+
+    /**
+     * Get the number of connections open to the server, idle or in use
+     *
+     * @return The open connection count
+     */
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    /**
+     * Get the number of connections currently checked out by a command
+     *
+     * @return The in-use connection count
+     */
+    public int getInUseConnections() {
+        return inUseConnections.get();
+    }
+
+    public long getCheckOutCount() {
+        return checkOutCount.get();
+    }
+
+    /**
+     * Get the number of times no connection could be had, e.g. because the wait queue timed out
+     *
+     * @return The failed check-out count
+     */
+    public long getCheckOutFailedCount() {
+        return checkOutFailedCount.get();
+    }
+
+    public long getPoolClearedCount() {
+        return poolClearedCount.get();
+    }
+
+    public long getCommandFailedCount() {
+        return commandFailedCount.get();
+    }
+
+    /**
+     * Get how long commands waited for a connection from the pool
+     *
+     * @return The check-out wait statistics
+     */
+    public LatencyStats getCheckOutWait() {
+        return checkOutWait;
+    }
+
+    /**
+     * Get the latencies of one kind of command, e.g. "find" or "insert"
+     *
+     * @param commandName The command name
+     * @return The latency statistics, empty if the command was never run
+     */
+    public LatencyStats getCommandLatency(String commandName) {
+        LatencyStats stats = commandLatency.get(commandName);
+        return stats == null ? new LatencyStats() : stats;
+    }
+
+    /**
+     * Get the latencies of every kind of command run so far
+     *
+     * @return The latency statistics by command name, sorted by name
+     */
+    public Map<String, LatencyStats> getCommandLatencies() {
+        return new TreeMap<>(commandLatency);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(String.format(
+                "connections: %d open, %d in use, %d check-outs (%d failed), pool cleared %d times, wait %s",
+                getOpenConnections(), getInUseConnections(), getCheckOutCount(), getCheckOutFailedCount(),
+                getPoolClearedCount(), checkOutWait));
+        text.append(String.format("%ncommands: %d failed", getCommandFailedCount()));
+        for (Map.Entry<String, LatencyStats> entry : getCommandLatencies().entrySet()) {
+            text.append(String.format("%n  %s: %s", entry.getKey(), entry.getValue()));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.hci.auth;
+
+/**
+ * A designer account as kept by a {@link CredentialStore}: the salted password hash
+ * and the details entered when signing up
+ */
+public class UserAccount {
+    private final String username;
+    private final String passwordHash;
+    private final String salt;
+    private final String email;
+    private final String fullName;
+    private final long registrationTime;
+    private final long lastLoginTime;
+    private final boolean active;
+
+    /**
+     * Create an account
+     *
+     * @param username The username
+     * @param passwordHash The Base64 encoded hash of the salted password
+     * @param salt The Base64 encoded salt
+     * @param email The email address
+     * @param fullName The full name of the user
+     * @param registrationTime When the account was created, in milliseconds since the epoch
+     * @param lastLoginTime When the user last logged in, in milliseconds since the epoch, or 0 if never
+     * @param active false if the account is disabled
+     */
+    public UserAccount(String username, String passwordHash, String salt, String email, String fullName,
+                       long registrationTime, long lastLoginTime, boolean active) {
+        this.username = username;
+        this.passwordHash = passwordHash;
+        this.salt = salt;
+        this.email = email;
+        this.fullName = fullName;
+        this.registrationTime = registrationTime;
+        this.lastLoginTime = lastLoginTime;
+        this.active = active;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getPasswordHash() {
+        return passwordHash;
+    }
+
+    public String getSalt() {
+        return salt;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public long getRegistrationTime() {
+        return registrationTime;
+    }
+
+    public long getLastLoginTime() {
+        return lastLoginTime;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    @Override
+    public String toString() {
+        return "UserAccount{" + username + ", " + email + "}";
+    }
+}
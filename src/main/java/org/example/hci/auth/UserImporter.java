@@ -0,0 +1,391 @@
+package org.example.hci.auth;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Creates many designer accounts at once, e.g. when onboarding a studio.
+ *
+ * The rows are read from a CSV file with the columns username, password, email and
+ * full name; a first line starting with "username" is taken as the header. Passwords
+ * are hashed in parallel on all cores, then the accounts are added in batches with
+ * {@link CredentialStore#insertAll(List)}, one round trip per batch on MongoDB. A row
+ * that cannot be added, e.g. because the username is taken, is reported and the other
+ * rows are still added.
+ */
+public class UserImporter {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final CredentialAuthService authService;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Create an importer adding accounts through a service
+     *
+     * @param authService The service whose store the accounts are added to
+     */
+    public UserImporter(CredentialAuthService authService) {
+        this.authService = authService;
+    }
+
+    /**
+     * Set how many accounts are written to the store at once
+     *
+     * @param batchSize The accounts per batch
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Invalid batch size " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Set how many threads hash passwords
+     *
+     * @param parallelism The thread count, by default the number of cores
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Import the accounts of a CSV file
+     *
+     * @param csvFile The file, in UTF-8
+     * @return The outcome of the import
+     * @throws IOException If the file cannot be read or the store cannot be written
+     */
+    public ImportResult importCsv(Path csvFile) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            return importCsv(reader);
+        }
+    }
+
+    /**
+     * Import the accounts of CSV text
+     *
+     * @param reader The CSV text
+     * @return The outcome of the import
+     * @throws IOException If the text cannot be read or the store cannot be written
+     */
+    public ImportResult importCsv(BufferedReader reader) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (lineNumber == 1 && line.regionMatches(true, 0, "username", 0, 8))) {
+                continue;
+            }
+            List<String> fields = parseCsvLine(line);
+            rows.add(new Row(lineNumber, field(fields, 0), field(fields, 1), field(fields, 2), field(fields, 3)));
+        }
+        return importRows(rows);
+    }
+
+    /**
+     * Import accounts
+     *
+     * @param rows The accounts to create
+     * @return The outcome of the import
+     * @throws IOException If the store cannot be written
+     */
+    public ImportResult importRows(List<Row> rows) throws IOException {
+        long start = System.nanoTime();
+        List<Failure> failures = new ArrayList<>();
+
+        // Hashing is the CPU-bound part, so it runs on all cores before anything is written
+        UserAccount[] accounts = new UserAccount[rows.size()];
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> IntStream.range(0, accounts.length).parallel().forEach(i -> {
+                Row row = rows.get(i);
+                if (row.getUsername() != null && row.getPassword() != null) {
+                    accounts[i] = authService.createAccount(row.getUsername(), row.getPassword(),
+                            row.getEmail(), row.getFullName());
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Could not hash the passwords", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        long hashNanos = System.nanoTime() - start;
+
+        List<UserAccount> batch = new ArrayList<>(batchSize);
+        List<Row> batchRows = new ArrayList<>(batchSize);
+        int addedCount = 0;
+        for (int i = 0; i < accounts.length; i++) {
+            if (accounts[i] == null) {
+                Row row = rows.get(i);
+                failures.add(new Failure(row, row.getUsername() == null ? "Missing username" : "Missing password"));
+                continue;
+            }
+            batch.add(accounts[i]);
+            batchRows.add(rows.get(i));
+            if (batch.size() == batchSize) {
+                addedCount += writeBatch(batch, batchRows, failures);
+            }
+        }
+        if (!batch.isEmpty()) {
+            addedCount += writeBatch(batch, batchRows, failures);
+        }
+
+        failures.sort((a, b) -> Integer.compare(a.getRow().getLineNumber(), b.getRow().getLineNumber()));
+        return new ImportResult(rows.size(), addedCount, failures, hashNanos, System.nanoTime() - start);
+    }
+
+    /**
+     * Write a batch to the store and empty it
+     *
+     * @return The number of accounts added
+     */
+    private int writeBatch(List<UserAccount> batch, List<Row> batchRows, List<Failure> failures) throws IOException {
+        String[] batchFailures = authService.getStore().insertAll(batch);
+        int addedCount = 0;
+        for (int i = 0; i < batchFailures.length; i++) {
+            if (batchFailures[i] == null) {
+                addedCount++;
+            } else {
+                failures.add(new Failure(batchRows.get(i), batchFailures[i]));
+            }
+        }
+        batch.clear();
+        batchRows.clear();
+        return addedCount;
+    }
+
+    private static String field(List<String> fields, int index) {
+        if (index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Split a CSV line into fields; fields may be quoted, with "" for a quote inside them
+     *
+     * @param line The line
+     * @return The fields, unquoted
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Import a CSV file into the store the application uses
+     *
+     * @param args The CSV file and optionally the batch size
+     */
+    public static void main(String[] args) {
+        if (args.length != 1 && args.length != 2) {
+            System.err.println("Usage: UserImporter <csv file> [batch size]");
+            System.exit(2);
+        }
+
+        int exitCode;
+        // The service must be closed before exiting, so the file store writes the accounts to disk
+        try (CredentialAuthService authService = CredentialAuthService.openDefault()) {
+            UserImporter importer = new UserImporter(authService);
+            if (args.length == 2) {
+                importer.setBatchSize(Integer.parseInt(args[1]));
+            }
+            ImportResult result = importer.importCsv(Paths.get(args[0]));
+            for (Failure failure : result.getFailures()) {
+                System.err.println(failure);
+            }
+            System.out.println(result);
+            exitCode = result.getFailures().isEmpty() ? 0 : 1;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("UserImporter: " + e.getMessage());
+            exitCode = 2;
+        }
+        System.exit(exitCode);
+    }
+
+    /**
+     * One account to create
+     */
+    public static class Row {
+        private final int lineNumber;
+        private final String username;
+        private final String password;
+        private final String email;
+        private final String fullName;
+
+        /**
+         * Create a row
+         *
+         * @param lineNumber The line of the CSV file, used in failure reports
+         * @param username The username, or null if missing
+         * @param password The password, or null if missing
+         * @param email The email address, or null
+         * @param fullName The full name, or null
+         */
+        public Row(int lineNumber, String username, String password, String email, String fullName) {
+            this.lineNumber = lineNumber;
+            this.username = username;
+            this.password = password;
+            this.email = email;
+            this.fullName = fullName;
+        }
+
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public String getFullName() {
+            return fullName;
+        }
+    }
+
+    /**
+     * A row that could not be added, and why
+     */
+    public static class Failure {
+        private final Row row;
+        private final String reason;
+
+        public Failure(Row row, String reason) {
+            this.row = row;
+            this.reason = reason;
+        }
+
+        public Row getRow() {
+            return row;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + row.getLineNumber() + " (" + row.getUsername() + "): " + reason;
+        }
+    }
+
+    /**
+     * Outcome and timing of an import
+     */
+    public static class ImportResult {
+        private final int rowCount;
+        private final int addedCount;
+        private final List<Failure> failures;
+        private final long hashNanos;
+        private final long totalNanos;
+
+        public ImportResult(int rowCount, int addedCount, List<Failure> failures, long hashNanos, long totalNanos) {
+            this.rowCount = rowCount;
+            this.addedCount = addedCount;
+            this.failures = Collections.unmodifiableList(failures);
+            this.hashNanos = hashNanos;
+            this.totalNanos = totalNanos;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public int getAddedCount() {
+            return addedCount;
+        }
+
+        /**
+         * Get the rows that were not added
+         *
+         * @return The failures, in the order of the rows
+         */
+        public List<Failure> getFailures() {
+            return failures;
+        }
+
+        /**
+         * Get how long hashing the passwords took, the rest of the total was spent writing
+         *
+         * @return The hashing time in nanoseconds
+         */
+        public long getHashNanos() {
+            return hashNanos;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * Get the import throughput
+         *
+         * @return The accounts added per second
+         */
+        public double getUsersPerSecond() {
+            return totalNanos == 0 ? 0.0 : addedCount * 1_000_000_000.0 / totalNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d of %d users added (%d failed), hashing %.1f ms, total %.1f ms, %.0f users/s",
+                    addedCount, rowCount, failures.size(), hashNanos / 1_000_000.0, totalNanos / 1_000_000.0,
+                    getUsersPerSecond());
+        }
+    }
+}
@@ -2,13 +2,25 @@ package org.example.hci.controller;
 
 
 import org.example.hci.model.Design;
+import org.example.hci.model.DesignSummary;
 import org.example.hci.model.FurnitureItem;
 import org.example.hci.model.Room;
+import org.example.hci.storage.DesignCatalog;
+import org.example.hci.storage.DesignLoader;
+import org.example.hci.storage.DesignSaveQueue;
+import org.example.hci.storage.DesignStore;
 
 import java.awt.Color;
-import java.io.*;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Controller for managing designs
@@ -17,13 +29,18 @@ public class DesignController {
     private Design currentDesign;
     private Color currentFurnitureColor = new Color(165, 42, 42); // RGB values for brown
     private final String SAVE_DIRECTORY = "saved_designs/";
+    private final DesignStore designStore;
+    private final DesignCatalog designCatalog;
+    private final DesignLoader designLoader;
+    private final DesignSaveQueue saveQueue;
+    private volatile DesignLoader.LoadMetrics lastLoadMetrics;
 
     public DesignController() {
-        // Create save directory if it doesn't exist
-        File saveDir = new File(SAVE_DIRECTORY);
-        if (!saveDir.exists()) {
-            saveDir.mkdirs();
-        }
+        // The store creates the save directory if it doesn't exist
+        designStore = new DesignStore(Paths.get(SAVE_DIRECTORY));
+        designCatalog = new DesignCatalog(designStore);
+        designLoader = new DesignLoader();
+        saveQueue = new DesignSaveQueue(designStore);
     }
 
     /**
@@ -41,6 +58,7 @@ public class DesignController {
      * @param design The design to set as current
      */
     public void setCurrentDesign(Design design) {
+        releaseCurrentDesign(design);
         this.currentDesign = design;
     }
 
@@ -91,7 +109,7 @@ public class DesignController {
     }
 
     /**
-     * Save the current design to file
+     * Save the current design to file, waiting for the write to finish
      *
      * @param design The design to save
      * @return true if saved successfully, false otherwise
@@ -101,18 +119,67 @@ public class DesignController {
             return false;
         }
 
-        String filename = SAVE_DIRECTORY + design.getId() + ".ser";
-
-        try (ObjectOutputStream oos = new ObjectOutputStream(
-                new FileOutputStream(filename))) {
-            oos.writeObject(design);
+        try {
+            saveDesignAsync(design).join();
             return true;
-        } catch (IOException e) {
-            e.printStackTrace();
+        } catch (CancellationException e) {
+            // The design was deleted before it was written
+            return false;
+        } catch (CompletionException e) {
+            if (!(e.getCause() instanceof CancellationException)) {
+                e.getCause().printStackTrace();
+            }
             return false;
         }
     }
 
+    /**
+     * Queue a design to be saved in the background.
+     * Only a snapshot is taken on the calling thread; repeated saves of the same
+     * design are coalesced until the writer picks them up. A design without
+     * changes since it was last saved or loaded is not written at all.
+     *
+     * @param design The design to save
+     * @return A future completing with the saved design's catalog entry, or cancelled if the design
+     *         was deleted before the save finished
+     */
+    public CompletableFuture<DesignSummary> saveDesignAsync(Design design) {
+        if (!design.isDirty()) {
+            return CompletableFuture.completedFuture(DesignSummary.of(design));
+        }
+
+        long revision = design.getRevision();
+        long saveEpoch = design.getSaveEpoch();
+        return saveQueue.save(design).thenApply(saved -> {
+            if (!design.markSaved(revision, saveEpoch)) {
+                // Deleted while it was written, so it must not come back into the catalog
+                throw new CancellationException("Design " + design.getId() + " was deleted");
+            }
+            return designCatalog.update(saved);
+        });
+    }
+
+    /**
+     * Wait for queued saves to reach the disk, e.g. before the application exits
+     *
+     * @return true if every queued save finished in time, false otherwise
+     */
+    public boolean flushPendingSaves() {
+        return saveQueue.flush(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Flush queued saves and stop the background loader and writer, before the application exits
+     *
+     * @return true if every queued save finished in time, false otherwise
+     */
+    public boolean shutdown() {
+        boolean flushed = flushPendingSaves();
+        designLoader.close();
+        saveQueue.close();
+        return flushed;
+    }
+
     /**
      * Delete a design from storage
      *
@@ -124,46 +191,86 @@ public class DesignController {
             return false;
         }
 
-        String filename = SAVE_DIRECTORY + design.getId() + ".ser";
-        File file = new File(filename);
+        return deleteDesign(design.getId());
+    }
 
-        if (file.exists()) {
-            return file.delete();
+    /**
+     * Delete a design from storage by id
+     *
+     * @param designId The id of the design to delete
+     * @return true if deleted successfully, false otherwise
+     */
+    public boolean deleteDesign(String designId) {
+        if (currentDesign != null && currentDesign.getId().equals(designId)) {
+            // Saving it again has to write it from scratch, and saves still queued must not mark it saved
+            currentDesign.markUnsaved();
+        }
+        try {
+            // Runs after a save of the design that is being written, which would otherwise recreate the file
+            boolean deleted = saveQueue.delete(designId).join();
+            designCatalog.remove(designId);
+            return deleted;
+        } catch (CompletionException e) {
+            e.getCause().printStackTrace();
+            return false;
         }
-
-        return false;
     }
 
     /**
-     * Load all saved designs from storage
+     * Load all saved designs from storage.
+     * Designs still stored with Java serialization are migrated to the binary format.
      *
      * @return List of saved designs
      */
     public List<Design> getSavedDesigns() {
-        List<Design> designs = new ArrayList<>();
-        File saveDir = new File(SAVE_DIRECTORY);
-
-        if (!saveDir.exists()) {
-            return designs;
-        }
+        return designStore.loadAll();
+    }
 
-        File[] files = saveDir.listFiles((dir, name) -> name.endsWith(".ser"));
+    /**
+     * List saved designs from the catalog index without loading their furniture
+     *
+     * @return Summaries of the saved designs
+     */
+    public List<DesignSummary> getSavedDesignSummaries() {
+        return designCatalog.refresh();
+    }
 
-        if (files == null) {
-            return designs;
-        }
+    /**
+     * List saved designs in the background, publishing each one as soon as it is read.
+     * Callbacks run on loader threads; Swing callers must hand results to the EDT.
+     *
+     * @param onLoaded Called with each design summary
+     * @param onFailed Called for each design file that could not be read
+     * @return A future completing with time-to-first-entry and total load time
+     */
+    public CompletableFuture<DesignLoader.LoadMetrics> loadSavedDesignSummaries(
+            Consumer<DesignSummary> onLoaded, BiConsumer<Path, IOException> onFailed) {
+        return designCatalog.refreshAsync(designLoader, onLoaded, onFailed)
+                .whenComplete((metrics, error) -> {
+                    if (metrics != null) {
+                        lastLoadMetrics = metrics;
+                    }
+                });
+    }
 
-        for (File file : files) {
-            try (ObjectInputStream ois = new ObjectInputStream(
-                    new FileInputStream(file))) {
-                Design design = (Design) ois.readObject();
-                designs.add(design);
-            } catch (IOException | ClassNotFoundException e) {
-                e.printStackTrace();
-            }
-        }
+    /**
+     * Get the metrics of the most recent background load
+     *
+     * @return The metrics, or null if no load has finished yet
+     */
+    public DesignLoader.LoadMetrics getLastLoadMetrics() {
+        return lastLoadMetrics;
+    }
 
-        return designs;
+    /**
+     * Load a saved design in full
+     *
+     * @param designId The id of the design to load
+     * @return The loaded design
+     * @throws IOException if the design cannot be read
+     */
+    public Design loadDesign(String designId) throws IOException {
+        return designStore.load(designId);
     }
 
     /**
@@ -178,7 +285,19 @@ public class DesignController {
     public Design createNewDesign(String name, double width, double length, double height) {
         Room room = new Room(width, length, height);
         Design design = new Design(name, room);
+        releaseCurrentDesign(design);
         this.currentDesign = design;
         return design;
     }
+
+    /**
+     * Let the store drop its copy of the current design when another one is opened
+     *
+     * @param next The design about to become current
+     */
+    private void releaseCurrentDesign(Design next) {
+        if (currentDesign != null && (next == null || !currentDesign.getId().equals(next.getId()))) {
+            saveQueue.release(currentDesign.getId());
+        }
+    }
 }
\ No newline at end of file
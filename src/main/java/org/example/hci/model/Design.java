@@ -1,14 +1,25 @@
 package org.example.hci.model;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
- * Represents a furniture design with a room and furniture items
+ * Represents a furniture design with a room and furniture items.
+ *
+ * Every change to the design, its room or its items increments the design's revision
+ * and is reported to registered {@link DesignChangeListener}s. Like Swing components,
+ * a design is meant to be edited from a single thread.
  */
 public class Design implements Serializable {
+    private static final long serialVersionUID = 6789461145925778223L;
+
     private String id;
     private String name;
     private Room room;
@@ -16,6 +27,19 @@ public class Design implements Serializable {
     private long createdTimestamp;
     private long lastModifiedTimestamp;
 
+    // Change tracking, not persisted
+    private transient long revision;
+    // Set by the save thread while the EDT edits the design, updated under this design's lock
+    private transient volatile long savedRevision;
+    private transient long saveEpoch;
+    private transient List<DesignChangeListener> listeners;
+    private transient int batchDepth;
+    private transient Set<FurnitureItem> pendingChanged;
+    private transient Set<FurnitureItem> pendingAdded;
+    private transient Set<FurnitureItem> pendingRemoved;
+    private transient boolean pendingRoom;
+    private transient boolean pendingProperties;
+
     public Design(String name, Room room) {
         this.id = UUID.randomUUID().toString();
         this.name = name;
@@ -23,6 +47,31 @@ public class Design implements Serializable {
         this.furnitureItems = new ArrayList<>();
         this.createdTimestamp = System.currentTimeMillis();
         this.lastModifiedTimestamp = this.createdTimestamp;
+        room.attach(this);
+
+        // A new design has never been saved
+        this.savedRevision = -1;
+    }
+
+    /**
+     * Restore a previously stored design without generating a new id or timestamps
+     *
+     * @param id The stored design id
+     * @param name The design name
+     * @param room The room of the design
+     * @param furnitureItems The furniture items in drawing order
+     * @param createdTimestamp The stored creation time
+     * @param lastModifiedTimestamp The stored modification time
+     */
+    public Design(String id, String name, Room room, List<FurnitureItem> furnitureItems,
+                  long createdTimestamp, long lastModifiedTimestamp) {
+        this.id = id;
+        this.name = name;
+        this.room = room;
+        this.furnitureItems = new ArrayList<>(furnitureItems);
+        this.createdTimestamp = createdTimestamp;
+        this.lastModifiedTimestamp = lastModifiedTimestamp;
+        attachAll();
     }
 
     // Getters and setters
@@ -36,7 +85,8 @@ public class Design implements Serializable {
 
     public void setName(String name) {
         this.name = name;
-        updateLastModified();
+        pendingProperties = true;
+        changed();
     }
 
     public Room getRoom() {
@@ -44,8 +94,10 @@ public class Design implements Serializable {
     }
 
     public void setRoom(Room room) {
+        this.room.attach(null);
         this.room = room;
-        updateLastModified();
+        room.attach(this);
+        roomChanged();
     }
 
     public List<FurnitureItem> getFurnitureItems() {
@@ -54,12 +106,23 @@ public class Design implements Serializable {
 
     public void addFurnitureItem(FurnitureItem item) {
         furnitureItems.add(item);
-        updateLastModified();
+        item.attach(this);
+        pendingChanged().remove(item);
+        pendingAdded().add(item);
+        changed();
+        item.setRevision(revision);
     }
 
     public void removeFurnitureItem(FurnitureItem item) {
-        furnitureItems.remove(item);
-        updateLastModified();
+        if (!furnitureItems.remove(item)) {
+            return;
+        }
+        item.attach(null);
+        pendingChanged().remove(item);
+        if (!pendingAdded().remove(item)) {
+            pendingRemoved().add(item);
+        }
+        changed();
     }
 
     public long getCreatedTimestamp() {
@@ -70,8 +133,208 @@ public class Design implements Serializable {
         return lastModifiedTimestamp;
     }
 
-    private void updateLastModified() {
-        this.lastModifiedTimestamp = System.currentTimeMillis();
+    /**
+     * Create a deep copy of this design that keeps the same id
+     *
+     * @return An independent snapshot of the design
+     */
+    public Design copy() {
+        List<FurnitureItem> items = new ArrayList<>(furnitureItems.size());
+        for (FurnitureItem item : furnitureItems) {
+            items.add(item.copy());
+        }
+        return new Design(id, name, room.copy(), items, createdTimestamp, lastModifiedTimestamp);
+    }
+
+    /**
+     * Get the revision of this design, which increases with every change
+     *
+     * @return The current revision
+     */
+    public long getRevision() {
+        return revision;
+    }
+
+    /**
+     * Get the revision that was last saved or loaded
+     *
+     * @return The saved revision, or -1 if the design was never saved
+     */
+    public long getSavedRevision() {
+        return savedRevision;
+    }
+
+    /**
+     * Check whether the design changed since it was last saved or loaded
+     *
+     * @return true if there are unsaved changes
+     */
+    public boolean isDirty() {
+        return revision != savedRevision;
+    }
+
+    /**
+     * Get the save epoch, to be passed to {@link #markSaved(long, long)} when a save is queued
+     *
+     * @return The number of times the design was marked unsaved
+     */
+    public synchronized long getSaveEpoch() {
+        return saveEpoch;
+    }
+
+    /**
+     * Record that a revision of this design has been written.
+     * Changes made after that revision keep the design dirty. If the design was marked
+     * unsaved since the save was queued, e.g. because its file was deleted, nothing is recorded.
+     *
+     * @param revision The revision that was saved
+     * @param saveEpoch The save epoch when the save was queued
+     * @return true if the save was recorded, false if the design was marked unsaved meanwhile
+     */
+    public synchronized boolean markSaved(long revision, long saveEpoch) {
+        if (saveEpoch != this.saveEpoch) {
+            return false;
+        }
+        if (revision > savedRevision) {
+            savedRevision = revision;
+        }
+        return true;
+    }
+
+    /**
+     * Forget that the design was saved, e.g. after its file was deleted.
+     * Saves queued before this call no longer mark the design as saved.
+     */
+    public synchronized void markUnsaved() {
+        savedRevision = -1;
+        saveEpoch++;
+    }
+
+    /**
+     * Get the items changed or added since the design was last saved
+     *
+     * @return The dirty items in drawing order
+     */
+    public List<FurnitureItem> getDirtyItems() {
+        List<FurnitureItem> dirty = new ArrayList<>();
+        long saved = savedRevision;
+        for (FurnitureItem item : furnitureItems) {
+            if (item.getRevision() > saved) {
+                dirty.add(item);
+            }
+        }
+        return dirty;
+    }
+
+    public void addDesignChangeListener(DesignChangeListener listener) {
+        listeners().add(listener);
+    }
+
+    public void removeDesignChangeListener(DesignChangeListener listener) {
+        listeners().remove(listener);
+    }
+
+    /**
+     * Apply several edits and notify listeners once when they are all done
+     *
+     * @param edits The edits to apply
+     */
+    public void batch(Runnable edits) {
+        batchDepth++;
+        try {
+            edits.run();
+        } finally {
+            batchDepth--;
+            if (batchDepth == 0) {
+                fireDesignChanged();
+            }
+        }
+    }
+
+    /**
+     * Called by an item of this design after one of its properties changed
+     */
+    void itemChanged(FurnitureItem item) {
+        if (!pendingAdded().contains(item)) {
+            pendingChanged().add(item);
+        }
+        changed();
+        item.setRevision(revision);
+    }
+
+    /**
+     * Called by the room of this design after one of its properties changed
+     */
+    void roomChanged() {
+        pendingRoom = true;
+        changed();
+    }
+
+    private void changed() {
+        revision++;
+        lastModifiedTimestamp = System.currentTimeMillis();
+        if (batchDepth == 0) {
+            fireDesignChanged();
+        }
+    }
+
+    private void fireDesignChanged() {
+        if (pendingChanged().isEmpty() && pendingAdded().isEmpty() && pendingRemoved().isEmpty()
+                && !pendingRoom && !pendingProperties) {
+            return;
+        }
+
+        DesignChangeEvent event = new DesignChangeEvent(this, revision, pendingChanged(), pendingAdded(),
+                pendingRemoved(), pendingRoom, pendingProperties);
+        pendingChanged = null;
+        pendingAdded = null;
+        pendingRemoved = null;
+        pendingRoom = false;
+        pendingProperties = false;
+
+        for (DesignChangeListener listener : listeners()) {
+            listener.designChanged(event);
+        }
+    }
+
+    private List<DesignChangeListener> listeners() {
+        if (listeners == null) {
+            listeners = new CopyOnWriteArrayList<>();
+        }
+        return listeners;
+    }
+
+    private Set<FurnitureItem> pendingChanged() {
+        if (pendingChanged == null) {
+            pendingChanged = new LinkedHashSet<>();
+        }
+        return pendingChanged;
+    }
+
+    private Set<FurnitureItem> pendingAdded() {
+        if (pendingAdded == null) {
+            pendingAdded = new LinkedHashSet<>();
+        }
+        return pendingAdded;
+    }
+
+    private Set<FurnitureItem> pendingRemoved() {
+        if (pendingRemoved == null) {
+            pendingRemoved = new LinkedHashSet<>();
+        }
+        return pendingRemoved;
+    }
+
+    private void attachAll() {
+        room.attach(this);
+        for (FurnitureItem item : furnitureItems) {
+            item.attach(this);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        attachAll();
     }
 
     @Override
@@ -0,0 +1,92 @@
+package org.example.hci.model;
+
+import java.util.Collections;
+import java.util.EventObject;
+import java.util.Set;
+
+/**
+ * Describes the changes made to a design since its listeners were last notified.
+ * Changes made inside {@link Design#batch(Runnable)} are merged into a single event.
+ * An item removed and added again within a batch appears in both the removed and the
+ * added items, so listeners should apply removals before additions.
+ */
+public class DesignChangeEvent extends EventObject {
+    private final long revision;
+    private final Set<FurnitureItem> changedItems;
+    private final Set<FurnitureItem> addedItems;
+    private final Set<FurnitureItem> removedItems;
+    private final boolean roomChanged;
+    private final boolean propertiesChanged;
+
+    public DesignChangeEvent(Design design, long revision,
+                             Set<FurnitureItem> changedItems,
+                             Set<FurnitureItem> addedItems,
+                             Set<FurnitureItem> removedItems,
+                             boolean roomChanged, boolean propertiesChanged) {
+        super(design);
+        this.revision = revision;
+        this.changedItems = Collections.unmodifiableSet(changedItems);
+        this.addedItems = Collections.unmodifiableSet(addedItems);
+        this.removedItems = Collections.unmodifiableSet(removedItems);
+        this.roomChanged = roomChanged;
+        this.propertiesChanged = propertiesChanged;
+    }
+
+    public Design getDesign() {
+        return (Design) getSource();
+    }
+
+    /**
+     * Get the revision of the design after these changes
+     *
+     * @return The design revision
+     */
+    public long getRevision() {
+        return revision;
+    }
+
+    /**
+     * Get the items whose position, size, rotation or color changed.
+     * Items that were added or removed in the same batch are not included.
+     *
+     * @return The changed items
+     */
+    public Set<FurnitureItem> getChangedItems() {
+        return changedItems;
+    }
+
+    public Set<FurnitureItem> getAddedItems() {
+        return addedItems;
+    }
+
+    public Set<FurnitureItem> getRemovedItems() {
+        return removedItems;
+    }
+
+    /**
+     * Check whether the room dimensions or colors changed, or the room was replaced
+     *
+     * @return true if the room changed
+     */
+    public boolean isRoomChanged() {
+        return roomChanged;
+    }
+
+    /**
+     * Check whether properties of the design itself, such as its name, changed
+     *
+     * @return true if design properties changed
+     */
+    public boolean isPropertiesChanged() {
+        return propertiesChanged;
+    }
+
+    /**
+     * Check whether only existing items were edited, e.g. while dragging
+     *
+     * @return true if nothing but item properties changed
+     */
+    public boolean isItemsOnly() {
+        return addedItems.isEmpty() && removedItems.isEmpty() && !roomChanged && !propertiesChanged;
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.hci.model;
+
+import java.util.EventListener;
+
+/**
+ * Listener notified when a design or anything it contains changes
+ */
+public interface DesignChangeListener extends EventListener {
+
+    /**
+     * Called after one change, or after a batch of changes has finished
+     *
+     * @param event Everything that changed since the previous notification
+     */
+    void designChanged(DesignChangeEvent event);
+}
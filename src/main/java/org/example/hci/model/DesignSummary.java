@@ -0,0 +1,103 @@
+package org.example.hci.model;
+
+import java.awt.Color;
+
+/**
+ * Lightweight, immutable description of a saved design.
+ * Holds just enough to list a design without loading its furniture.
+ */
+public class DesignSummary {
+    private final String id;
+    private final String name;
+    private final long createdTimestamp;
+    private final long lastModifiedTimestamp;
+    private final double roomWidth;
+    private final double roomLength;
+    private final double roomHeight;
+    private final Color wallColor;
+    private final int itemCount;
+
+    public DesignSummary(String id, String name, long createdTimestamp, long lastModifiedTimestamp,
+                         double roomWidth, double roomLength, double roomHeight,
+                         Color wallColor, int itemCount) {
+        this.id = id;
+        this.name = name;
+        this.createdTimestamp = createdTimestamp;
+        this.lastModifiedTimestamp = lastModifiedTimestamp;
+        this.roomWidth = roomWidth;
+        this.roomLength = roomLength;
+        this.roomHeight = roomHeight;
+        this.wallColor = wallColor;
+        this.itemCount = itemCount;
+    }
+
+    /**
+     * Create a summary of a loaded design
+     *
+     * @param design The design to summarize
+     * @return The summary
+     */
+    public static DesignSummary of(Design design) {
+        Room room = design.getRoom();
+        return new DesignSummary(design.getId(), design.getName(),
+                design.getCreatedTimestamp(), design.getLastModifiedTimestamp(),
+                room.getWidth(), room.getLength(), room.getHeight(),
+                room.getWallColor(), design.getFurnitureItems().size());
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCreatedTimestamp() {
+        return createdTimestamp;
+    }
+
+    public long getLastModifiedTimestamp() {
+        return lastModifiedTimestamp;
+    }
+
+    public double getRoomWidth() {
+        return roomWidth;
+    }
+
+    public double getRoomLength() {
+        return roomLength;
+    }
+
+    public double getRoomHeight() {
+        return roomHeight;
+    }
+
+    public Color getWallColor() {
+        return wallColor;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+
+        DesignSummary summary = (DesignSummary) obj;
+        return id.equals(summary.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
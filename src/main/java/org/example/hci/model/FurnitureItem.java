@@ -2,12 +2,16 @@ package org.example.hci.model;
 
 import java.awt.Color;
 import java.io.Serializable;
+import java.util.Objects;
 import java.util.UUID;
 
 /**
- * Represents a furniture item in a design
+ * Represents a furniture item in a design.
+ * Changes are reported to the design the item belongs to.
  */
 public class FurnitureItem implements Serializable {
+    private static final long serialVersionUID = 6732411237973144368L;
+
     public enum FurnitureType {
         CHAIR, TABLE, SOFA, BED, CABINET
     }
@@ -22,6 +26,9 @@ public class FurnitureItem implements Serializable {
     private Color color;
     private double rotationAngle; // in degrees
 
+    private transient Design owner;
+    private transient long revision;
+
     public FurnitureItem(FurnitureType type, double x, double y) {
         this.id = UUID.randomUUID().toString();
         this.type = type;
@@ -64,6 +71,33 @@ public class FurnitureItem implements Serializable {
         }
     }
 
+    /**
+     * Restore a previously stored furniture item with its original id
+     *
+     * @param id The stored item id
+     * @param type The furniture type
+     * @param x The x position in meters
+     * @param y The y position in meters
+     * @param width The width in meters
+     * @param depth The depth in meters
+     * @param height The height in meters
+     * @param color The item color
+     * @param rotationAngle The rotation in degrees
+     */
+    public FurnitureItem(String id, FurnitureType type, double x, double y,
+                         double width, double depth, double height,
+                         Color color, double rotationAngle) {
+        this.id = id;
+        this.type = type;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.depth = depth;
+        this.height = height;
+        this.color = color;
+        this.rotationAngle = rotationAngle;
+    }
+
     // Getters and setters
     public String getId() {
         return id;
@@ -78,7 +112,10 @@ public class FurnitureItem implements Serializable {
     }
 
     public void setX(double x) {
-        this.x = x;
+        if (Double.compare(this.x, x) != 0) {
+            this.x = x;
+            changed();
+        }
     }
 
     public double getY() {
@@ -86,7 +123,10 @@ public class FurnitureItem implements Serializable {
     }
 
     public void setY(double y) {
-        this.y = y;
+        if (Double.compare(this.y, y) != 0) {
+            this.y = y;
+            changed();
+        }
     }
 
     public double getWidth() {
@@ -94,7 +134,10 @@ public class FurnitureItem implements Serializable {
     }
 
     public void setWidth(double width) {
-        this.width = width;
+        if (Double.compare(this.width, width) != 0) {
+            this.width = width;
+            changed();
+        }
     }
 
     public double getDepth() {
@@ -102,7 +145,10 @@ public class FurnitureItem implements Serializable {
     }
 
     public void setDepth(double depth) {
-        this.depth = depth;
+        if (Double.compare(this.depth, depth) != 0) {
+            this.depth = depth;
+            changed();
+        }
     }
 
     public double getHeight() {
@@ -110,7 +156,10 @@ public class FurnitureItem implements Serializable {
     }
 
     public void setHeight(double height) {
-        this.height = height;
+        if (Double.compare(this.height, height) != 0) {
+            this.height = height;
+            changed();
+        }
     }
 
     public Color getColor() {
@@ -118,7 +167,10 @@ public class FurnitureItem implements Serializable {
     }
 
     public void setColor(Color color) {
-        this.color = color;
+        if (!Objects.equals(this.color, color)) {
+            this.color = color;
+            changed();
+        }
     }
 
     public double getRotationAngle() {
@@ -126,7 +178,51 @@ public class FurnitureItem implements Serializable {
     }
 
     public void setRotationAngle(double rotationAngle) {
-        this.rotationAngle = rotationAngle;
+        if (Double.compare(this.rotationAngle, rotationAngle) != 0) {
+            this.rotationAngle = rotationAngle;
+            changed();
+        }
+    }
+
+    /**
+     * Get the design revision at which this item last changed
+     *
+     * @return The revision, 0 if the item has not changed since it was created or loaded
+     */
+    public long getRevision() {
+        return revision;
+    }
+
+    /**
+     * Check whether the item changed since its design was last saved
+     *
+     * @return true if the item has unsaved changes or is not part of a design
+     */
+    public boolean isDirty() {
+        return owner == null || revision > owner.getSavedRevision();
+    }
+
+    void attach(Design owner) {
+        this.owner = owner;
+    }
+
+    void setRevision(long revision) {
+        this.revision = revision;
+    }
+
+    private void changed() {
+        if (owner != null) {
+            owner.itemChanged(this);
+        }
+    }
+
+    /**
+     * Create a copy of this item that keeps the same id
+     *
+     * @return An independent copy of the item
+     */
+    public FurnitureItem copy() {
+        return new FurnitureItem(id, type, x, y, width, depth, height, color, rotationAngle);
     }
 
     @Override
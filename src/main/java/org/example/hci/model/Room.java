@@ -2,17 +2,23 @@ package org.example.hci.model;
 
 import java.awt.Color;
 import java.io.Serializable;
+import java.util.Objects;
 
 /**
- * Represents a room with dimensions and colors
+ * Represents a room with dimensions and colors.
+ * Changes are reported to the design the room belongs to.
  */
 public class Room implements Serializable {
+    private static final long serialVersionUID = 791332005843828206L;
+
     private double width;
     private double length;
     private double height;
     private Color wallColor;
     private Color floorColor;
 
+    private transient Design owner;
+
     public Room(double width, double length, double height) {
         this.width = width;
         this.length = length;
@@ -21,13 +27,28 @@ public class Room implements Serializable {
         this.floorColor = new Color(210, 180, 140); // Light wood color
     }
 
+    /**
+     * Create a copy of this room
+     *
+     * @return An independent copy with the same dimensions and colors
+     */
+    public Room copy() {
+        Room copy = new Room(width, length, height);
+        copy.wallColor = wallColor;
+        copy.floorColor = floorColor;
+        return copy;
+    }
+
     // Getters and setters
     public double getWidth() {
         return width;
     }
 
     public void setWidth(double width) {
-        this.width = width;
+        if (Double.compare(this.width, width) != 0) {
+            this.width = width;
+            changed();
+        }
     }
 
     public double getLength() {
@@ -35,7 +56,10 @@ public class Room implements Serializable {
     }
 
     public void setLength(double length) {
-        this.length = length;
+        if (Double.compare(this.length, length) != 0) {
+            this.length = length;
+            changed();
+        }
     }
 
     public double getHeight() {
@@ -43,7 +67,10 @@ public class Room implements Serializable {
     }
 
     public void setHeight(double height) {
-        this.height = height;
+        if (Double.compare(this.height, height) != 0) {
+            this.height = height;
+            changed();
+        }
     }
 
     public Color getWallColor() {
@@ -51,7 +78,10 @@ public class Room implements Serializable {
     }
 
     public void setWallColor(Color wallColor) {
-        this.wallColor = wallColor;
+        if (!Objects.equals(this.wallColor, wallColor)) {
+            this.wallColor = wallColor;
+            changed();
+        }
     }
 
     public Color getFloorColor() {
@@ -59,6 +89,19 @@ public class Room implements Serializable {
     }
 
     public void setFloorColor(Color floorColor) {
-        this.floorColor = floorColor;
+        if (!Objects.equals(this.floorColor, floorColor)) {
+            this.floorColor = floorColor;
+            changed();
+        }
+    }
+
+    void attach(Design owner) {
+        this.owner = owner;
+    }
+
+    private void changed() {
+        if (owner != null) {
+            owner.roomChanged();
+        }
     }
-}
\ No newline at end of file
+}
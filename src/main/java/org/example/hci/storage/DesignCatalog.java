@@ -0,0 +1,289 @@
+package org.example.hci.storage;
+
+import org.example.hci.model.Design;
+import org.example.hci.model.DesignSummary;
+
+import java.awt.Color;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Persistent index of design summaries kept next to the design files.
+ *
+ * Each entry remembers the size and modification time of the file it was read from
+ * (including its edit journal), so a refresh only re-reads files that changed since the
+ * index was last written. Refreshing can run in the background and publish entries
+ * as they become available.
+ */
+public class DesignCatalog {
+    public static final String INDEX_FILE = "catalog.idx";
+
+    private static final int INDEX_MAGIC = 0x48434958; // "HCIX"
+    private static final int INDEX_VERSION = 1;
+
+    private final DesignStore store;
+    private final Path indexFile;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private boolean loaded = false;
+
+    public DesignCatalog(DesignStore store) {
+        this.store = store;
+        this.indexFile = store.getDirectory().resolve(INDEX_FILE);
+    }
+
+    /**
+     * Bring the catalog in line with the design files on disk and persist it if anything changed
+     *
+     * @return The summaries of all stored designs
+     */
+    public List<DesignSummary> refresh() {
+        DesignLoader loader = new DesignLoader(Runnable::run, 1);
+        refreshAsync(loader, summary -> { }, DesignCatalog::reportFailure).join();
+        return getSummaries();
+    }
+
+    /**
+     * Refresh the catalog in the background, reading changed design headers in parallel.
+     * Each summary is published as soon as it is available.
+     *
+     * @param loader The loader to read files with
+     * @param onEntry Called with each summary, from a loader thread
+     * @param onFailed Called for each file that could not be indexed, from a loader thread
+     * @return A future completing with load metrics once the catalog is up to date
+     */
+    public CompletableFuture<DesignLoader.LoadMetrics> refreshAsync(DesignLoader loader,
+                                                                    Consumer<DesignSummary> onEntry,
+                                                                    BiConsumer<Path, IOException> onFailed) {
+        return CompletableFuture.supplyAsync(() -> {
+            synchronized (this) {
+                if (!loaded) {
+                    readIndex();
+                    loaded = true;
+                }
+            }
+            store.migrateLegacyFiles();
+            return store.listDesignFiles();
+        }, loader.getExecutor()).thenCompose(files -> {
+            Map<String, Entry> previous;
+            synchronized (this) {
+                previous = new HashMap<>(entries);
+            }
+            Map<String, Entry> current = new ConcurrentHashMap<>();
+            AtomicBoolean changed = new AtomicBoolean(false);
+
+            return loader.load(files, file -> indexEntry(file, previous, changed), entry -> {
+                current.put(entry.fileName, entry);
+                onEntry.accept(entry.summary);
+            }, onFailed).thenApply(metrics -> {
+                synchronized (this) {
+                    boolean removed = !current.keySet().containsAll(previous.keySet());
+                    Map<String, Entry> merged = new LinkedHashMap<>();
+                    for (Path file : files) {
+                        String fileName = file.getFileName().toString();
+                        Entry entry = current.get(fileName);
+                        // Saves and deletes made while refreshing win over what was read from disk
+                        if (entries.get(fileName) != previous.get(fileName)) {
+                            entry = entries.get(fileName);
+                        }
+                        if (entry != null) {
+                            merged.put(fileName, entry);
+                        }
+                    }
+                    for (Entry entry : entries.values()) {
+                        if (!previous.containsKey(entry.fileName)) {
+                            merged.putIfAbsent(entry.fileName, entry);
+                        }
+                    }
+                    entries.clear();
+                    entries.putAll(merged);
+                    if (changed.get() || removed) {
+                        writeIndex();
+                    }
+                }
+                return metrics;
+            });
+        });
+    }
+
+    /**
+     * Get the summaries currently in the catalog
+     *
+     * @return The design summaries
+     */
+    public synchronized List<DesignSummary> getSummaries() {
+        List<DesignSummary> summaries = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            summaries.add(entry.summary);
+        }
+        return summaries;
+    }
+
+    /**
+     * Record a design that was just written to the store
+     *
+     * @param design The saved design
+     * @return The summary now in the catalog
+     */
+    public synchronized DesignSummary update(Design design) {
+        DesignSummary summary = DesignSummary.of(design);
+        Path file = store.pathFor(design.getId());
+        try {
+            long[] fileState = fileState(file);
+            String fileName = file.getFileName().toString();
+            entries.put(fileName, new Entry(fileName, fileState[0], fileState[1], summary));
+            writeIndex();
+        } catch (IOException e) {
+            System.err.println("Could not index design " + design.getId() + ": " + e.getMessage());
+        }
+        return summary;
+    }
+
+    /**
+     * Remove a design from the catalog
+     *
+     * @param designId The id of the deleted design
+     */
+    public synchronized void remove(String designId) {
+        if (entries.remove(store.pathFor(designId).getFileName().toString()) != null) {
+            writeIndex();
+        }
+    }
+
+    /**
+     * Reuse the previous entry for a file if it is unchanged, otherwise read its header
+     */
+    private Entry indexEntry(Path file, Map<String, Entry> previous, AtomicBoolean changed) throws IOException {
+        String fileName = file.getFileName().toString();
+        long[] fileState = fileState(file);
+        long size = fileState[0];
+        long modified = fileState[1];
+
+        Entry entry = previous.get(fileName);
+        if (entry != null && entry.fileSize == size && entry.fileModified == modified) {
+            return entry;
+        }
+        changed.set(true);
+        return new Entry(fileName, size, modified, readSummary(file));
+    }
+
+    /**
+     * Combined size and latest modification time of a design file and its journal
+     */
+    private long[] fileState(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        try {
+            BasicFileAttributes journal = Files.readAttributes(store.journalPathFor(file), BasicFileAttributes.class);
+            size += journal.size();
+            modified = Math.max(modified, journal.lastModifiedTime().toMillis());
+        } catch (NoSuchFileException e) {
+            // No edits since the last snapshot
+        }
+        return new long[] {size, modified};
+    }
+
+    private static void reportFailure(Path file, IOException e) {
+        System.err.println("Could not index design " + file.getFileName() + ": " + e.getMessage());
+    }
+
+    private DesignSummary readSummary(Path file) throws IOException {
+        if (Files.exists(store.journalPathFor(file))) {
+            // Edits may change anything in the summary, so the journal has to be replayed
+            return DesignSummary.of(store.read(file));
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return DesignCodec.readSummary(channel);
+        }
+    }
+
+    private void readIndex() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                System.err.println("Ignoring unrecognized design catalog, it will be rebuilt");
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String fileName = in.readUTF();
+                long fileSize = in.readLong();
+                long fileModified = in.readLong();
+                DesignSummary summary = new DesignSummary(
+                        in.readUTF(), in.readUTF(), in.readLong(), in.readLong(),
+                        in.readDouble(), in.readDouble(), in.readDouble(),
+                        new Color(in.readInt(), true), in.readInt());
+                entries.put(fileName, new Entry(fileName, fileSize, fileModified, summary));
+            }
+        } catch (NoSuchFileException e) {
+            // First run, the catalog will be built from the design files
+        } catch (IOException e) {
+            System.err.println("Could not read design catalog, it will be rebuilt: " + e.getMessage());
+            entries.clear();
+        }
+    }
+
+    private void writeIndex() {
+        Path tempFile = indexFile.resolveSibling(INDEX_FILE + DesignStore.TEMP_SUFFIX);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(INDEX_MAGIC);
+                out.writeInt(INDEX_VERSION);
+                out.writeInt(entries.size());
+                for (Entry entry : entries.values()) {
+                    DesignSummary summary = entry.summary;
+                    out.writeUTF(entry.fileName);
+                    out.writeLong(entry.fileSize);
+                    out.writeLong(entry.fileModified);
+                    out.writeUTF(summary.getId());
+                    out.writeUTF(summary.getName() == null ? "" : summary.getName());
+                    out.writeLong(summary.getCreatedTimestamp());
+                    out.writeLong(summary.getLastModifiedTimestamp());
+                    out.writeDouble(summary.getRoomWidth());
+                    out.writeDouble(summary.getRoomLength());
+                    out.writeDouble(summary.getRoomHeight());
+                    out.writeInt(DesignCodec.packColor(summary.getWallColor()));
+                    out.writeInt(summary.getItemCount());
+                }
+            }
+            DesignStore.replace(tempFile, indexFile);
+        } catch (IOException e) {
+            System.err.println("Could not write design catalog: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Catalog entry tying a summary to the file state it was read from
+     */
+    private static class Entry {
+        private final String fileName;
+        private final long fileSize;
+        private final long fileModified;
+        private final DesignSummary summary;
+
+        Entry(String fileName, long fileSize, long fileModified, DesignSummary summary) {
+            this.fileName = fileName;
+            this.fileSize = fileSize;
+            this.fileModified = fileModified;
+            this.summary = summary;
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package org.example.hci.storage;
+
+import org.example.hci.model.Design;
+import org.example.hci.model.DesignSummary;
+import org.example.hci.model.FurnitureItem;
+import org.example.hci.model.Room;
+
+import java.awt.Color;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Compact, versioned binary format for designs
+ *
+ * Layout (all values big-endian):
+ * <pre>
+ * header   magic:int  version:short  flags:short  payloadLength:int  crc32:int
+ * payload  stringCount:int  (length:int utf8Bytes)*
+ *          designId:ref  name:ref  created:long  modified:long
+ *          roomWidth:double  roomLength:double  roomHeight:double  wallRgba:int  floorRgba:int
+ *          itemCount:int  item*
+ * item     idKind:byte  idHigh:long  idLow:long  type:byte
+ *          x:double  y:double  width:double  depth:double  height:double  rotation:double  rgba:int
+ * </pre>
+ * Every item record has the same width, so a reader can seek to any item directly.
+ * Item ids that are UUIDs are stored as two longs, anything else goes to the string table.
+ */
+public final class DesignCodec {
+    public static final int MAGIC = 0x48434431; // "HCD1"
+    public static final short VERSION = 1;
+    public static final String FILE_EXTENSION = ".hcd";
+
+    static final int HEADER_SIZE = 16;
+    static final int CRC_OFFSET = 12;
+    static final int DESIGN_RECORD_SIZE = 4 + 4 + 8 + 8 + 8 * 3 + 4 + 4 + 4;
+    static final int ITEM_RECORD_SIZE = 1 + 8 + 8 + 1 + 8 * 6 + 4;
+
+    private static final byte ID_UUID = 0;
+    private static final byte ID_STRING = 1;
+
+    private static final FurnitureItem.FurnitureType[] TYPES = FurnitureItem.FurnitureType.values();
+
+    private DesignCodec() {
+    }
+
+    /**
+     * Encode a design into a buffer holding header and payload
+     *
+     * @param design The design to encode
+     * @return A buffer positioned at zero, ready to be written
+     */
+    public static ByteBuffer encode(Design design) {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        int designIdRef = intern(strings, design.getId());
+        int nameRef = intern(strings, design.getName() == null ? "" : design.getName());
+
+        List<FurnitureItem> items = design.getFurnitureItems();
+        for (FurnitureItem item : items) {
+            if (parseUuid(item.getId()) == null) {
+                intern(strings, item.getId());
+            }
+        }
+
+        List<byte[]> encodedStrings = new ArrayList<>(strings.size());
+        int stringTableSize = 4;
+        for (String s : strings.keySet()) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            encodedStrings.add(bytes);
+            stringTableSize += 4 + bytes.length;
+        }
+
+        int payloadLength = stringTableSize + DESIGN_RECORD_SIZE + items.size() * ITEM_RECORD_SIZE;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payloadLength).order(ByteOrder.BIG_ENDIAN);
+        buffer.position(HEADER_SIZE);
+
+        // String table
+        buffer.putInt(encodedStrings.size());
+        for (byte[] bytes : encodedStrings) {
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+
+        // Design and room
+        Room room = design.getRoom();
+        buffer.putInt(designIdRef);
+        buffer.putInt(nameRef);
+        buffer.putLong(design.getCreatedTimestamp());
+        buffer.putLong(design.getLastModifiedTimestamp());
+        buffer.putDouble(room.getWidth());
+        buffer.putDouble(room.getLength());
+        buffer.putDouble(room.getHeight());
+        buffer.putInt(packColor(room.getWallColor()));
+        buffer.putInt(packColor(room.getFloorColor()));
+
+        // Furniture items, fixed width
+        buffer.putInt(items.size());
+        for (FurnitureItem item : items) {
+            UUID uuid = parseUuid(item.getId());
+            if (uuid != null) {
+                buffer.put(ID_UUID);
+                buffer.putLong(uuid.getMostSignificantBits());
+                buffer.putLong(uuid.getLeastSignificantBits());
+            } else {
+                buffer.put(ID_STRING);
+                buffer.putLong(strings.get(item.getId()));
+                buffer.putLong(0L);
+            }
+            buffer.put((byte) item.getType().ordinal());
+            buffer.putDouble(item.getX());
+            buffer.putDouble(item.getY());
+            buffer.putDouble(item.getWidth());
+            buffer.putDouble(item.getDepth());
+            buffer.putDouble(item.getHeight());
+            buffer.putDouble(item.getRotationAngle());
+            buffer.putInt(packColor(item.getColor()));
+        }
+
+        // Header last, once the checksum is known
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_SIZE, payloadLength);
+        buffer.putInt(0, MAGIC);
+        buffer.putShort(4, VERSION);
+        buffer.putShort(6, (short) 0);
+        buffer.putInt(8, payloadLength);
+        buffer.putInt(12, (int) crc.getValue());
+
+        buffer.position(0);
+        return buffer;
+    }
+
+    /**
+     * Decode a design from a buffer holding header and payload
+     *
+     * @param buffer The buffer, positioned at the start of the header
+     * @return The decoded design
+     * @throws DesignFormatException if the data is not a valid design
+     */
+    public static Design decode(ByteBuffer buffer) throws DesignFormatException {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        int payloadLength = readHeader(buffer);
+        int crcValue = buffer.getInt(buffer.position() - 4);
+        if (buffer.remaining() < payloadLength) {
+            throw new DesignFormatException("Truncated design payload");
+        }
+        verifyChecksum(buffer, payloadLength, crcValue);
+
+        try {
+            String[] strings = readStringTable(buffer);
+
+            String id = strings[buffer.getInt()];
+            String name = strings[buffer.getInt()];
+            long created = buffer.getLong();
+            long modified = buffer.getLong();
+
+            Room room = new Room(buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+            room.setWallColor(unpackColor(buffer.getInt()));
+            room.setFloorColor(unpackColor(buffer.getInt()));
+
+            int itemCount = buffer.getInt();
+            if (itemCount < 0 || (long) itemCount * ITEM_RECORD_SIZE > buffer.remaining()) {
+                throw new DesignFormatException("Invalid item count: " + itemCount);
+            }
+
+            List<FurnitureItem> items = new ArrayList<>(itemCount);
+            for (int i = 0; i < itemCount; i++) {
+                byte idKind = buffer.get();
+                long high = buffer.getLong();
+                long low = buffer.getLong();
+                String itemId = idKind == ID_UUID ? new UUID(high, low).toString() : strings[(int) high];
+
+                int typeOrdinal = buffer.get();
+                if (typeOrdinal < 0 || typeOrdinal >= TYPES.length) {
+                    throw new DesignFormatException("Unknown furniture type: " + typeOrdinal);
+                }
+
+                double x = buffer.getDouble();
+                double y = buffer.getDouble();
+                double width = buffer.getDouble();
+                double depth = buffer.getDouble();
+                double height = buffer.getDouble();
+                double rotation = buffer.getDouble();
+                Color color = unpackColor(buffer.getInt());
+
+                items.add(new FurnitureItem(itemId, TYPES[typeOrdinal], x, y, width, depth, height, color, rotation));
+            }
+
+            return new Design(id, name, room, items, created, modified);
+        } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new DesignFormatException("Corrupt design payload", e);
+        }
+    }
+
+    /**
+     * Write a design to a channel
+     *
+     * @param design The design to write
+     * @param channel The destination channel
+     * @throws IOException if writing fails
+     */
+    public static void write(Design design, WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = encode(design);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Read a design from a channel
+     *
+     * @param channel The source channel
+     * @return The decoded design
+     * @throws IOException if reading fails or the data is not a valid design
+     */
+    public static Design read(ReadableByteChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header);
+        header.flip();
+        int payloadLength = readHeader(header);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payloadLength);
+        header.rewind();
+        buffer.put(header);
+        readFully(channel, buffer);
+        buffer.flip();
+        return decode(buffer);
+    }
+
+    /**
+     * Read only the design and room record of a design file, skipping the furniture items.
+     * The checksum is not verified since the payload is not read in full.
+     *
+     * @param channel The file channel, positioned at the start of the header
+     * @return A summary of the stored design
+     * @throws IOException if reading fails or the header is invalid
+     */
+    public static DesignSummary readSummary(SeekableByteChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header);
+        header.flip();
+        readHeader(header);
+
+        // Design id and name are always the first strings, the rest can be skipped.
+        // Equal strings are stored once, so a design named like its id has a single string
+        ByteBuffer word = ByteBuffer.allocate(4);
+        readFully(channel, word);
+        int count = word.flip().getInt();
+        if (count < 1) {
+            throw new DesignFormatException("Invalid string table size: " + count);
+        }
+        String[] strings = new String[Math.min(count, 2)];
+        for (int i = 0; i < count; i++) {
+            readFully(channel, word.clear());
+            int length = word.flip().getInt();
+            if (length < 0) {
+                throw new DesignFormatException("Invalid string length: " + length);
+            }
+            if (i < strings.length) {
+                ByteBuffer bytes = ByteBuffer.allocate(length);
+                readFully(channel, bytes);
+                strings[i] = new String(bytes.array(), StandardCharsets.UTF_8);
+            } else {
+                channel.position(channel.position() + length);
+            }
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(DESIGN_RECORD_SIZE);
+        readFully(channel, record);
+        record.flip();
+        String id = summaryString(strings, record.getInt());
+        String name = summaryString(strings, record.getInt());
+        long created = record.getLong();
+        long modified = record.getLong();
+        double width = record.getDouble();
+        double length = record.getDouble();
+        double height = record.getDouble();
+        Color wallColor = unpackColor(record.getInt());
+        record.getInt(); // floor color
+        int itemCount = record.getInt();
+
+        return new DesignSummary(id, name, created, modified, width, length, height, wallColor, itemCount);
+    }
+
+    private static String summaryString(String[] strings, int index) throws DesignFormatException {
+        if (index < 0 || index >= strings.length) {
+            throw new DesignFormatException("Invalid string reference: " + index);
+        }
+        return strings[index];
+    }
+
+    /**
+     * Validate the header at the buffer's position and advance past it
+     *
+     * @return The payload length announced by the header
+     */
+    static int readHeader(ByteBuffer buffer) throws DesignFormatException {
+        if (buffer.remaining() < HEADER_SIZE) {
+            throw new DesignFormatException("Truncated design header");
+        }
+        int magic = buffer.getInt();
+        if (magic != MAGIC) {
+            throw new DesignFormatException("Not a design file (bad magic)");
+        }
+        short version = buffer.getShort();
+        if (version > VERSION) {
+            throw new DesignFormatException("Unsupported design format version: " + version);
+        }
+        buffer.getShort(); // flags, reserved
+        int payloadLength = buffer.getInt();
+        if (payloadLength < 0) {
+            throw new DesignFormatException("Invalid payload length: " + payloadLength);
+        }
+        buffer.getInt(); // checksum, verified against the payload
+        return payloadLength;
+    }
+
+    static String[] readStringTable(ByteBuffer buffer) throws DesignFormatException {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / 4) {
+            throw new DesignFormatException("Invalid string table size: " + count);
+        }
+        String[] strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new DesignFormatException("Invalid string length: " + length);
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    private static void verifyChecksum(ByteBuffer buffer, int payloadLength, int expected)
+            throws DesignFormatException {
+        CRC32 crc = new CRC32();
+        ByteBuffer payload = buffer.duplicate();
+        payload.limit(payload.position() + payloadLength);
+        crc.update(payload);
+        if ((int) crc.getValue() != expected) {
+            throw new DesignFormatException("Design checksum mismatch");
+        }
+    }
+
+    private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Unexpected end of design file");
+            }
+        }
+    }
+
+    private static int intern(Map<String, Integer> strings, String value) {
+        return strings.computeIfAbsent(value, key -> strings.size());
+    }
+
+    static UUID parseUuid(String id) {
+        if (id == null || id.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            // Only accept the canonical form so the id round-trips exactly
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static int packColor(Color color) {
+        return color == null ? 0 : color.getRGB();
+    }
+
+    static Color unpackColor(int argb) {
+        return new Color(argb, true);
+    }
+}
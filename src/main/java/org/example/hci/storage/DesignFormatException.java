@@ -0,0 +1,16 @@
+package org.example.hci.storage;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a stored design file is truncated, corrupt or of an unknown format
+ */
+public class DesignFormatException extends IOException {
+    public DesignFormatException(String message) {
+        super(message);
+    }
+
+    public DesignFormatException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
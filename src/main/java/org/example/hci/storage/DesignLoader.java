@@ -0,0 +1,180 @@
+package org.example.hci.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Reads design files in parallel and hands each result over as soon as it is decoded.
+ *
+ * Files are read on virtual threads by default; the number of files open at the
+ * same time is bounded so a large save directory does not exhaust file handles.
+ * A file that fails to load is reported to the caller and does not stop the others.
+ */
+public class DesignLoader implements AutoCloseable {
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final Semaphore permits;
+
+    /**
+     * Reads one file into a value
+     *
+     * @param <T> The type produced from the file
+     */
+    @FunctionalInterface
+    public interface FileReader<T> {
+        T read(Path file) throws IOException;
+    }
+
+    public DesignLoader() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * Create a loader running on virtual threads
+     *
+     * @param parallelism The maximum number of files read at the same time
+     */
+    public DesignLoader(int parallelism) {
+        this.ownedExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        this.executor = ownedExecutor;
+        this.permits = new Semaphore(Math.max(1, parallelism));
+    }
+
+    /**
+     * Create a loader running on a caller-supplied executor
+     *
+     * @param executor The executor to read files on
+     * @param parallelism The maximum number of files read at the same time
+     */
+    public DesignLoader(Executor executor, int parallelism) {
+        this.ownedExecutor = null;
+        this.executor = executor;
+        this.permits = new Semaphore(Math.max(1, parallelism));
+    }
+
+    /**
+     * Get the executor used for loading
+     *
+     * @return The executor
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Read files in parallel, publishing every result as soon as it is available
+     *
+     * @param files The files to read
+     * @param reader Reads a single file
+     * @param onLoaded Called with each decoded value, from a loader thread
+     * @param onFailed Called for each file that could not be read, from a loader thread
+     * @param <T> The type produced from each file
+     * @return A future completing with timing metrics once every file has been handled
+     */
+    public <T> CompletableFuture<LoadMetrics> load(List<Path> files, FileReader<T> reader,
+                                                   Consumer<? super T> onLoaded,
+                                                   BiConsumer<Path, IOException> onFailed) {
+        long start = System.nanoTime();
+        AtomicLong timeToFirst = new AtomicLong(-1);
+        AtomicInteger loaded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[files.size()];
+        for (int i = 0; i < tasks.length; i++) {
+            Path file = files.get(i);
+            tasks[i] = CompletableFuture.runAsync(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    T value = reader.read(file);
+                    timeToFirst.compareAndSet(-1, System.nanoTime() - start);
+                    loaded.incrementAndGet();
+                    onLoaded.accept(value);
+                } catch (IOException e) {
+                    failed.incrementAndGet();
+                    onFailed.accept(file, e);
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                    onFailed.accept(file, new DesignFormatException("Could not decode " + file.getFileName(), e));
+                } finally {
+                    permits.release();
+                }
+            }, executor);
+        }
+
+        return CompletableFuture.allOf(tasks).thenApply(v -> new LoadMetrics(
+                files.size(), loaded.get(), failed.get(), timeToFirst.get(), System.nanoTime() - start));
+    }
+
+    /**
+     * Shut down the loader's own executor, if it created one
+     */
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Timing and outcome of a load run
+     */
+    public static class LoadMetrics {
+        private final int fileCount;
+        private final int loadedCount;
+        private final int failedCount;
+        private final long timeToFirstNanos;
+        private final long totalNanos;
+
+        public LoadMetrics(int fileCount, int loadedCount, int failedCount,
+                           long timeToFirstNanos, long totalNanos) {
+            this.fileCount = fileCount;
+            this.loadedCount = loadedCount;
+            this.failedCount = failedCount;
+            this.timeToFirstNanos = timeToFirstNanos;
+            this.totalNanos = totalNanos;
+        }
+
+        public int getFileCount() {
+            return fileCount;
+        }
+
+        public int getLoadedCount() {
+            return loadedCount;
+        }
+
+        public int getFailedCount() {
+            return failedCount;
+        }
+
+        /**
+         * Get the time until the first file was decoded
+         *
+         * @return Nanoseconds, or -1 if nothing was loaded
+         */
+        public long getTimeToFirstNanos() {
+            return timeToFirstNanos;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d/%d designs loaded (%d failed), first after %.1f ms, total %.1f ms",
+                    loadedCount, fileCount, failedCount,
+                    timeToFirstNanos < 0 ? 0.0 : timeToFirstNanos / 1_000_000.0,
+                    totalNanos / 1_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package org.example.hci.storage;
+
+import org.example.hci.model.Design;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind queue that saves designs on a background writer thread.
+ *
+ * The caller only pays for a snapshot of the design; encoding and file I/O happen
+ * on the writer. Saves of the same design that arrive before the writer gets to it
+ * are coalesced, so only the latest snapshot is written and all callers share one future.
+ * Once a design's edit journal grows too long, it is compacted on the writer as well.
+ * Deletes go through the writer too, so a save in progress can never recreate a deleted file.
+ */
+public class DesignSaveQueue implements AutoCloseable {
+    private final DesignStore store;
+    private final ExecutorService writer;
+    private final Map<String, PendingSave> pending = new HashMap<>();
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    public DesignSaveQueue(DesignStore store) {
+        this.store = store;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "design-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queue a design to be saved
+     *
+     * @param design The design to save; a snapshot is taken before this method returns
+     * @return A future completing with the snapshot that was written
+     */
+    public CompletableFuture<Design> save(Design design) {
+        Design snapshot = design.copy();
+        submittedCount.incrementAndGet();
+
+        synchronized (pending) {
+            PendingSave save = pending.get(snapshot.getId());
+            if (save != null) {
+                // Not written yet, the newer snapshot replaces it
+                save.design = snapshot;
+                coalescedCount.incrementAndGet();
+                return save.future;
+            }
+
+            save = new PendingSave(snapshot);
+            pending.put(snapshot.getId(), save);
+            writer.execute(() -> write(snapshot.getId()));
+            return save.future;
+        }
+    }
+
+    /**
+     * Delete a design on the writer, after a save of it that is already being written.
+     * A queued save of the design that was not picked up yet is dropped and its future cancelled.
+     *
+     * @param designId The id of the design to delete
+     * @return A future completing with whether a file was deleted
+     */
+    public CompletableFuture<Boolean> delete(String designId) {
+        PendingSave save;
+        synchronized (pending) {
+            save = pending.remove(designId);
+        }
+        if (save != null) {
+            save.future.cancel(false);
+        }
+        return CompletableFuture.supplyAsync(() -> store.delete(designId), writer);
+    }
+
+    /**
+     * Let the store forget a design once the saves already queued for it are written,
+     * so they can still be appended to its journal
+     *
+     * @param designId The id of the design that was closed
+     */
+    public void release(String designId) {
+        writer.execute(() -> store.release(designId));
+    }
+
+    /**
+     * Wait until every queued save has been written
+     *
+     * @param timeout The maximum time to wait
+     * @param unit The unit of the timeout
+     * @return true if the queue drained in time, false otherwise
+     */
+    public boolean flush(long timeout, TimeUnit unit) {
+        try {
+            writer.submit(() -> { }).get(timeout, unit);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Stop accepting work and wait briefly for queued saves to finish
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(String designId) {
+        PendingSave save;
+        synchronized (pending) {
+            // From here on, new saves of this design queue a separate write
+            save = pending.remove(designId);
+        }
+        if (save == null) {
+            return;
+        }
+
+        try {
+            store.save(save.design);
+            writtenCount.incrementAndGet();
+            save.future.complete(save.design);
+        } catch (IOException | RuntimeException e) {
+            save.future.completeExceptionally(e);
+            return;
+        }
+
+        if (store.needsCompaction(designId)) {
+            // Runs after the saves already queued, so it never delays one
+            writer.execute(() -> compact(designId));
+        }
+    }
+
+    private void compact(String designId) {
+        try {
+            store.compact(designId);
+        } catch (IOException e) {
+            // The journal is still intact, compaction is retried after the next save
+            System.err.println("Could not compact design " + designId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * A save that has been queued but not yet picked up by the writer
+     */
+    private static class PendingSave {
+        private Design design;
+        private final CompletableFuture<Design> future = new CompletableFuture<>();
+
+        PendingSave(Design design) {
+            this.design = design;
+        }
+    }
+}
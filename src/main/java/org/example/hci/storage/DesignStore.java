@@ -0,0 +1,407 @@
+package org.example.hci.storage;
+
+import org.example.hci.model.Design;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * File-backed storage for designs using the binary {@link DesignCodec} format.
+ * Designs saved by older versions with Java serialization ({@code .ser}) are
+ * still readable and are migrated to the binary format on first load.
+ */
+public class DesignStore {
+    public static final String LEGACY_EXTENSION = ".ser";
+    public static final String MIGRATED_SUFFIX = ".bak";
+    public static final String TEMP_SUFFIX = ".tmp";
+
+    // Edits are folded into a new snapshot once the journal outgrows this or half the snapshot
+    static final long COMPACTION_MIN_JOURNAL_BYTES = 64 * 1024;
+
+    private final Path directory;
+    private final Map<String, PersistedState> persisted = new ConcurrentHashMap<>();
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    public DesignStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Get the directory designs are stored in
+     *
+     * @return The storage directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Get the path of the binary file for a design id
+     *
+     * @param designId The design id
+     * @return The path of the design file
+     */
+    public Path pathFor(String designId) {
+        return directory.resolve(designId + DesignCodec.FILE_EXTENSION);
+    }
+
+    /**
+     * Get the path of the edit journal that belongs to a design file
+     *
+     * @param designFile The snapshot file of the design
+     * @return The path of its journal
+     */
+    public Path journalPathFor(Path designFile) {
+        String fileName = designFile.getFileName().toString();
+        String baseName = fileName.substring(0, fileName.length() - DesignCodec.FILE_EXTENSION.length());
+        return designFile.resolveSibling(baseName + EditJournal.FILE_EXTENSION);
+    }
+
+    /**
+     * Save a design.
+     * If the design was loaded or saved through this store before, only the edits
+     * since then are appended to its journal; a design without changes is not written
+     * at all. Otherwise, or if its journal holds records of a newer version, a full
+     * snapshot is written.
+     *
+     * @param design The design to save
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Design design) throws IOException {
+        synchronized (lockFor(design.getId())) {
+            PersistedState state = persisted.get(design.getId());
+            if (state != null && state.journalAppendable) {
+                byte[] records = EditJournal.diff(state.design, design);
+                if (records != null) {
+                    if (records.length > 0) {
+                        appendJournal(state, records);
+                    }
+                    state.design = design.copy();
+                    return;
+                }
+            }
+            writeSnapshot(design);
+        }
+    }
+
+    /**
+     * Check whether a design's journal has grown enough to be folded into a new snapshot
+     *
+     * @param designId The design id
+     * @return true if compaction is due
+     */
+    public boolean needsCompaction(String designId) {
+        PersistedState state = persisted.get(designId);
+        return state != null && state.journalAppendable
+                && state.journalLength > Math.max(COMPACTION_MIN_JOURNAL_BYTES, state.snapshotLength / 2);
+    }
+
+    /**
+     * Fold a design's journal into a new snapshot and discard the journal
+     *
+     * @param designId The design id
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void compact(String designId) throws IOException {
+        synchronized (lockFor(designId)) {
+            PersistedState state = persisted.get(designId);
+            if (state != null && state.journalAppendable && state.journalLength > 0) {
+                writeSnapshot(state.design);
+            }
+        }
+    }
+
+    /**
+     * Write a full snapshot of a design and start a new, empty journal.
+     * The data goes to a temporary file that is synced and then renamed over the
+     * old file, so a crash mid-write never leaves a truncated design behind.
+     */
+    private void writeSnapshot(Design design) throws IOException {
+        Path target = pathFor(design.getId());
+        Path tempFile = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        ByteBuffer buffer = DesignCodec.encode(design);
+        int snapshotCrc = buffer.getInt(DesignCodec.CRC_OFFSET);
+        long snapshotLength = buffer.remaining();
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            replace(tempFile, target);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+
+        // A journal left behind by a crash here names the old snapshot and is ignored on load
+        Files.deleteIfExists(journalPathFor(target));
+        persisted.put(design.getId(), new PersistedState(design.copy(), snapshotCrc, snapshotLength, 0));
+    }
+
+    private void appendJournal(PersistedState state, byte[] records) throws IOException {
+        Path journal = journalPathFor(pathFor(state.design.getId()));
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (state.journalLength == 0) {
+                channel.truncate(0);
+                ByteBuffer header = EditJournal.header(state.snapshotCrc);
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                state.journalLength = EditJournal.HEADER_SIZE;
+            } else {
+                // Drops a record torn by an earlier crash
+                channel.truncate(state.journalLength);
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(records);
+            channel.position(state.journalLength);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        state.journalLength += records.length;
+    }
+
+    /**
+     * Atomically move a fully written file into place
+     *
+     * @param source The temporary file
+     * @param target The final path
+     * @throws IOException if the file cannot be moved
+     */
+    static void replace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Read a single design file, binary or legacy
+     *
+     * @param file The file to read
+     * @return The decoded design
+     * @throws IOException if the file cannot be read or decoded
+     */
+    public Design read(Path file) throws IOException {
+        if (file.getFileName().toString().endsWith(LEGACY_EXTENSION)) {
+            return readLegacy(file);
+        }
+        return readJournaled(file).design;
+    }
+
+    /**
+     * Read a snapshot and replay its journal on top of it
+     */
+    private PersistedState readJournaled(Path file) throws IOException {
+        ByteBuffer snapshot = ByteBuffer.wrap(Files.readAllBytes(file));
+        int snapshotCrc = snapshot.remaining() >= DesignCodec.HEADER_SIZE ? snapshot.getInt(DesignCodec.CRC_OFFSET) : 0;
+        long snapshotLength = snapshot.remaining();
+        Design design = DesignCodec.decode(snapshot);
+
+        Path journal = journalPathFor(file);
+        if (!Files.exists(journal)) {
+            return new PersistedState(design, snapshotCrc, snapshotLength, 0);
+        }
+
+        EditJournal.Replay replay = EditJournal.replay(design, ByteBuffer.wrap(Files.readAllBytes(journal)), snapshotCrc);
+        if (replay.isTorn()) {
+            System.err.println("Recovered design " + file.getFileName() + " from its journal, "
+                    + "dropped an incomplete edit at the end");
+        }
+        PersistedState state = new PersistedState(replay.getDesign(), snapshotCrc, snapshotLength,
+                replay.getValidLength());
+        if (replay.isUnreadable()) {
+            System.err.println("Design " + file.getFileName() + " has edits from a newer version that are not shown");
+            state.journalAppendable = false;
+        }
+        return state;
+    }
+
+    /**
+     * Load a design by id
+     *
+     * @param designId The design id
+     * @return The design
+     * @throws IOException if the design cannot be read
+     */
+    public Design load(String designId) throws IOException {
+        Path file = pathFor(designId);
+        if (!Files.exists(file)) {
+            Path legacy = directory.resolve(designId + LEGACY_EXTENSION);
+            if (Files.exists(legacy)) {
+                return migrate(legacy);
+            }
+        }
+
+        synchronized (lockFor(designId)) {
+            // Remember what is on disk so the next save only has to append the edits
+            PersistedState state = readJournaled(file);
+            Design design = state.design;
+            state.design = design.copy();
+            persisted.put(designId, state);
+            return design;
+        }
+    }
+
+    /**
+     * Forget what was last written for a design, e.g. once it is closed in the editor.
+     * Only open designs are kept, as a copy each; the next save of a released design
+     * writes a full snapshot.
+     *
+     * @param designId The design id
+     */
+    public void release(String designId) {
+        synchronized (lockFor(designId)) {
+            persisted.remove(designId);
+        }
+    }
+
+    /**
+     * Delete a design's files
+     *
+     * @param designId The design id
+     * @return true if a file was deleted, false otherwise
+     */
+    public boolean delete(String designId) {
+        synchronized (lockFor(designId)) {
+            persisted.remove(designId);
+            try {
+                boolean deleted = Files.deleteIfExists(pathFor(designId));
+                Files.deleteIfExists(journalPathFor(pathFor(designId)));
+                deleted |= Files.deleteIfExists(directory.resolve(designId + LEGACY_EXTENSION));
+                return deleted;
+            } catch (IOException e) {
+                e.printStackTrace();
+                return false;
+            }
+        }
+    }
+
+    private Object lockFor(String designId) {
+        return locks.computeIfAbsent(designId, id -> new Object());
+    }
+
+    /**
+     * List all binary design files in the store
+     *
+     * @return The design files
+     */
+    public List<Path> listDesignFiles() {
+        return list("*" + DesignCodec.FILE_EXTENSION);
+    }
+
+    /**
+     * Load every design in the store, migrating legacy files first.
+     * Files are decoded in parallel, so the order of the result is not defined.
+     *
+     * @return The loaded designs; unreadable files are reported and skipped
+     */
+    public List<Design> loadAll() {
+        migrateLegacyFiles();
+
+        List<Design> designs = Collections.synchronizedList(new ArrayList<>());
+        try (DesignLoader loader = new DesignLoader()) {
+            loader.load(listDesignFiles(), this::read, designs::add, (file, e) ->
+                    System.err.println("Could not load design " + file.getFileName() + ": " + e.getMessage()))
+                    .join();
+        }
+        return new ArrayList<>(designs);
+    }
+
+    /**
+     * Convert every legacy {@code .ser} file into the binary format.
+     * The original file is kept with a {@code .bak} suffix.
+     *
+     * @return The number of files migrated
+     */
+    public int migrateLegacyFiles() {
+        int migrated = 0;
+        for (Path legacy : list("*" + LEGACY_EXTENSION)) {
+            try {
+                migrate(legacy);
+                migrated++;
+            } catch (IOException e) {
+                System.err.println("Could not migrate design " + legacy.getFileName() + ": " + e.getMessage());
+            }
+        }
+        return migrated;
+    }
+
+    private Design migrate(Path legacy) throws IOException {
+        Design design = readLegacy(legacy);
+        save(design);
+        Files.move(legacy, legacy.resolveSibling(legacy.getFileName() + MIGRATED_SUFFIX),
+                StandardCopyOption.REPLACE_EXISTING);
+        return design;
+    }
+
+    private Design readLegacy(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file);
+             ObjectInputStream ois = new ObjectInputStream(in)) {
+            return (Design) ois.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new DesignFormatException("Not a serialized design: " + file.getFileName(), e);
+        }
+    }
+
+    /**
+     * What was last written for a design: the design itself, the snapshot it is
+     * based on and how far the journal extends past that snapshot. A journal with
+     * records of a newer version is never truncated or appended to; the next save
+     * replaces it with a snapshot.
+     */
+    private static class PersistedState {
+        private Design design;
+        private final int snapshotCrc;
+        private final long snapshotLength;
+        private long journalLength;
+        private boolean journalAppendable = true;
+
+        PersistedState(Design design, int snapshotCrc, long snapshotLength, long journalLength) {
+            this.design = design;
+            this.snapshotCrc = snapshotCrc;
+            this.snapshotLength = snapshotLength;
+            this.journalLength = journalLength;
+        }
+    }
+
+    private List<Path> list(String glob) {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return files;
+    }
+}
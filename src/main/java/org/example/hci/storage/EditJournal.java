@@ -0,0 +1,494 @@
+package org.example.hci.storage;
+
+import org.example.hci.model.Design;
+import org.example.hci.model.FurnitureItem;
+import org.example.hci.model.Room;
+
+import java.awt.Color;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of edits made to a design since its last snapshot.
+ *
+ * A journal file starts with a header naming the snapshot it belongs to (by the
+ * snapshot's payload checksum) and is followed by small, individually checksummed
+ * records: add, remove, move, rotate, recolor and resize of furniture items, plus
+ * rename and room changes. Records are only ever appended, so a crash can at most
+ * tear the last record, which is detected and dropped on replay.
+ * <pre>
+ * header  magic:int  version:short  reserved:short  snapshotCrc:int
+ * record  length:int  crc32:int  op:byte  timestamp:long  body
+ * </pre>
+ */
+public final class EditJournal {
+    public static final String FILE_EXTENSION = ".hcj";
+    public static final int MAGIC = 0x48434A31; // "HCJ1"
+    public static final short VERSION = 1;
+    static final int HEADER_SIZE = 12;
+
+    private static final byte OP_ADD = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final byte OP_MOVE = 3;
+    private static final byte OP_ROTATE = 4;
+    private static final byte OP_RECOLOR = 5;
+    private static final byte OP_RESIZE = 6;
+    private static final byte OP_RENAME = 7;
+    private static final byte OP_ROOM = 8;
+
+    private static final byte ID_UUID = 0;
+    private static final byte ID_STRING = 1;
+    private static final int MAX_STRING_LENGTH = 0xFFFF;
+
+    private static final FurnitureItem.FurnitureType[] TYPES = FurnitureItem.FurnitureType.values();
+
+    private EditJournal() {
+    }
+
+    /**
+     * Encode the journal header for a snapshot
+     *
+     * @param snapshotCrc The payload checksum of the snapshot the journal extends
+     * @return The header bytes
+     */
+    public static ByteBuffer header(int snapshotCrc) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+        buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putInt(snapshotCrc);
+        return buffer.flip();
+    }
+
+    /**
+     * Encode the edits that turn one version of a design into another
+     *
+     * @param before The last persisted version
+     * @param after The version being saved
+     * @return The encoded records, empty if nothing changed, or null if the change
+     *         cannot be expressed as edits (e.g. items were reordered or a text is too
+     *         long for a record) and needs a snapshot
+     */
+    public static byte[] diff(Design before, Design after) {
+        Records records = new Records(after.getLastModifiedTimestamp());
+
+        if (!Objects.equals(before.getName(), after.getName())) {
+            records.begin(OP_RENAME).writeString(after.getName() == null ? "" : after.getName());
+            records.end();
+        }
+
+        Room beforeRoom = before.getRoom();
+        Room afterRoom = after.getRoom();
+        if (beforeRoom.getWidth() != afterRoom.getWidth()
+                || beforeRoom.getLength() != afterRoom.getLength()
+                || beforeRoom.getHeight() != afterRoom.getHeight()
+                || !Objects.equals(beforeRoom.getWallColor(), afterRoom.getWallColor())
+                || !Objects.equals(beforeRoom.getFloorColor(), afterRoom.getFloorColor())) {
+            records.begin(OP_ROOM)
+                    .writeDouble(afterRoom.getWidth())
+                    .writeDouble(afterRoom.getLength())
+                    .writeDouble(afterRoom.getHeight())
+                    .writeInt(DesignCodec.packColor(afterRoom.getWallColor()))
+                    .writeInt(DesignCodec.packColor(afterRoom.getFloorColor()));
+            records.end();
+        }
+
+        Map<String, FurnitureItem> beforeItems = new LinkedHashMap<>();
+        for (FurnitureItem item : before.getFurnitureItems()) {
+            beforeItems.put(item.getId(), item);
+        }
+        Map<String, FurnitureItem> afterItems = new HashMap<>();
+        for (FurnitureItem item : after.getFurnitureItems()) {
+            afterItems.put(item.getId(), item);
+        }
+
+        // Removals first, replay keeps the remaining items in their order
+        for (FurnitureItem item : beforeItems.values()) {
+            if (!afterItems.containsKey(item.getId())) {
+                records.begin(OP_REMOVE).writeId(item.getId());
+                records.end();
+            }
+        }
+
+        // Surviving items must keep their relative order and new items must come last,
+        // which is exactly what replaying removes and appends produces
+        Iterator<String> expectedOrder = beforeItems.keySet().iterator();
+        boolean appending = false;
+        for (FurnitureItem item : after.getFurnitureItems()) {
+            FurnitureItem old = beforeItems.get(item.getId());
+            if (old == null) {
+                appending = true;
+                records.begin(OP_ADD).writeId(item.getId())
+                        .writeByte(item.getType().ordinal())
+                        .writeDouble(item.getX())
+                        .writeDouble(item.getY())
+                        .writeDouble(item.getWidth())
+                        .writeDouble(item.getDepth())
+                        .writeDouble(item.getHeight())
+                        .writeDouble(item.getRotationAngle())
+                        .writeInt(DesignCodec.packColor(item.getColor()));
+                records.end();
+                continue;
+            }
+
+            if (appending || !item.getId().equals(nextSurviving(expectedOrder, afterItems))) {
+                return null;
+            }
+            diffItem(records, old, item);
+        }
+
+        return records.isComplete() ? records.toByteArray() : null;
+    }
+
+    /**
+     * Apply journal records to a snapshot
+     *
+     * @param snapshot The design decoded from the snapshot file
+     * @param journal The journal file contents, header included
+     * @param snapshotCrc The payload checksum of the snapshot
+     * @return The replay result, holding the design and how much of the journal was valid
+     */
+    public static Replay replay(Design snapshot, ByteBuffer journal, int snapshotCrc) {
+        int start = journal.position();
+        if (journal.remaining() < HEADER_SIZE || journal.getInt() != MAGIC) {
+            return new Replay(snapshot, 0, 0, false, false);
+        }
+        if (journal.getShort() > VERSION) {
+            // Written by a newer version, its records must not be overwritten
+            return new Replay(snapshot, 0, 0, false, true);
+        }
+        if (journal.getShort() != 0 || journal.getInt() != snapshotCrc) {
+            // Journal of an older snapshot, its edits are already folded in
+            return new Replay(snapshot, 0, 0, false, false);
+        }
+
+        String name = snapshot.getName();
+        Room room = snapshot.getRoom();
+        long lastModified = snapshot.getLastModifiedTimestamp();
+        Map<String, FurnitureItem> items = new LinkedHashMap<>();
+        for (FurnitureItem item : snapshot.getFurnitureItems()) {
+            items.put(item.getId(), item);
+        }
+
+        int records = 0;
+        long validLength = HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        while (journal.remaining() >= 8) {
+            int length = journal.getInt();
+            int expectedCrc = journal.getInt();
+            if (length <= 0 || length > journal.remaining()) {
+                break; // torn record at the end of the journal
+            }
+
+            ByteBuffer body = journal.slice(journal.position(), length);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != expectedCrc) {
+                break;
+            }
+            journal.position(journal.position() + length);
+
+            try {
+                byte op = body.get();
+                lastModified = body.getLong();
+                switch (op) {
+                    case OP_RENAME:
+                        name = readString(body);
+                        break;
+                    case OP_ROOM:
+                        room = new Room(body.getDouble(), body.getDouble(), body.getDouble());
+                        room.setWallColor(DesignCodec.unpackColor(body.getInt()));
+                        room.setFloorColor(DesignCodec.unpackColor(body.getInt()));
+                        break;
+                    case OP_ADD: {
+                        String id = readId(body);
+                        FurnitureItem.FurnitureType type = TYPES[body.get()];
+                        double x = body.getDouble();
+                        double y = body.getDouble();
+                        double width = body.getDouble();
+                        double depth = body.getDouble();
+                        double height = body.getDouble();
+                        double rotation = body.getDouble();
+                        Color color = DesignCodec.unpackColor(body.getInt());
+                        items.put(id, new FurnitureItem(id, type, x, y, width, depth, height, color, rotation));
+                        break;
+                    }
+                    case OP_REMOVE:
+                        items.remove(readId(body));
+                        break;
+                    case OP_MOVE: {
+                        FurnitureItem item = items.get(readId(body));
+                        double x = body.getDouble();
+                        double y = body.getDouble();
+                        if (item != null) {
+                            item.setX(x);
+                            item.setY(y);
+                        }
+                        break;
+                    }
+                    case OP_ROTATE: {
+                        FurnitureItem item = items.get(readId(body));
+                        double angle = body.getDouble();
+                        if (item != null) {
+                            item.setRotationAngle(angle);
+                        }
+                        break;
+                    }
+                    case OP_RECOLOR: {
+                        FurnitureItem item = items.get(readId(body));
+                        Color color = DesignCodec.unpackColor(body.getInt());
+                        if (item != null) {
+                            item.setColor(color);
+                        }
+                        break;
+                    }
+                    case OP_RESIZE: {
+                        FurnitureItem item = items.get(readId(body));
+                        double width = body.getDouble();
+                        double depth = body.getDouble();
+                        double height = body.getDouble();
+                        if (item != null) {
+                            item.setWidth(width);
+                            item.setDepth(depth);
+                            item.setHeight(height);
+                        }
+                        break;
+                    }
+                    default:
+                        // Unknown operation from a newer version, stop before misapplying anything
+                        return new Replay(rebuild(snapshot, name, room, items, lastModified), records, validLength,
+                                false, true);
+                }
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                break;
+            }
+
+            records++;
+            validLength = journal.position() - start;
+        }
+
+        boolean torn = start + validLength < journal.limit();
+        return new Replay(rebuild(snapshot, name, room, items, lastModified), records, validLength, torn, false);
+    }
+
+    private static Design rebuild(Design snapshot, String name, Room room,
+                                  Map<String, FurnitureItem> items, long lastModified) {
+        return new Design(snapshot.getId(), name, room, new ArrayList<>(items.values()),
+                snapshot.getCreatedTimestamp(), lastModified);
+    }
+
+    private static String nextSurviving(Iterator<String> order, Map<String, FurnitureItem> afterItems) {
+        while (order.hasNext()) {
+            String id = order.next();
+            if (afterItems.containsKey(id)) {
+                return id;
+            }
+        }
+        return null;
+    }
+
+    private static void diffItem(Records records, FurnitureItem old, FurnitureItem item) {
+        if (old.getX() != item.getX() || old.getY() != item.getY()) {
+            records.begin(OP_MOVE).writeId(item.getId())
+                    .writeDouble(item.getX())
+                    .writeDouble(item.getY());
+            records.end();
+        }
+        if (old.getRotationAngle() != item.getRotationAngle()) {
+            records.begin(OP_ROTATE).writeId(item.getId())
+                    .writeDouble(item.getRotationAngle());
+            records.end();
+        }
+        if (!Objects.equals(old.getColor(), item.getColor())) {
+            records.begin(OP_RECOLOR).writeId(item.getId())
+                    .writeInt(DesignCodec.packColor(item.getColor()));
+            records.end();
+        }
+        if (old.getWidth() != item.getWidth() || old.getDepth() != item.getDepth()
+                || old.getHeight() != item.getHeight()) {
+            records.begin(OP_RESIZE).writeId(item.getId())
+                    .writeDouble(item.getWidth())
+                    .writeDouble(item.getDepth())
+                    .writeDouble(item.getHeight());
+            records.end();
+        }
+    }
+
+    private static String readId(ByteBuffer body) {
+        if (body.get() == ID_UUID) {
+            return new UUID(body.getLong(), body.getLong()).toString();
+        }
+        return readString(body);
+    }
+
+    private static String readString(ByteBuffer body) {
+        byte[] bytes = new byte[body.getShort() & 0xFFFF];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Result of replaying a journal
+     */
+    public static class Replay {
+        private final Design design;
+        private final int recordCount;
+        private final long validLength;
+        private final boolean torn;
+        private final boolean unreadable;
+
+        Replay(Design design, int recordCount, long validLength, boolean torn, boolean unreadable) {
+            this.design = design;
+            this.recordCount = recordCount;
+            this.validLength = validLength;
+            this.torn = torn;
+            this.unreadable = unreadable;
+        }
+
+        public Design getDesign() {
+            return design;
+        }
+
+        public int getRecordCount() {
+            return recordCount;
+        }
+
+        /**
+         * Get the length of the intact part of the journal, where the next record must go
+         *
+         * @return The valid length in bytes, 0 if the journal does not belong to the snapshot
+         */
+        public long getValidLength() {
+            return validLength;
+        }
+
+        /**
+         * Check whether trailing data was dropped, e.g. after a crash mid-append
+         *
+         * @return true if the journal ended in an incomplete or corrupt record
+         */
+        public boolean isTorn() {
+            return torn;
+        }
+
+        /**
+         * Check whether replay stopped at records written by a newer version. They are
+         * intact, so the journal must not be truncated or appended to.
+         *
+         * @return true if the journal holds records that could not be read
+         */
+        public boolean isUnreadable() {
+            return unreadable;
+        }
+    }
+
+    /**
+     * Builder for a run of checksummed records
+     */
+    private static class Records {
+        private final long timestamp;
+        private ByteBuffer output = ByteBuffer.allocate(256);
+        private int recordStart;
+        private boolean complete = true;
+        private final CRC32 crc = new CRC32();
+
+        Records(long timestamp) {
+            this.timestamp = timestamp;
+        }
+
+        Records begin(byte op) {
+            ensure(8);
+            recordStart = output.position();
+            output.position(recordStart + 8); // length and checksum, filled in by end()
+            writeByte(op);
+            return writeLong(timestamp);
+        }
+
+        void end() {
+            int bodyStart = recordStart + 8;
+            int length = output.position() - bodyStart;
+            crc.reset();
+            crc.update(output.array(), bodyStart, length);
+            output.putInt(recordStart, length);
+            output.putInt(recordStart + 4, (int) crc.getValue());
+        }
+
+        /**
+         * Check whether every value fit into its record
+         *
+         * @return false if a text was too long, the records must then not be used
+         */
+        boolean isComplete() {
+            return complete;
+        }
+
+        byte[] toByteArray() {
+            byte[] bytes = new byte[output.position()];
+            System.arraycopy(output.array(), 0, bytes, 0, bytes.length);
+            return bytes;
+        }
+
+        Records writeId(String id) {
+            UUID uuid = DesignCodec.parseUuid(id);
+            if (uuid != null) {
+                writeByte(ID_UUID);
+                writeLong(uuid.getMostSignificantBits());
+                return writeLong(uuid.getLeastSignificantBits());
+            }
+            writeByte(ID_STRING);
+            return writeString(id);
+        }
+
+        Records writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_STRING_LENGTH) {
+                // Cutting it could split a character, so the design is written as a snapshot instead
+                complete = false;
+                return this;
+            }
+            ensure(2 + bytes.length);
+            output.putShort((short) bytes.length);
+            output.put(bytes);
+            return this;
+        }
+
+        Records writeByte(int value) {
+            ensure(1);
+            output.put((byte) value);
+            return this;
+        }
+
+        Records writeInt(int value) {
+            ensure(4);
+            output.putInt(value);
+            return this;
+        }
+
+        Records writeLong(long value) {
+            ensure(8);
+            output.putLong(value);
+            return this;
+        }
+
+        Records writeDouble(double value) {
+            ensure(8);
+            output.putDouble(value);
+            return this;
+        }
+
+        private void ensure(int bytes) {
+            if (output.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(output.capacity() * 2, output.position() + bytes));
+                output.flip();
+                larger.put(output);
+                output = larger;
+            }
+        }
+    }
+}
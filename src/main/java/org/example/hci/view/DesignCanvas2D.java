@@ -1,27 +1,60 @@
 package org.example.hci.view;
 
 import org.example.hci.model.Design;
+import org.example.hci.model.DesignChangeEvent;
+import org.example.hci.model.DesignChangeListener;
 import org.example.hci.model.FurnitureItem;
 import org.example.hci.model.Room;
+import org.example.hci.view.render.FootprintIndex;
+import org.example.hci.view.render.RenderScheduler;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.AffineTransform;
-import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
  * Canvas for 2D visualization and editing of furniture design
  */
 public class DesignCanvas2D extends JPanel implements MouseListener, MouseMotionListener {
     private Design design;
+    // Repaints after edits made here, in other views or by the controller
+    private final DesignChangeListener changeListener = this::designChanged;
+    // Hit-testing for hover and selection, kept up to date from the design's change events
+    private final FootprintIndex footprintIndex = new FootprintIndex();
     private FurnitureItem selectedItem;
     private FurnitureItem draggingItem;
     private Point dragStart;
+
+    // Input collected between frames
+    private final RenderScheduler renderScheduler = new RenderScheduler(this::renderFrame);
+    private Point dragTarget;
+    private int pendingNudgeX = 0;
+    private int pendingNudgeY = 0;
+    private boolean panChanged = false;
     private double scale = 50.0; // pixels per meter
     private int panX = 0;
     private int panY = 0;
 
+    // Room and inactive furniture, rendered once and reused until they change
+    private BufferedImage backgroundLayer;
+    private boolean backgroundValid = false;
+    private int backgroundRenderCount = 0;
+
+    private static final BasicStroke WALL_STROKE = new BasicStroke(4.0f);
+    private static final BasicStroke ITEM_STROKE = new BasicStroke(1.0f);
+    private static final BasicStroke SELECTED_STROKE = new BasicStroke(3.0f);
+    private static final Font DIMENSION_FONT = new Font("Arial", Font.PLAIN, 12);
+    private static final Font LABEL_FONT = new Font("Arial", Font.PLAIN, 10);
+    private static final Font MESSAGE_FONT = new Font("Arial", Font.BOLD, 16);
+
+    // Half the selection stroke plus a pixel of antialiasing around repainted items
+    private static final int DIRTY_MARGIN = 3;
+    private final Map<FurnitureItem, Rectangle> paintedBounds = new IdentityHashMap<>();
+
     private FurnitureItem pendingFurnitureItem = null;
     private FurnitureItem.FurnitureType pendingFurnitureType = null;
 
@@ -47,9 +80,50 @@ public class DesignCanvas2D extends JPanel implements MouseListener, MouseMotion
      * @param design The design to visualize
      */
     public void setDesign(Design design) {
+        if (this.design != null) {
+            this.design.removeDesignChangeListener(changeListener);
+        }
+        if (design != this.design) {
+            // The selection and pending input belong to the previous design
+            selectedItem = null;
+            draggingItem = null;
+            paintedBounds.clear();
+            renderScheduler.cancel();
+            dragTarget = null;
+            pendingNudgeX = 0;
+            pendingNudgeY = 0;
+        }
         this.design = design;
+        if (design != null) {
+            design.addDesignChangeListener(changeListener);
+        }
+        footprintIndex.setDesign(design);
+        invalidateBackground();
         repaint();
     }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        // Listen again if the canvas is shown after having been removed, catching up on missed edits
+        if (design != null) {
+            design.removeDesignChangeListener(changeListener);
+            design.addDesignChangeListener(changeListener);
+            footprintIndex.setDesign(design);
+            invalidateBackground();
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        // A canvas taken out of the workspace must not be kept alive and repainted by the design
+        if (design != null) {
+            design.removeDesignChangeListener(changeListener);
+            footprintIndex.setDesign(null);
+        }
+        super.removeNotify();
+    }
+
     public void setPendingFurniture(FurnitureItem.FurnitureType type) {
         this.pendingFurnitureType = type;
         this.pendingFurnitureItem = null;
@@ -58,63 +132,129 @@ public class DesignCanvas2D extends JPanel implements MouseListener, MouseMotion
 
     @Override
     protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
+        if (design == null) {
+            super.paintComponent(g);
+
+            // Draw a message if no design is set
+            Graphics2D g2d = (Graphics2D) g.create();
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setColor(Color.GRAY);
+            g2d.setFont(MESSAGE_FONT);
+            String message = "No design loaded. Create or open a design.";
+            FontMetrics fm = g2d.getFontMetrics();
+            int textWidth = fm.stringWidth(message);
+            g2d.drawString(message, (getWidth() - textWidth) / 2, getHeight() / 2);
+            g2d.dispose();
+            return;
+        }
 
         Graphics2D g2d = (Graphics2D) g.create();
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-        // Apply panning
+        // Room and inactive furniture come from the cached layer
+        drawBackgroundLayer(g2d);
+
+        // Selected and dragged items are drawn on top every frame
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         g2d.translate(panX, panY);
+        Point room = roomOrigin();
+        if (selectedItem != null && selectedItem != draggingItem) {
+            drawFurnitureItem(g2d, selectedItem, room.x, room.y);
+        }
+        if (draggingItem != null) {
+            drawFurnitureItem(g2d, draggingItem, room.x, room.y);
+        }
 
-        // Draw the room if design is set
-        if (design != null) {
-            Room room = design.getRoom();
+        g2d.dispose();
+    }
 
-            // Draw room outline
-            int roomWidth = (int) (room.getWidth() * scale);
-            int roomLength = (int) (room.getLength() * scale);
+    /**
+     * Copy the cached room layer to the screen, re-rendering it first if it is stale.
+     * The layer is kept at device resolution so it stays sharp on scaled displays.
+     *
+     * @param g2d The graphics context of the canvas
+     */
+    private void drawBackgroundLayer(Graphics2D g2d) {
+        AffineTransform deviceTransform = g2d.getTransform();
+        double deviceScaleX = deviceTransform.getScaleX();
+        double deviceScaleY = deviceTransform.getScaleY();
+        int layerWidth = (int) Math.ceil(getWidth() * deviceScaleX);
+        int layerHeight = (int) Math.ceil(getHeight() * deviceScaleY);
+        if (layerWidth <= 0 || layerHeight <= 0) {
+            return;
+        }
 
-            // Center the room in the canvas
-            int centerX = (getWidth() - roomWidth) / 2;
-            int centerY = (getHeight() - roomLength) / 2;
+        if (backgroundLayer == null || backgroundLayer.getWidth() != layerWidth
+                || backgroundLayer.getHeight() != layerHeight) {
+            GraphicsConfiguration configuration = getGraphicsConfiguration();
+            backgroundLayer = configuration != null
+                    ? configuration.createCompatibleImage(layerWidth, layerHeight)
+                    : new BufferedImage(layerWidth, layerHeight, BufferedImage.TYPE_INT_RGB);
+            backgroundValid = false;
+        }
 
-            // Draw floor
-            g2d.setColor(room.getFloorColor());
-            g2d.fillRect(centerX, centerY, roomWidth, roomLength);
+        if (!backgroundValid) {
+            Graphics2D layer = backgroundLayer.createGraphics();
+            layer.setColor(getBackground());
+            layer.fillRect(0, 0, layerWidth, layerHeight);
+            layer.scale(deviceScaleX, deviceScaleY);
+            layer.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            layer.translate(panX, panY);
+            drawRoom(layer);
+            layer.dispose();
+            backgroundValid = true;
+            backgroundRenderCount++;
+        }
 
-            // Draw walls
-            g2d.setColor(room.getWallColor());
-            g2d.setStroke(new BasicStroke(4.0f));
-            g2d.drawRect(centerX, centerY, roomWidth, roomLength);
+        Graphics2D screen = (Graphics2D) g2d.create();
+        screen.scale(1 / deviceScaleX, 1 / deviceScaleY);
+        screen.drawImage(backgroundLayer, 0, 0, null);
+        screen.dispose();
+    }
 
-            // Draw furniture items
-            for (FurnitureItem item : design.getFurnitureItems()) {
-                drawFurnitureItem(g2d, item, centerX, centerY);
-            }
+    /**
+     * Draw the room with its dimensions and every furniture item that is not being edited
+     *
+     * @param g2d The graphics context, translated by the pan offset
+     */
+    private void drawRoom(Graphics2D g2d) {
+        Room room = design.getRoom();
 
-            // Draw room dimensions
-            g2d.setColor(Color.BLACK);
-            g2d.setFont(new Font("Arial", Font.PLAIN, 12));
+        // Draw room outline
+        int roomWidth = (int) (room.getWidth() * scale);
+        int roomLength = (int) (room.getLength() * scale);
 
-            // Width dimension
-            String widthText = String.format("%.2f m", room.getWidth());
-            g2d.drawString(widthText, centerX + roomWidth / 2 - 20, centerY - 10);
+        // Center the room in the canvas
+        Point origin = roomOrigin();
+        int centerX = origin.x;
+        int centerY = origin.y;
 
-            // Length dimension
-            String lengthText = String.format("%.2f m", room.getLength());
-            g2d.drawString(lengthText, centerX - 30, centerY + roomLength / 2);
-        } else {
-            // Draw a message if no design is set
-            g2d.setColor(Color.GRAY);
-            g2d.setFont(new Font("Arial", Font.BOLD, 16));
-            String message = "No design loaded. Create or open a design.";
-            FontMetrics fm = g2d.getFontMetrics();
-            int textWidth = fm.stringWidth(message);
-            g2d.drawString(message, (getWidth() - textWidth) / 2, getHeight() / 2);
+        // Draw floor
+        g2d.setColor(room.getFloorColor());
+        g2d.fillRect(centerX, centerY, roomWidth, roomLength);
+
+        // Draw walls
+        g2d.setColor(room.getWallColor());
+        g2d.setStroke(WALL_STROKE);
+        g2d.drawRect(centerX, centerY, roomWidth, roomLength);
+
+        // Draw furniture items
+        for (FurnitureItem item : design.getFurnitureItems()) {
+            if (!isActive(item)) {
+                drawFurnitureItem(g2d, item, centerX, centerY);
+            }
         }
 
+        // Draw room dimensions
+        g2d.setColor(Color.BLACK);
+        g2d.setFont(DIMENSION_FONT);
 
-        g2d.dispose();
+        // Width dimension
+        String widthText = String.format("%.2f m", room.getWidth());
+        g2d.drawString(widthText, centerX + roomWidth / 2 - 20, centerY - 10);
+
+        // Length dimension
+        String lengthText = String.format("%.2f m", room.getLength());
+        g2d.drawString(lengthText, centerX - 30, centerY + roomLength / 2);
     }
 
     /**
@@ -145,23 +285,141 @@ public class DesignCanvas2D extends JPanel implements MouseListener, MouseMotion
 
         // Draw outline, thicker if selected
         if (item == selectedItem) {
-            g2d.setStroke(new BasicStroke(3.0f));
+            g2d.setStroke(SELECTED_STROKE);
             g2d.setColor(Color.BLUE);
         } else {
-            g2d.setStroke(new BasicStroke(1.0f));
+            g2d.setStroke(ITEM_STROKE);
             g2d.setColor(Color.BLACK);
         }
         g2d.drawRect(x, y, width, depth);
 
         // Draw type indicator
         g2d.setColor(Color.BLACK);
-        g2d.setFont(new Font("Arial", Font.PLAIN, 10));
+        g2d.setFont(LABEL_FONT);
         g2d.drawString(item.getType().toString(), x + 5, y + 15);
 
         // Restore the original transform
         g2d.setTransform(oldTransform);
     }
 
+    /**
+     * Get the screen position of the room's top-left corner, before panning
+     *
+     * @return The room origin
+     */
+    private Point roomOrigin() {
+        Room room = design.getRoom();
+        int roomWidth = (int) (room.getWidth() * scale);
+        int roomLength = (int) (room.getLength() * scale);
+        return new Point((getWidth() - roomWidth) / 2, (getHeight() - roomLength) / 2);
+    }
+
+    /**
+     * Check whether an item is drawn over the cached layer instead of into it
+     */
+    private boolean isActive(FurnitureItem item) {
+        return item == selectedItem || item == draggingItem;
+    }
+
+    /**
+     * Mark the cached room layer as stale, e.g. after the room, the view or an inactive item changed
+     */
+    private void invalidateBackground() {
+        backgroundValid = false;
+    }
+
+    /**
+     * Get how often the cached room layer was rendered, for measuring drag performance
+     *
+     * @return The number of layer renders so far
+     */
+    public int getBackgroundRenderCount() {
+        return backgroundRenderCount;
+    }
+
+    private void designChanged(DesignChangeEvent event) {
+        // Dragging or nudging the active item leaves the cached layer untouched
+        boolean onlyActiveItems = event.isItemsOnly();
+        for (FurnitureItem item : event.getChangedItems()) {
+            onlyActiveItems &= isActive(item);
+        }
+        if (!onlyActiveItems) {
+            invalidateBackground();
+        }
+
+        // Where an inactive item or the room was before is unknown, so everything is repainted
+        if (event.isRoomChanged() || !onlyActiveItems && !event.getChangedItems().isEmpty()) {
+            repaint();
+            return;
+        }
+        for (FurnitureItem item : event.getRemovedItems()) {
+            repaint(itemScreenBounds(item));
+            paintedBounds.remove(item);
+        }
+        for (FurnitureItem item : event.getAddedItems()) {
+            repaintItem(item);
+        }
+        for (FurnitureItem item : event.getChangedItems()) {
+            repaintItem(item);
+        }
+    }
+
+    /**
+     * Change the selected item, moving items between the cached layer and the overlay
+     */
+    private void setSelectedItem(FurnitureItem item) {
+        if (item != selectedItem) {
+            FurnitureItem previous = selectedItem;
+            selectedItem = item;
+            invalidateBackground();
+            if (previous != null) {
+                repaintItem(previous);
+            }
+            if (item != null) {
+                repaintItem(item);
+            }
+        }
+    }
+
+    /**
+     * Repaint the area an item covers now together with the area it covered when last repainted
+     *
+     * @param item The item that moved, changed or changed appearance
+     */
+    private void repaintItem(FurnitureItem item) {
+        Rectangle bounds = itemScreenBounds(item);
+        Rectangle previous = isActive(item) ? paintedBounds.put(item, bounds) : paintedBounds.remove(item);
+        repaint(previous == null ? bounds : bounds.union(previous));
+    }
+
+    /**
+     * Get the screen area an item is drawn in, including its rotation, label and selection outline
+     *
+     * @param item The item
+     * @return The bounds in canvas coordinates
+     */
+    private Rectangle itemScreenBounds(FurnitureItem item) {
+        Point origin = roomOrigin();
+        int x = origin.x + panX + (int) (item.getX() * scale);
+        int y = origin.y + panY + (int) (item.getY() * scale);
+        int width = (int) (item.getWidth() * scale);
+        int depth = (int) (item.getDepth() * scale);
+
+        // The type label starts inside the item but may stick out of small ones
+        FontMetrics labelMetrics = getFontMetrics(LABEL_FONT);
+        int labelRight = 5 + labelMetrics.stringWidth(item.getType().toString());
+        int labelBottom = 15 + labelMetrics.getDescent();
+        Shape area = new Rectangle(x, y, Math.max(width, labelRight), Math.max(depth, labelBottom));
+        if (item.getRotationAngle() != 0) {
+            area = AffineTransform.getRotateInstance(Math.toRadians(item.getRotationAngle()),
+                    x + width / 2, y + depth / 2).createTransformedShape(area);
+        }
+
+        Rectangle bounds = area.getBounds();
+        bounds.grow(DIRTY_MARGIN, DIRTY_MARGIN);
+        return bounds;
+    }
+
     /**
      * Get the furniture item at the given point
      *
@@ -180,25 +438,8 @@ public class DesignCanvas2D extends JPanel implements MouseListener, MouseMotion
         int roomX = (getWidth() - roomWidth) / 2 + panX;
         int roomY = (getHeight() - roomLength) / 2 + panY;
 
-        // Check in reverse order to select items on top first
-        for (int i = design.getFurnitureItems().size() - 1; i >= 0; i--) {
-            FurnitureItem item = design.getFurnitureItems().get(i);
-
-            int itemX = roomX + (int) (item.getX() * scale);
-            int itemY = roomY + (int) (item.getY() * scale);
-            int itemWidth = (int) (item.getWidth() * scale);
-            int itemDepth = (int) (item.getDepth() * scale);
-
-            // Create a rectangle for the item
-            Rectangle2D rect = new Rectangle2D.Double(itemX, itemY, itemWidth, itemDepth);
-
-            // If the item is rotated, we need a more complex check (for simplicity, just check bounding box)
-            if (rect.contains(x, y)) {
-                return item;
-            }
-        }
-
-        return null;
+        // The index returns the top-most item and accounts for rotation
+        return footprintIndex.itemAt((x - roomX) / scale, (y - roomY) / scale);
     }
 
     /**
@@ -211,43 +452,34 @@ public class DesignCanvas2D extends JPanel implements MouseListener, MouseMotion
             switch (e.getKeyCode()) {
                 case KeyEvent.VK_DELETE:
                     // Delete selected item
-                    design.removeFurnitureItem(selectedItem);
-                    selectedItem = null;
-                    repaint();
+                    FurnitureItem removed = selectedItem;
+                    setSelectedItem(null);
+                    design.removeFurnitureItem(removed);
                     break;
                 case KeyEvent.VK_R:
                     // Rotate selected item by 45 degrees
                     selectedItem.setRotationAngle(
                             (selectedItem.getRotationAngle() + 45) % 360);
-                    repaint();
                     break;
                 case KeyEvent.VK_UP:
-                    // Move up
-                    if (selectedItem.getY() > 0.1) {
-                        selectedItem.setY(selectedItem.getY() - 0.1);
-                        repaint();
-                    }
+                    // Move up, applied with the next frame
+                    pendingNudgeY--;
+                    renderScheduler.requestFrame();
                     break;
                 case KeyEvent.VK_DOWN:
                     // Move down
-                    if (selectedItem.getY() < design.getRoom().getLength() - selectedItem.getDepth()) {
-                        selectedItem.setY(selectedItem.getY() + 0.1);
-                        repaint();
-                    }
+                    pendingNudgeY++;
+                    renderScheduler.requestFrame();
                     break;
                 case KeyEvent.VK_LEFT:
                     // Move left
-                    if (selectedItem.getX() > 0.1) {
-                        selectedItem.setX(selectedItem.getX() - 0.1);
-                        repaint();
-                    }
+                    pendingNudgeX--;
+                    renderScheduler.requestFrame();
                     break;
                 case KeyEvent.VK_RIGHT:
                     // Move right
-                    if (selectedItem.getX() < design.getRoom().getWidth() - selectedItem.getWidth()) {
-                        selectedItem.setX(selectedItem.getX() + 0.1);
-                        repaint();
-                    }
+                    pendingNudgeX++;
+                    renderScheduler.requestFrame();
                     break;
             }
         }
@@ -257,19 +489,23 @@ public class DesignCanvas2D extends JPanel implements MouseListener, MouseMotion
             switch (e.getKeyCode()) {
                 case KeyEvent.VK_UP:
                     panY += 10;
-                    repaint();
+                    panChanged = true;
+                    renderScheduler.requestFrame();
                     break;
                 case KeyEvent.VK_DOWN:
                     panY -= 10;
-                    repaint();
+                    panChanged = true;
+                    renderScheduler.requestFrame();
                     break;
                 case KeyEvent.VK_LEFT:
                     panX += 10;
-                    repaint();
+                    panChanged = true;
+                    renderScheduler.requestFrame();
                     break;
                 case KeyEvent.VK_RIGHT:
                     panX -= 10;
-                    repaint();
+                    panChanged = true;
+                    renderScheduler.requestFrame();
                     break;
             }
         }
@@ -304,20 +540,12 @@ public class DesignCanvas2D extends JPanel implements MouseListener, MouseMotion
                     // Reset pending furniture
                     pendingFurnitureType = null;
                     setCursor(Cursor.getDefaultCursor());
-
-                    repaint();
                 }
             } else {
                 // Handle selection as before
                 FurnitureItem item = getFurnitureItemAt(e.getX(), e.getY());
 
-                if (item != null) {
-                    selectedItem = item;
-                } else {
-                    selectedItem = null;
-                }
-
-                repaint();
+                setSelectedItem(item);
             }
         }
     }
@@ -332,6 +560,10 @@ public class DesignCanvas2D extends JPanel implements MouseListener, MouseMotion
             if (item != null) {
                 draggingItem = item;
                 dragStart = e.getPoint();
+
+                // Select on press, so the item leaves the cached layer once for the drag and the
+                // click that follows; release and click then find it already active
+                setSelectedItem(item);
             } else {
                 // Start panning if not on an item
                 dragStart = e.getPoint();
@@ -341,7 +573,15 @@ public class DesignCanvas2D extends JPanel implements MouseListener, MouseMotion
 
     @Override
     public void mouseReleased(MouseEvent e) {
+        // Show exactly where the item was dropped
+        renderScheduler.flush();
+        FurnitureItem dropped = draggingItem;
         draggingItem = null;
+        if (dropped != null && dropped != selectedItem) {
+            // Put the dropped item back into the cached layer
+            invalidateBackground();
+            repaintItem(dropped);
+        }
         dragStart = null;
     }
 
@@ -359,40 +599,103 @@ public class DesignCanvas2D extends JPanel implements MouseListener, MouseMotion
     @Override
     public void mouseDragged(MouseEvent e) {
         if (dragStart != null) {
+            // Only the latest position matters, it is applied with the next frame
+            dragTarget = e.getPoint();
+            renderScheduler.requestFrame();
+        }
+    }
+
+    /**
+     * Apply the input collected since the previous frame as a single change
+     */
+    private void renderFrame() {
+        if (design == null) {
+            return;
+        }
+
+        if (dragStart != null && dragTarget != null) {
             if (draggingItem != null) {
                 // Move the selected furniture item
                 Room room = design.getRoom();
-                int roomWidth = (int) (room.getWidth() * scale);
-                int roomLength = (int) (room.getLength() * scale);
-                int roomX = (getWidth() - roomWidth) / 2 + panX;
-                int roomY = (getHeight() - roomLength) / 2 + panY;
 
                 // Calculate the new position
-                double newX = draggingItem.getX() + (e.getX() - dragStart.x) / scale;
-                double newY = draggingItem.getY() + (e.getY() - dragStart.y) / scale;
+                double newX = draggingItem.getX() + (dragTarget.x - dragStart.x) / scale;
+                double newY = draggingItem.getY() + (dragTarget.y - dragStart.y) / scale;
 
                 // Constrain to room boundaries
                 newX = Math.max(0, Math.min(newX, room.getWidth() - draggingItem.getWidth()));
                 newY = Math.max(0, Math.min(newY, room.getLength() - draggingItem.getDepth()));
 
-                // Update item position
-                draggingItem.setX(newX);
-                draggingItem.setY(newY);
-
-                dragStart = e.getPoint();
-                repaint();
+                // Update item position, as one change
+                double x = newX;
+                double y = newY;
+                design.batch(() -> {
+                    draggingItem.setX(x);
+                    draggingItem.setY(y);
+                });
             } else {
                 // Pan the view
-                int dx = e.getX() - dragStart.x;
-                int dy = e.getY() - dragStart.y;
+                panX += dragTarget.x - dragStart.x;
+                panY += dragTarget.y - dragStart.y;
+                panChanged = true;
+            }
+            dragStart = dragTarget;
+        }
+        dragTarget = null;
 
-                panX += dx;
-                panY += dy;
+        if (selectedItem != null && (pendingNudgeX != 0 || pendingNudgeY != 0)) {
+            nudgeSelectedItem(pendingNudgeX, pendingNudgeY);
+        }
+        pendingNudgeX = 0;
+        pendingNudgeY = 0;
 
-                dragStart = e.getPoint();
-                repaint();
+        if (panChanged) {
+            panChanged = false;
+            invalidateBackground();
+            repaint();
+        }
+    }
+
+    /**
+     * Move the selected item by whole arrow key steps, keeping it inside the room
+     *
+     * @param stepsX Steps to the right, negative for left
+     * @param stepsY Steps down, negative for up
+     */
+    private void nudgeSelectedItem(int stepsX, int stepsY) {
+        Room room = design.getRoom();
+        double x = selectedItem.getX();
+        double y = selectedItem.getY();
+        for (int i = 0; i < Math.abs(stepsX); i++) {
+            if (stepsX < 0 && x > 0.1) {
+                x -= 0.1;
+            } else if (stepsX > 0 && x < room.getWidth() - selectedItem.getWidth()) {
+                x += 0.1;
+            }
+        }
+        for (int i = 0; i < Math.abs(stepsY); i++) {
+            if (stepsY < 0 && y > 0.1) {
+                y -= 0.1;
+            } else if (stepsY > 0 && y < room.getLength() - selectedItem.getDepth()) {
+                y += 0.1;
             }
         }
+
+        double newX = x;
+        double newY = y;
+        design.batch(() -> {
+            selectedItem.setX(newX);
+            selectedItem.setY(newY);
+        });
+    }
+
+    /**
+     * Get the scheduler pacing this canvas's frames, e.g. to change the frame rate or read its counters
+     *
+     * @return The render scheduler
+     */
+    public RenderScheduler getRenderScheduler() {
+        return renderScheduler;
     }
 
     @Override
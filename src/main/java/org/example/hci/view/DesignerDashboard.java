@@ -2,8 +2,10 @@ package org.example.hci.view;
 
 import org.example.hci.controller.DesignController;
 import org.example.hci.model.Design;
+import org.example.hci.model.DesignSummary;
 import org.example.hci.model.FurnitureItem;
 import org.example.hci.model.Room;
+import org.example.hci.storage.DesignLoader;
 
 import javax.swing.*;
 import javax.swing.border.Border;
@@ -11,21 +13,29 @@ import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.List;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
 
 /**
  * Main dashboard for furniture designers with enhanced modern UI
  */
 public class DesignerDashboard extends JFrame {
     private JPanel mainPanel;
-    private JList<Design> savedDesignsList;
-    private DefaultListModel<Design> designListModel;
+    private JList<DesignSummary> savedDesignsList;
+    private DefaultListModel<DesignSummary> designListModel;
     private DesignController designController;
 
     // Panels for different sections
     private JPanel toolbarPanel;
     private JPanel workspacePanel;
     private JPanel propertiesPanel;
+    private JLabel statusLabel;
+
+    // The 3D view owns render threads, so a single canvas is kept and reused
+    private DesignCanvas3D designCanvas3D;
 
     // Color scheme
     private final Color PRIMARY_COLOR = new Color(63, 81, 181);
@@ -57,6 +67,17 @@ public class DesignerDashboard extends JFrame {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
 
+        // Make sure queued saves reach the disk and render threads stop before the application exits
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                designController.shutdown();
+                if (designCanvas3D != null) {
+                    designCanvas3D.shutdown();
+                }
+            }
+        });
+
         // Set global UI properties
         configureUIDefaults();
 
@@ -113,6 +134,9 @@ public class DesignerDashboard extends JFrame {
 
         // Add main panel to frame
         add(mainPanel);
+
+        // Fill the sidebar in the background so the window shows up right away
+        loadSavedDesigns();
     }
 
     private void configureUIDefaults() {
@@ -318,12 +342,37 @@ public class DesignerDashboard extends JFrame {
                 savedDesignsList.clearSelection();
             }
         });
+    }
+
+    private void loadSavedDesigns() {
+        statusLabel.setText(" Loading saved designs...");
+
+        // Summaries come from the catalog index, furniture is only read when a design is opened
+        designController.loadSavedDesignSummaries(
+                summary -> SwingUtilities.invokeLater(() -> {
+                    if (!designListModel.contains(summary)) {
+                        designListModel.addElement(summary);
+                    }
+                }),
+                (file, error) -> System.err.println("Could not load design " + file.getFileName() + ": "
+                        + error.getMessage())
+        ).whenComplete((metrics, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                error.printStackTrace();
+                statusLabel.setText(" Could not load saved designs");
+            } else {
+                showLoadMetrics(metrics);
+            }
+        }));
+    }
 
-        // Load saved designs
-        List<Design> savedDesigns = designController.getSavedDesigns();
-        for (Design design : savedDesigns) {
-            designListModel.addElement(design);
+    private void showLoadMetrics(DesignLoader.LoadMetrics metrics) {
+        String status = String.format(" Loaded %d designs in %d ms",
+                metrics.getLoadedCount(), metrics.getTotalNanos() / 1_000_000);
+        if (metrics.getFailedCount() > 0) {
+            status += String.format(" (%d could not be read)", metrics.getFailedCount());
         }
+        statusLabel.setText(status);
     }
 
     private void createWorkspace() {
@@ -476,7 +525,7 @@ public class DesignerDashboard extends JFrame {
         statusBar.setBorder(BorderFactory.createMatteBorder(1, 0, 0, 0, BORDER_COLOR));
         statusBar.setPreferredSize(new Dimension(getWidth(), 25));
 
-        JLabel statusLabel = new JLabel(" Ready");
+        statusLabel = new JLabel(" Ready");
         statusLabel.setFont(new Font("Segoe UI", Font.PLAIN, 11));
         statusLabel.setForeground(new Color(127, 140, 141));
 
@@ -537,29 +586,53 @@ public class DesignerDashboard extends JFrame {
     private void saveCurrentDesign() {
         Design currentDesign = designController.getCurrentDesign();
         if (currentDesign != null) {
-            designController.saveDesign(currentDesign);
-
-            // Update list if needed
-            if (!designListModel.contains(currentDesign)) {
-                designListModel.addElement(currentDesign);
-            }
-
-            showInfoMessage("Design saved successfully", "Save Complete");
+            statusLabel.setText(" Saving " + currentDesign.getName() + "...");
+
+            // The write happens in the background, the list is updated once it is on disk
+            designController.saveDesignAsync(currentDesign).whenComplete((summary, error) ->
+                    SwingUtilities.invokeLater(() -> {
+                        if (error != null) {
+                            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                            if (cause instanceof CancellationException) {
+                                // The design was deleted while it was being saved
+                                statusLabel.setText(" Save discarded, the design was deleted");
+                                return;
+                            }
+                            cause.printStackTrace();
+                            statusLabel.setText(" Save failed");
+                            showErrorMessage("Could not save design: " + cause.getMessage(), "Save Error");
+                            return;
+                        }
+
+                        // Update list entry, or add it if this is a new design
+                        int index = designListModel.indexOf(summary);
+                        if (index >= 0) {
+                            designListModel.set(index, summary);
+                        } else {
+                            designListModel.addElement(summary);
+                        }
+                        statusLabel.setText(" Saved " + summary.getName());
+                    }));
         } else {
             showErrorMessage("No design to save", "Save Error");
         }
     }
 
     private void openSelectedDesign() {
-        Design selectedDesign = savedDesignsList.getSelectedValue();
+        DesignSummary selectedDesign = savedDesignsList.getSelectedValue();
         if (selectedDesign != null) {
-            designController.setCurrentDesign(selectedDesign);
-            refreshWorkspace();
+            try {
+                designController.setCurrentDesign(designController.loadDesign(selectedDesign.getId()));
+                refreshWorkspace();
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                showErrorMessage("Could not open design: " + ex.getMessage(), "Open Error");
+            }
         }
     }
 
     private void deleteSelectedDesign() {
-        Design selectedDesign = savedDesignsList.getSelectedValue();
+        DesignSummary selectedDesign = savedDesignsList.getSelectedValue();
         if (selectedDesign != null) {
             int confirm = JOptionPane.showConfirmDialog(
                     this,
@@ -569,7 +642,7 @@ public class DesignerDashboard extends JFrame {
                     JOptionPane.WARNING_MESSAGE);
 
             if (confirm == JOptionPane.YES_OPTION) {
-                designController.deleteDesign(selectedDesign);
+                designController.deleteDesign(selectedDesign.getId());
                 designListModel.removeElement(selectedDesign);
             }
         }
@@ -591,12 +664,14 @@ public class DesignerDashboard extends JFrame {
     private void switchTo3DView() {
         workspacePanel.removeAll();
 
-        // Create a 3D canvas with current design
-        DesignCanvas3D canvas = new DesignCanvas3D();
-        canvas.setDesign(designController.getCurrentDesign());
-        canvas.setBackground(Color.WHITE);
+        // Show the 3D canvas with current design, creating it the first time
+        if (designCanvas3D == null) {
+            designCanvas3D = new DesignCanvas3D();
+            designCanvas3D.setBackground(Color.WHITE);
+        }
+        designCanvas3D.setDesign(designController.getCurrentDesign());
 
-        workspacePanel.add(canvas, BorderLayout.CENTER);
+        workspacePanel.add(designCanvas3D, BorderLayout.CENTER);
         workspacePanel.revalidate();
         workspacePanel.repaint();
     }
@@ -703,13 +778,13 @@ public class DesignerDashboard extends JFrame {
                 panel.setBackground(PANEL_COLOR);
             }
 
-            if (value instanceof Design) {
-                Design design = (Design) value;
+            if (value instanceof DesignSummary) {
+                DesignSummary design = (DesignSummary) value;
 
                 // Create a thumbnail icon (placeholder)
                 JPanel thumbnailPanel = new JPanel();
                 thumbnailPanel.setPreferredSize(new Dimension(40, 40));
-                thumbnailPanel.setBackground(design.getRoom().getWallColor());
+                thumbnailPanel.setBackground(design.getWallColor());
                 thumbnailPanel.setBorder(BorderFactory.createLineBorder(BORDER_COLOR));
 
                 // Create name label
@@ -718,9 +793,9 @@ public class DesignerDashboard extends JFrame {
                 nameLabel.setForeground(TEXT_COLOR);
 
                 // Create details label
-                Room room = design.getRoom();
-                JLabel detailsLabel = new JLabel(String.format("%.1fm × %.1fm × %.1fm",
-                        room.getWidth(), room.getLength(), room.getHeight()));
+                JLabel detailsLabel = new JLabel(String.format("%.1fm × %.1fm × %.1fm · %d items",
+                        design.getRoomWidth(), design.getRoomLength(), design.getRoomHeight(),
+                        design.getItemCount()));
                 detailsLabel.setFont(new Font("Segoe UI", Font.ITALIC, 10));
                 detailsLabel.setForeground(new Color(127, 140, 141));
 
@@ -1,6 +1,7 @@
 package org.example.hci.view;
 
-import org.example.hci.auth.MongoDBAuthService;
+import org.example.hci.auth.AsyncAuthService;
+import org.example.hci.auth.CredentialAuthService;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -10,6 +11,9 @@ import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.geom.RoundRectangle2D;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Enhanced login screen for designer authentication with MongoDB integration
@@ -22,7 +26,8 @@ public class LoginView extends JFrame implements ActionListener {
     private JLabel statusLabel;
     private JCheckBox rememberMeCheckbox;
 
-    private MongoDBAuthService authService;
+    private AsyncAuthService authService;
+    private CompletableFuture<Boolean> pendingLogin;
 
     // Colors
     private final Color PRIMARY_COLOR = new Color(63, 81, 181); // Indigo
@@ -33,8 +38,9 @@ public class LoginView extends JFrame implements ActionListener {
 
     public LoginView() {
         try {
-            // Initialize the MongoDB authentication service
-            authService = new MongoDBAuthService();
+            // Open the credential store in the background while the user types
+            authService = new AsyncAuthService(CredentialAuthService::getShared);
+            authService.warmUp();
 
             // Configure the frame
             setTitle("Furniture Design Studio - Login");
@@ -373,35 +379,39 @@ public class LoginView extends JFrame implements ActionListener {
             loginButton.setEnabled(false);
             loginButton.setText("LOGGING IN...");
 
-            // Simulate a slight delay to add a more realistic feel
-            Timer timer = new Timer(800, event -> {
-                try {
-                    if (authService.authenticate(username, password)) {
-                        // Update last login time
-                        authService.updateLastLogin(username);
-
-                        // Open the main application window
-                        openMainApplication();
-                    } else {
-                        statusLabel.setText("Invalid username or password");
-                        loginButton.setEnabled(true);
-                        loginButton.setText("LOGIN");
-                    }
-                } catch (Exception ex) {
-                    statusLabel.setText("Login error: " + ex.getMessage());
-                    loginButton.setEnabled(true);
-                    loginButton.setText("LOGIN");
-                    ex.printStackTrace();
-                }
-            });
-            timer.setRepeats(false);
-            timer.start();
+            // Authenticate off the event dispatch thread and come back to it with the answer
+            CompletableFuture<Boolean> login = authService.login(username, password, AsyncAuthService.DEFAULT_TIMEOUT);
+            pendingLogin = login;
+            login.whenCompleteAsync((valid, error) -> loginFinished(login, valid, error), SwingUtilities::invokeLater);
         } else if (e.getSource() == signUpButton) {
             // Open the sign up screen
             openSignUpScreen();
         }
     }
 
+    private void loginFinished(CompletableFuture<Boolean> login, Boolean valid, Throwable error) {
+        if (login != pendingLogin || error instanceof CancellationException) {
+            return;
+        }
+        pendingLogin = null;
+
+        if (error == null && valid) {
+            openMainApplication();
+            return;
+        }
+        if (error instanceof TimeoutException) {
+            statusLabel.setText("Login timed out, please try again");
+        } else if (error != null) {
+            // The account store could not be read, which says nothing about the credentials
+            statusLabel.setText("Could not reach the account server, please try again");
+            error.printStackTrace();
+        } else {
+            statusLabel.setText("Invalid username or password");
+        }
+        loginButton.setEnabled(true);
+        loginButton.setText("LOGIN");
+    }
+
     private void openMainApplication() {
         // Close login window
         setVisible(false);
@@ -415,6 +425,12 @@ public class LoginView extends JFrame implements ActionListener {
     }
 
     private void openSignUpScreen() {
+        // Nobody is waiting for a login still running any more
+        if (pendingLogin != null) {
+            pendingLogin.cancel(true);
+            pendingLogin = null;
+        }
+
         // Close login window
         setVisible(false);
         dispose();
@@ -1,6 +1,7 @@
 package org.example.hci.view;
 
-import org.example.hci.auth.MongoDBAuthService;
+import org.example.hci.auth.CredentialAuthService;
+import org.example.hci.auth.DuplicateEmailException;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -24,7 +25,7 @@ public class SignUpView extends JFrame implements ActionListener {
     private JButton backToLoginButton;
     private JLabel statusLabel;
 
-    private MongoDBAuthService authService;
+    private CredentialAuthService authService;
 
     // Colors - matching LoginView
     private final Color PRIMARY_COLOR = new Color(63, 81, 181); // Indigo
@@ -36,8 +37,8 @@ public class SignUpView extends JFrame implements ActionListener {
 
     public SignUpView() {
         try {
-            // Initialize MongoDB authentication service
-            authService = new MongoDBAuthService();
+            // Initialize the authentication service, MongoDB or the local credential store
+            authService = CredentialAuthService.getShared();
 
             // Configure the frame
             setTitle("Furniture Design Studio - Sign Up");
@@ -436,6 +437,11 @@ public class SignUpView extends JFrame implements ActionListener {
                     signUpButton.setEnabled(true);
                     signUpButton.setText("SIGN UP");
                 }
+            } catch (DuplicateEmailException ex) {
+                statusLabel.setForeground(ERROR_COLOR);
+                statusLabel.setText("Email address already registered");
+                signUpButton.setEnabled(true);
+                signUpButton.setText("SIGN UP");
             } catch (Exception ex) {
                 // Show error message
                 statusLabel.setForeground(ERROR_COLOR);
@@ -0,0 +1,277 @@
+package org.example.hci.view.render;
+
+import org.example.hci.model.Room;
+
+/**
+ * Perspective camera orbiting a target point in room space.
+ *
+ * The position is kept as a yaw, a pitch and a distance around the target, which
+ * makes orbiting, dollying and interpolating between cameras simple. A yaw of 0
+ * looks along the room's y axis, and the yaw and pitch play the same role as the
+ * view angle and elevation of the old fixed projection.
+ */
+public class Camera {
+    public static final double MIN_PITCH = 5;
+    public static final double MAX_PITCH = 89;
+
+    /**
+     * Standard views of a room
+     */
+    public enum Preset {
+        PERSPECTIVE(45, 30),
+        TOP(0, MAX_PITCH),
+        FRONT(0, 15),
+        SIDE(90, 15);
+
+        private final double yaw;
+        private final double pitch;
+
+        Preset(double yaw, double pitch) {
+            this.yaw = yaw;
+            this.pitch = pitch;
+        }
+    }
+
+    private double targetX;
+    private double targetY;
+    private double targetZ;
+    private double yaw;
+    private double pitch;
+    private double distance;
+    private double fieldOfView = 45; // Vertical, in degrees
+    private double near = 0.1;
+    private double far = 200;
+
+    public Camera() {
+        this.yaw = Preset.PERSPECTIVE.yaw;
+        this.pitch = Preset.PERSPECTIVE.pitch;
+        this.distance = 10;
+    }
+
+    public Camera(Camera other) {
+        set(other);
+    }
+
+    /**
+     * Create a camera showing a whole room from one of the standard views
+     *
+     * @param preset The view
+     * @param room The room to frame
+     * @return The camera
+     */
+    public static Camera preset(Preset preset, Room room) {
+        Camera camera = new Camera();
+        camera.yaw = preset.yaw;
+        camera.pitch = preset.pitch;
+        camera.targetX = room.getWidth() / 2;
+        camera.targetY = room.getLength() / 2;
+        camera.targetZ = 0;
+
+        // Back off until the sphere around the room fits the field of view
+        double radius = Math.sqrt(room.getWidth() * room.getWidth() + room.getLength() * room.getLength()
+                + room.getHeight() * room.getHeight()) / 2;
+        camera.distance = radius / Math.sin(Math.toRadians(camera.fieldOfView / 2));
+        return camera;
+    }
+
+    /**
+     * Copy the state of another camera
+     *
+     * @param other The camera to copy
+     */
+    public void set(Camera other) {
+        this.targetX = other.targetX;
+        this.targetY = other.targetY;
+        this.targetZ = other.targetZ;
+        this.yaw = other.yaw;
+        this.pitch = other.pitch;
+        this.distance = other.distance;
+        this.fieldOfView = other.fieldOfView;
+        this.near = other.near;
+        this.far = other.far;
+    }
+
+    /**
+     * Rotate the camera around its target
+     *
+     * @param deltaYaw The change of the horizontal angle in degrees
+     * @param deltaPitch The change of the elevation in degrees
+     */
+    public void orbit(double deltaYaw, double deltaPitch) {
+        yaw = normalizeAngle(yaw + deltaYaw);
+        pitch = Math.max(MIN_PITCH, Math.min(MAX_PITCH, pitch + deltaPitch));
+    }
+
+    /**
+     * Move the camera and its target sideways and up in the view plane
+     *
+     * @param right The distance to the right in meters
+     * @param up The distance up in meters
+     */
+    public void pan(double right, double up) {
+        double yawRad = Math.toRadians(yaw);
+        double pitchRad = Math.toRadians(pitch);
+
+        // Screen up is the opposite of the down vector of the view basis
+        targetX += right * Math.cos(yawRad) - up * Math.sin(pitchRad) * Math.sin(yawRad);
+        targetY += -right * Math.sin(yawRad) - up * Math.sin(pitchRad) * Math.cos(yawRad);
+        targetZ += up * Math.cos(pitchRad);
+    }
+
+    /**
+     * Move the camera towards or away from its target
+     *
+     * @param factor The factor the distance is multiplied by, below 1 to move closer
+     */
+    public void dolly(double factor) {
+        distance = Math.max(near * 2, Math.min(far / 2, distance * factor));
+    }
+
+    /**
+     * Set this camera to a state between two others
+     *
+     * @param from The state at 0
+     * @param to The state at 1
+     * @param t The position between the two, from 0 to 1
+     */
+    public void interpolate(Camera from, Camera to, double t) {
+        targetX = from.targetX + (to.targetX - from.targetX) * t;
+        targetY = from.targetY + (to.targetY - from.targetY) * t;
+        targetZ = from.targetZ + (to.targetZ - from.targetZ) * t;
+
+        // Turn the short way round, and zoom evenly however far the distances are apart
+        yaw = normalizeAngle(from.yaw + normalizeAngle(to.yaw - from.yaw) * t);
+        pitch = from.pitch + (to.pitch - from.pitch) * t;
+        distance = from.distance * Math.pow(to.distance / from.distance, t);
+        fieldOfView = from.fieldOfView + (to.fieldOfView - from.fieldOfView) * t;
+        near = from.near + (to.near - from.near) * t;
+        far = from.far + (to.far - from.far) * t;
+    }
+
+    /**
+     * Check whether two cameras show the same view
+     *
+     * @param other The camera to compare with
+     * @return True if all parameters are equal
+     */
+    public boolean sameView(Camera other) {
+        return targetX == other.targetX && targetY == other.targetY && targetZ == other.targetZ
+                && yaw == other.yaw && pitch == other.pitch && distance == other.distance
+                && fieldOfView == other.fieldOfView && near == other.near && far == other.far;
+    }
+
+    public double getPositionX() {
+        return targetX + distance * Math.cos(Math.toRadians(pitch)) * Math.sin(Math.toRadians(yaw));
+    }
+
+    public double getPositionY() {
+        return targetY + distance * Math.cos(Math.toRadians(pitch)) * Math.cos(Math.toRadians(yaw));
+    }
+
+    public double getPositionZ() {
+        return targetZ + distance * Math.sin(Math.toRadians(pitch));
+    }
+
+    /**
+     * Get the direction of the ray from the camera position through a point of the view,
+     * matching the projection of {@link ViewProjection#update(Camera, int, int)}
+     *
+     * @param screenX The column in pixels
+     * @param screenY The row in pixels
+     * @param width The width of the view in pixels
+     * @param height The height of the view in pixels
+     * @return The unit direction as x, y, z in room space
+     */
+    public double[] rayDirection(double screenX, double screenY, int width, int height) {
+        double yawRad = Math.toRadians(yaw);
+        double pitchRad = Math.toRadians(pitch);
+        double focal = (height / 2.0) / Math.tan(Math.toRadians(fieldOfView) / 2);
+        double right = (screenX - width / 2.0) / focal;
+        double down = (screenY - height / 2.0) / focal;
+
+        // Forward plus the offsets along the right and down vectors of the view basis
+        double x = -Math.cos(pitchRad) * Math.sin(yawRad) + right * Math.cos(yawRad)
+                + down * Math.sin(pitchRad) * Math.sin(yawRad);
+        double y = -Math.cos(pitchRad) * Math.cos(yawRad) - right * Math.sin(yawRad)
+                + down * Math.sin(pitchRad) * Math.cos(yawRad);
+        double z = -Math.sin(pitchRad) - down * Math.cos(pitchRad);
+        double length = Math.sqrt(x * x + y * y + z * z);
+        return new double[]{x / length, y / length, z / length};
+    }
+
+    public double getTargetX() {
+        return targetX;
+    }
+
+    public double getTargetY() {
+        return targetY;
+    }
+
+    public double getTargetZ() {
+        return targetZ;
+    }
+
+    public void setTarget(double x, double y, double z) {
+        this.targetX = x;
+        this.targetY = y;
+        this.targetZ = z;
+    }
+
+    public double getYaw() {
+        return yaw;
+    }
+
+    public double getPitch() {
+        return pitch;
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+    public double getFieldOfView() {
+        return fieldOfView;
+    }
+
+    public void setFieldOfView(double fieldOfView) {
+        this.fieldOfView = Math.max(1, Math.min(170, fieldOfView));
+    }
+
+    public double getNear() {
+        return near;
+    }
+
+    public double getFar() {
+        return far;
+    }
+
+    /**
+     * Set the clipping planes
+     *
+     * @param near The distance of the near plane in meters, must be positive
+     * @param far The distance of the far plane in meters, must be beyond the near plane
+     */
+    public void setClipPlanes(double near, double far) {
+        if (near <= 0 || far <= near) {
+            throw new IllegalArgumentException("Invalid clip planes: " + near + ", " + far);
+        }
+        this.near = near;
+        this.far = far;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Camera[target=(%.2f, %.2f, %.2f), yaw=%.1f, pitch=%.1f, distance=%.2f, fov=%.1f]",
+                targetX, targetY, targetZ, yaw, pitch, distance, fieldOfView);
+    }
+
+    private static double normalizeAngle(double angle) {
+        angle %= 360;
+        if (angle > 180) {
+            angle -= 360;
+        } else if (angle <= -180) {
+            angle += 360;
+        }
+        return angle;
+    }
+}
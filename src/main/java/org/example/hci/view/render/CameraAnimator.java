@@ -0,0 +1,89 @@
+package org.example.hci.view.render;
+
+/**
+ * Moves a camera smoothly from its current state to a destination.
+ *
+ * The position along the way is computed from {@link System#nanoTime()}, so the
+ * animation takes the same time however many frames can be drawn. The owner calls
+ * {@link #step(long)} once per frame and only schedules another frame while it
+ * returns true, so nothing runs once the camera has come to rest.
+ */
+public class CameraAnimator {
+    public static final long DEFAULT_DURATION_NANOS = 250_000_000L;
+
+    private final Camera camera;
+    private final Camera from = new Camera();
+    private final Camera to = new Camera();
+    private long startNanos;
+    private long durationNanos;
+    private boolean animating = false;
+
+    /**
+     * Create an animator
+     *
+     * @param camera The camera to move, changed in place by {@link #step(long)}
+     */
+    public CameraAnimator(Camera camera) {
+        this.camera = camera;
+    }
+
+    /**
+     * Start moving towards a destination, continuing smoothly from wherever the camera is now
+     *
+     * @param destination The state to end up in, copied
+     * @param durationNanos How long the move takes
+     */
+    public void animateTo(Camera destination, long durationNanos) {
+        from.set(camera);
+        to.set(destination);
+        this.startNanos = System.nanoTime();
+        this.durationNanos = Math.max(1, durationNanos);
+        this.animating = true;
+    }
+
+    public void animateTo(Camera destination) {
+        animateTo(destination, DEFAULT_DURATION_NANOS);
+    }
+
+    /**
+     * Get where the camera will end up, e.g. to add another step to a move that is still running
+     *
+     * @return A copy of the destination, or of the camera itself when at rest
+     */
+    public Camera getDestination() {
+        return new Camera(animating ? to : camera);
+    }
+
+    /**
+     * Advance the camera to its state at a point in time
+     *
+     * @param nowNanos The current {@link System#nanoTime()}
+     * @return True if the camera is still moving and another frame is needed
+     */
+    public boolean step(long nowNanos) {
+        if (!animating) {
+            return false;
+        }
+        double t = Math.min(1, (double) (nowNanos - startNanos) / durationNanos);
+        if (t >= 1) {
+            camera.set(to);
+            animating = false;
+            return false;
+        }
+
+        // Ease in and out so moves neither jump nor stop abruptly
+        camera.interpolate(from, to, t * t * (3 - 2 * t));
+        return true;
+    }
+
+    /**
+     * Stop the camera where it is, e.g. when the user takes over by dragging
+     */
+    public void stop() {
+        animating = false;
+    }
+
+    public boolean isAnimating() {
+        return animating;
+    }
+}
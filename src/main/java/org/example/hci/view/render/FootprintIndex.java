@@ -0,0 +1,207 @@
+package org.example.hci.view.render;
+
+import org.example.hci.model.Design;
+import org.example.hci.model.DesignChangeEvent;
+import org.example.hci.model.DesignChangeListener;
+import org.example.hci.model.FurnitureItem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uniform grid over the floor plan footprints of a design's furniture.
+ *
+ * Each item is registered in every grid cell its rotated rectangle overlaps, so a
+ * point query only tests the few items sharing one cell instead of the whole design.
+ * Hits are exact for rotated items, and when footprints overlap the item drawn last
+ * (the top-most one) wins. The index listens to the design and updates only the
+ * items that changed. All coordinates are in meters, in room space.
+ */
+public class FootprintIndex implements DesignChangeListener {
+    public static final double DEFAULT_CELL_SIZE = 1.0;
+
+    private final double cellSize;
+    private final Map<Long, List<Footprint>> cells = new HashMap<>();
+    private final Map<FurnitureItem, Footprint> footprints = new IdentityHashMap<>();
+    private Design design;
+    private long nextOrder;
+
+    public FootprintIndex() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Create an index with a custom grid resolution
+     *
+     * @param cellSize The edge length of a grid cell in meters
+     */
+    public FootprintIndex(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Index a design and follow its changes, releasing the previous one
+     *
+     * @param design The design to index, or null to clear the index
+     */
+    public void setDesign(Design design) {
+        if (this.design != null) {
+            this.design.removeDesignChangeListener(this);
+        }
+        this.design = design;
+        if (design != null) {
+            design.addDesignChangeListener(this);
+        }
+        rebuild();
+    }
+
+    /**
+     * Re-index every item of the design, e.g. after its item order was changed
+     */
+    public void rebuild() {
+        cells.clear();
+        footprints.clear();
+        nextOrder = 0;
+        if (design != null) {
+            for (FurnitureItem item : design.getFurnitureItems()) {
+                insert(item, nextOrder++);
+            }
+        }
+    }
+
+    @Override
+    public void designChanged(DesignChangeEvent event) {
+        for (FurnitureItem item : event.getRemovedItems()) {
+            remove(item);
+        }
+        for (FurnitureItem item : event.getChangedItems()) {
+            Footprint footprint = remove(item);
+            if (footprint != null) {
+                insert(item, footprint.order);
+            }
+        }
+        // New items are appended to the design, so they are drawn on top of everything else
+        for (FurnitureItem item : event.getAddedItems()) {
+            insert(item, nextOrder++);
+        }
+    }
+
+    /**
+     * Find the top-most item whose footprint contains a point
+     *
+     * @param x The x coordinate in meters
+     * @param y The y coordinate in meters
+     * @return The top-most item at the point, or null if none
+     */
+    public FurnitureItem itemAt(double x, double y) {
+        List<Footprint> cell = cells.get(key(cellOf(x), cellOf(y)));
+        if (cell == null) {
+            return null;
+        }
+
+        Footprint top = null;
+        for (Footprint footprint : cell) {
+            if ((top == null || footprint.order > top.order) && footprint.contains(x, y)) {
+                top = footprint;
+            }
+        }
+        return top == null ? null : top.item;
+    }
+
+    /**
+     * Get the number of indexed items
+     *
+     * @return The item count
+     */
+    public int size() {
+        return footprints.size();
+    }
+
+    private void insert(FurnitureItem item, long order) {
+        Footprint footprint = new Footprint(item, order);
+        footprints.put(item, footprint);
+        for (int cx = footprint.minCellX; cx <= footprint.maxCellX; cx++) {
+            for (int cy = footprint.minCellY; cy <= footprint.maxCellY; cy++) {
+                cells.computeIfAbsent(key(cx, cy), k -> new ArrayList<>(4)).add(footprint);
+            }
+        }
+    }
+
+    private Footprint remove(FurnitureItem item) {
+        Footprint footprint = footprints.remove(item);
+        if (footprint == null) {
+            return null;
+        }
+        for (int cx = footprint.minCellX; cx <= footprint.maxCellX; cx++) {
+            for (int cy = footprint.minCellY; cy <= footprint.maxCellY; cy++) {
+                long key = key(cx, cy);
+                List<Footprint> cell = cells.get(key);
+                if (cell != null) {
+                    cell.remove(footprint);
+                    if (cell.isEmpty()) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+        return footprint;
+    }
+
+    private int cellOf(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Oriented rectangle of one item, rotated about its center like the 2D canvas draws it
+     */
+    private class Footprint {
+        private final FurnitureItem item;
+        private final long order;
+        private final double centerX;
+        private final double centerY;
+        private final double halfWidth;
+        private final double halfDepth;
+        private final double cos;
+        private final double sin;
+        private final int minCellX;
+        private final int minCellY;
+        private final int maxCellX;
+        private final int maxCellY;
+
+        Footprint(FurnitureItem item, long order) {
+            this.item = item;
+            this.order = order;
+            this.halfWidth = item.getWidth() / 2;
+            this.halfDepth = item.getDepth() / 2;
+            this.centerX = item.getX() + halfWidth;
+            this.centerY = item.getY() + halfDepth;
+            double angle = Math.toRadians(item.getRotationAngle());
+            this.cos = Math.cos(angle);
+            this.sin = Math.sin(angle);
+
+            // Axis-aligned bounds of the rotated rectangle
+            double extentX = Math.abs(halfWidth * cos) + Math.abs(halfDepth * sin);
+            double extentY = Math.abs(halfWidth * sin) + Math.abs(halfDepth * cos);
+            this.minCellX = cellOf(centerX - extentX);
+            this.maxCellX = cellOf(centerX + extentX);
+            this.minCellY = cellOf(centerY - extentY);
+            this.maxCellY = cellOf(centerY + extentY);
+        }
+
+        boolean contains(double x, double y) {
+            // Rotate the point into the item's frame
+            double dx = x - centerX;
+            double dy = y - centerY;
+            double localX = dx * cos + dy * sin;
+            double localY = -dx * sin + dy * cos;
+            return Math.abs(localX) <= halfWidth && Math.abs(localY) <= halfDepth;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.hci.view.render;
+
+/**
+ * Statistics about how long frames take to draw and how often they are drawn.
+ *
+ * Averages are exponential moving averages, so they follow the recent frames. A
+ * pause between frames longer than {@link #IDLE_GAP_NANOS} is taken as the view
+ * being at rest and does not count towards the frame rate.
+ */
+public class FrameTimer {
+    public static final long IDLE_GAP_NANOS = 250_000_000L;
+    private static final double SMOOTHING = 0.1;
+
+    private long frameCount = 0;
+    private long lastFrameNanos = 0;
+    private long maxFrameNanos = 0;
+    private double averageFrameNanos = 0;
+    private double averageIntervalNanos = 0;
+    private long lastStartNanos = -1;
+
+    /**
+     * Mark the start of a frame
+     *
+     * @return The start time to pass to {@link #end(long)}
+     */
+    public long begin() {
+        long now = System.nanoTime();
+        if (lastStartNanos >= 0) {
+            long interval = now - lastStartNanos;
+            if (interval < IDLE_GAP_NANOS) {
+                averageIntervalNanos = averageIntervalNanos == 0
+                        ? interval
+                        : averageIntervalNanos + (interval - averageIntervalNanos) * SMOOTHING;
+            }
+        }
+        lastStartNanos = now;
+        return now;
+    }
+
+    /**
+     * Mark the end of a frame
+     *
+     * @param startNanos The value returned by {@link #begin()}
+     */
+    public void end(long startNanos) {
+        long duration = System.nanoTime() - startNanos;
+        frameCount++;
+        lastFrameNanos = duration;
+        maxFrameNanos = Math.max(maxFrameNanos, duration);
+        averageFrameNanos = frameCount == 1
+                ? duration
+                : averageFrameNanos + (duration - averageFrameNanos) * SMOOTHING;
+    }
+
+    /**
+     * Forget all frames so far
+     */
+    public void reset() {
+        frameCount = 0;
+        lastFrameNanos = 0;
+        maxFrameNanos = 0;
+        averageFrameNanos = 0;
+        averageIntervalNanos = 0;
+        lastStartNanos = -1;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public long getLastFrameNanos() {
+        return lastFrameNanos;
+    }
+
+    public long getMaxFrameNanos() {
+        return maxFrameNanos;
+    }
+
+    public double getAverageFrameNanos() {
+        return averageFrameNanos;
+    }
+
+    /**
+     * Get the rate frames were drawn at while the view was moving
+     *
+     * @return Frames per second, 0 if there were no consecutive frames yet
+     */
+    public double getFramesPerSecond() {
+        return averageIntervalNanos == 0 ? 0 : 1e9 / averageIntervalNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.0f fps, frame %.1f ms avg, %.1f ms last, %.1f ms max",
+                getFramesPerSecond(), averageFrameNanos / 1e6, lastFrameNanos / 1e6, maxFrameNanos / 1e6);
+    }
+}
@@ -0,0 +1,515 @@
+package org.example.hci.view.render;
+
+import org.example.hci.model.Design;
+import org.example.hci.model.DesignChangeEvent;
+import org.example.hci.model.FurnitureItem;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounding volume hierarchy over the furniture boxes of a design, for picking items
+ * with a ray from the camera.
+ *
+ * Nodes and items live in flat arrays. Each leaf holds a few items stored next to
+ * each other, and inner nodes are split at the median of the item centers along
+ * their longest axis. Items are hit tested as the rotated boxes the renderer draws,
+ * so clicks on the empty corners of a rotated item's bounds miss it.
+ *
+ * When items are only moved, resized or rotated the tree is refitted: the boxes of
+ * the changed items are updated and the bounds of the nodes above them grown or
+ * shrunk, without changing which node holds which item. Adding or removing items
+ * rebuilds the tree on the next pick. All methods must be called on the thread
+ * that changes the design, normally the Event Dispatch Thread.
+ */
+public class FurnitureBvh {
+    private static final int LEAF_SIZE = 4;
+
+    private Design design;
+    private boolean dirty = true;
+
+    // Items in leaf order, with the rotated box of each
+    private FurnitureItem[] items = new FurnitureItem[0];
+    private double[] boxes = new double[0]; // centerX, centerY, halfWidth, halfDepth, height, cos, sin
+    private int[] itemLeaves = new int[0];
+    private final Map<FurnitureItem, Integer> slots = new IdentityHashMap<>();
+    private int itemCount = 0;
+
+    // Nodes: bounds as min x, y, z, max x, y, z, then either two children or a range of items
+    private double[] nodeBounds = new double[0];
+    private int[] nodeLeft = new int[0];
+    private int[] nodeRight = new int[0];
+    private int[] nodeFirst = new int[0];
+    private int[] nodeItemCount = new int[0];
+    private int[] nodeParent = new int[0];
+    private int nodeCount = 0;
+
+    private int[] stack = new int[64];
+
+    // Distance of the last hit found by hitItem, to avoid returning two values
+    private double lastHitT;
+    private long rebuildCount = 0;
+    private long refitCount = 0;
+
+    /**
+     * Follow a design. The tree is built on the first pick.
+     *
+     * @param design The design whose items are picked, may be null
+     */
+    public void setDesign(Design design) {
+        if (design != this.design) {
+            this.design = design;
+            dirty = true;
+        }
+    }
+
+    /**
+     * Rebuild the tree on the next pick, e.g. after changes were made while it was not listening
+     */
+    public void invalidate() {
+        dirty = true;
+    }
+
+    /**
+     * Bring the tree up to date with changes to the design, to be called from a design change listener
+     *
+     * @param event The changes
+     */
+    public void designChanged(DesignChangeEvent event) {
+        if (dirty || event.getDesign() != design) {
+            return;
+        }
+        if (!event.getAddedItems().isEmpty() || !event.getRemovedItems().isEmpty()) {
+            dirty = true;
+            return;
+        }
+        for (FurnitureItem item : event.getChangedItems()) {
+            Integer slot = slots.get(item);
+            if (slot == null) {
+                dirty = true;
+                return;
+            }
+            refit(slot);
+        }
+    }
+
+    /**
+     * Find the item seen at a point of the view
+     *
+     * @param camera The camera the view is rendered with
+     * @param screenX The column in pixels
+     * @param screenY The row in pixels
+     * @param width The width of the view in pixels
+     * @param height The height of the view in pixels
+     * @return The nearest item hit, or null if the ray hits none
+     */
+    public PickResult pick(Camera camera, double screenX, double screenY, int width, int height) {
+        double[] direction = camera.rayDirection(screenX, screenY, width, height);
+        return pick(camera.getPositionX(), camera.getPositionY(), camera.getPositionZ(),
+                direction[0], direction[1], direction[2]);
+    }
+
+    /**
+     * Find the nearest item hit by a ray. Items the origin is inside of are ignored.
+     *
+     * @param originX The x coordinate the ray starts at, in meters from the room corner
+     * @param originY The y coordinate the ray starts at
+     * @param originZ The height the ray starts at
+     * @param directionX The x component of the ray direction, which need not be a unit vector
+     * @param directionY The y component of the ray direction
+     * @param directionZ The z component of the ray direction
+     * @return The nearest item hit, or null if the ray hits none
+     */
+    public PickResult pick(double originX, double originY, double originZ,
+                           double directionX, double directionY, double directionZ) {
+        if (dirty) {
+            rebuild();
+        }
+        if (nodeCount == 0) {
+            return null;
+        }
+        double inverseX = 1 / directionX;
+        double inverseY = 1 / directionY;
+        double inverseZ = 1 / directionZ;
+
+        int bestSlot = -1;
+        int bestFace = -1;
+        double bestT = Double.POSITIVE_INFINITY;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (enterNode(node, originX, originY, originZ, inverseX, inverseY, inverseZ) >= bestT) {
+                continue;
+            }
+            if (nodeLeft[node] < 0) {
+                int end = nodeFirst[node] + nodeItemCount[node];
+                for (int slot = nodeFirst[node]; slot < end; slot++) {
+                    int hit = hitItem(slot, originX, originY, originZ, directionX, directionY, directionZ, bestT);
+                    if (hit >= 0) {
+                        bestSlot = slot;
+                        bestFace = hit;
+                        bestT = lastHitT;
+                    }
+                }
+                continue;
+            }
+
+            // Visit the nearer child first so the farther one is more likely to be skipped
+            int left = nodeLeft[node];
+            int right = nodeRight[node];
+            double leftT = enterNode(left, originX, originY, originZ, inverseX, inverseY, inverseZ);
+            double rightT = enterNode(right, originX, originY, originZ, inverseX, inverseY, inverseZ);
+            if (top + 2 > stack.length) {
+                int[] grown = new int[stack.length * 2];
+                System.arraycopy(stack, 0, grown, 0, top);
+                stack = grown;
+            }
+            if (leftT < rightT) {
+                if (rightT < bestT) {
+                    stack[top++] = right;
+                }
+                if (leftT < bestT) {
+                    stack[top++] = left;
+                }
+            } else {
+                if (leftT < bestT) {
+                    stack[top++] = left;
+                }
+                if (rightT < bestT) {
+                    stack[top++] = right;
+                }
+            }
+        }
+
+        if (bestSlot < 0) {
+            return null;
+        }
+        return new PickResult(items[bestSlot], PickResult.Face.values()[bestFace], bestT,
+                originX + directionX * bestT, originY + directionY * bestT, originZ + directionZ * bestT);
+    }
+
+    /**
+     * Get the number of times the tree was built from scratch
+     *
+     * @return The rebuild count
+     */
+    public long getRebuildCount() {
+        return rebuildCount;
+    }
+
+    /**
+     * Get the number of item changes applied by refitting instead of rebuilding
+     *
+     * @return The refit count
+     */
+    public long getRefitCount() {
+        return refitCount;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    private void rebuild() {
+        dirty = false;
+        slots.clear();
+        List<FurnitureItem> designItems = design == null ? List.of() : design.getFurnitureItems();
+        itemCount = designItems.size();
+        if (items.length < itemCount) {
+            items = new FurnitureItem[itemCount];
+            boxes = new double[itemCount * 7];
+            itemLeaves = new int[itemCount];
+        }
+        int maxNodes = Math.max(1, 2 * itemCount);
+        if (nodeLeft.length < maxNodes) {
+            nodeBounds = new double[maxNodes * 6];
+            nodeLeft = new int[maxNodes];
+            nodeRight = new int[maxNodes];
+            nodeFirst = new int[maxNodes];
+            nodeItemCount = new int[maxNodes];
+            nodeParent = new int[maxNodes];
+        }
+        Arrays.fill(items, itemCount, items.length, null);
+        for (int i = 0; i < itemCount; i++) {
+            items[i] = designItems.get(i);
+            setBox(i);
+        }
+        nodeCount = 0;
+        if (itemCount > 0) {
+            build(0, itemCount, -1);
+        }
+        for (int i = 0; i < itemCount; i++) {
+            slots.put(items[i], i);
+        }
+        rebuildCount++;
+    }
+
+    /**
+     * Build the subtree over a range of items, reordering them so each leaf's items are adjacent
+     *
+     * @return The index of the subtree's root
+     */
+    private int build(int first, int end, int parent) {
+        int node = nodeCount++;
+        nodeParent[node] = parent;
+        nodeFirst[node] = first;
+        nodeItemCount[node] = end - first;
+        nodeLeft[node] = -1;
+        nodeRight[node] = -1;
+        if (end - first <= LEAF_SIZE) {
+            for (int slot = first; slot < end; slot++) {
+                itemLeaves[slot] = node;
+            }
+            updateBounds(node);
+            return node;
+        }
+
+        // Split at the median of the centers along the axis they spread furthest on
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int slot = first; slot < end; slot++) {
+            minX = Math.min(minX, boxes[slot * 7]);
+            maxX = Math.max(maxX, boxes[slot * 7]);
+            minY = Math.min(minY, boxes[slot * 7 + 1]);
+            maxY = Math.max(maxY, boxes[slot * 7 + 1]);
+        }
+        int axis = maxX - minX >= maxY - minY ? 0 : 1;
+        int middle = (first + end) >>> 1;
+        select(first, end, middle, axis);
+
+        nodeLeft[node] = build(first, middle, node);
+        nodeRight[node] = build(middle, end, node);
+        updateBounds(node);
+        return node;
+    }
+
+    /**
+     * Partially sort a range of items so the one at k has the k-th smallest center along an axis,
+     * with smaller ones before it and larger ones after it
+     */
+    private void select(int first, int end, int k, int axis) {
+        int low = first;
+        int high = end - 1;
+        while (low < high) {
+            double pivot = boxes[((low + high) >>> 1) * 7 + axis];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (boxes[i * 7 + axis] < pivot) {
+                    i++;
+                }
+                while (boxes[j * 7 + axis] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                high = j;
+            } else if (k >= i) {
+                low = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        FurnitureItem item = items[a];
+        items[a] = items[b];
+        items[b] = item;
+        for (int k = 0; k < 7; k++) {
+            double value = boxes[a * 7 + k];
+            boxes[a * 7 + k] = boxes[b * 7 + k];
+            boxes[b * 7 + k] = value;
+        }
+    }
+
+    /**
+     * Update the box of a changed item and the bounds of the nodes above it
+     */
+    private void refit(int slot) {
+        setBox(slot);
+        for (int node = itemLeaves[slot]; node >= 0; node = nodeParent[node]) {
+            if (!updateBounds(node)) {
+                // Bounds further up only depend on this node through its bounds
+                break;
+            }
+        }
+        refitCount++;
+    }
+
+    private void setBox(int slot) {
+        FurnitureItem item = items[slot];
+        double rotation = Math.toRadians(item.getRotationAngle());
+        int offset = slot * 7;
+        boxes[offset] = item.getX() + item.getWidth() / 2;
+        boxes[offset + 1] = item.getY() + item.getDepth() / 2;
+        boxes[offset + 2] = item.getWidth() / 2;
+        boxes[offset + 3] = item.getDepth() / 2;
+        boxes[offset + 4] = item.getHeight();
+        boxes[offset + 5] = Math.cos(rotation);
+        boxes[offset + 6] = Math.sin(rotation);
+    }
+
+    /**
+     * Recompute the bounds of a node from its items or children
+     *
+     * @return True if the bounds changed
+     */
+    private boolean updateBounds(int node) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        double maxZ = 0;
+        if (nodeLeft[node] < 0) {
+            int end = nodeFirst[node] + nodeItemCount[node];
+            for (int slot = nodeFirst[node]; slot < end; slot++) {
+                int offset = slot * 7;
+                double cos = Math.abs(boxes[offset + 5]);
+                double sin = Math.abs(boxes[offset + 6]);
+
+                // Half extents of the rotated footprint
+                double extentX = boxes[offset + 2] * cos + boxes[offset + 3] * sin;
+                double extentY = boxes[offset + 2] * sin + boxes[offset + 3] * cos;
+                minX = Math.min(minX, boxes[offset] - extentX);
+                maxX = Math.max(maxX, boxes[offset] + extentX);
+                minY = Math.min(minY, boxes[offset + 1] - extentY);
+                maxY = Math.max(maxY, boxes[offset + 1] + extentY);
+                maxZ = Math.max(maxZ, boxes[offset + 4]);
+            }
+        } else {
+            int left = nodeLeft[node] * 6;
+            int right = nodeRight[node] * 6;
+            minX = Math.min(nodeBounds[left], nodeBounds[right]);
+            minY = Math.min(nodeBounds[left + 1], nodeBounds[right + 1]);
+            maxX = Math.max(nodeBounds[left + 3], nodeBounds[right + 3]);
+            maxY = Math.max(nodeBounds[left + 4], nodeBounds[right + 4]);
+            maxZ = Math.max(nodeBounds[left + 5], nodeBounds[right + 5]);
+        }
+        int offset = node * 6;
+        if (nodeBounds[offset] == minX && nodeBounds[offset + 1] == minY && nodeBounds[offset + 2] == 0
+                && nodeBounds[offset + 3] == maxX && nodeBounds[offset + 4] == maxY && nodeBounds[offset + 5] == maxZ) {
+            return false;
+        }
+        nodeBounds[offset] = minX;
+        nodeBounds[offset + 1] = minY;
+        nodeBounds[offset + 2] = 0;
+        nodeBounds[offset + 3] = maxX;
+        nodeBounds[offset + 4] = maxY;
+        nodeBounds[offset + 5] = maxZ;
+        return true;
+    }
+
+    /**
+     * Intersect a ray with the bounds of a node using the slab test
+     *
+     * @return The distance at which the ray enters the bounds, infinity if it misses them
+     */
+    private double enterNode(int node, double originX, double originY, double originZ,
+                             double inverseX, double inverseY, double inverseZ) {
+        int offset = node * 6;
+        double t1 = (nodeBounds[offset] - originX) * inverseX;
+        double t2 = (nodeBounds[offset + 3] - originX) * inverseX;
+        double enter = Math.min(t1, t2);
+        double exit = Math.max(t1, t2);
+        t1 = (nodeBounds[offset + 1] - originY) * inverseY;
+        t2 = (nodeBounds[offset + 4] - originY) * inverseY;
+        enter = Math.max(enter, Math.min(t1, t2));
+        exit = Math.min(exit, Math.max(t1, t2));
+        t1 = (nodeBounds[offset + 2] - originZ) * inverseZ;
+        t2 = (nodeBounds[offset + 5] - originZ) * inverseZ;
+        enter = Math.max(enter, Math.min(t1, t2));
+        exit = Math.min(exit, Math.max(t1, t2));
+
+        // NaN from a ray lying in a slab's plane fails both comparisons and counts as a hit
+        if (exit < enter || exit < 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.max(enter, 0);
+    }
+
+    /**
+     * Intersect a ray with the rotated box of an item, in the item's own frame
+     *
+     * @return The ordinal of the face hit, or -1 if the box is missed or not nearer than maxT
+     */
+    private int hitItem(int slot, double originX, double originY, double originZ,
+                         double directionX, double directionY, double directionZ, double maxT) {
+        int offset = slot * 7;
+        double cos = boxes[offset + 5];
+        double sin = boxes[offset + 6];
+        double relativeX = originX - boxes[offset];
+        double relativeY = originY - boxes[offset + 1];
+
+        // Rotate the ray back by the item's rotation so the box is axis aligned about the origin
+        double localX = relativeX * cos + relativeY * sin;
+        double localY = -relativeX * sin + relativeY * cos;
+        double localDirectionX = directionX * cos + directionY * sin;
+        double localDirectionY = -directionX * sin + directionY * cos;
+
+        double enter = Double.NEGATIVE_INFINITY;
+        double exit = Double.POSITIVE_INFINITY;
+        int face = -1;
+
+        double halfWidth = boxes[offset + 2];
+        if (localDirectionX == 0) {
+            if (Math.abs(localX) > halfWidth) {
+                return -1;
+            }
+        } else {
+            double t1 = (-halfWidth - localX) / localDirectionX;
+            double t2 = (halfWidth - localX) / localDirectionX;
+            enter = Math.min(t1, t2);
+            exit = Math.max(t1, t2);
+            face = localDirectionX > 0 ? PickResult.Face.LEFT.ordinal() : PickResult.Face.RIGHT.ordinal();
+        }
+
+        double halfDepth = boxes[offset + 3];
+        if (localDirectionY == 0) {
+            if (Math.abs(localY) > halfDepth) {
+                return -1;
+            }
+        } else {
+            double t1 = (-halfDepth - localY) / localDirectionY;
+            double t2 = (halfDepth - localY) / localDirectionY;
+            if (Math.min(t1, t2) > enter) {
+                enter = Math.min(t1, t2);
+                face = localDirectionY > 0 ? PickResult.Face.FRONT.ordinal() : PickResult.Face.BACK.ordinal();
+            }
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+
+        double height = boxes[offset + 4];
+        if (directionZ == 0) {
+            if (originZ < 0 || originZ > height) {
+                return -1;
+            }
+        } else {
+            double t1 = -originZ / directionZ;
+            double t2 = (height - originZ) / directionZ;
+            if (Math.min(t1, t2) > enter) {
+                enter = Math.min(t1, t2);
+                face = directionZ > 0 ? PickResult.Face.BOTTOM.ordinal() : PickResult.Face.TOP.ordinal();
+            }
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+
+        if (exit < enter || enter < 0 || enter >= maxT || face < 0) {
+            return -1;
+        }
+        lastHitT = enter;
+        return face;
+    }
+}
@@ -0,0 +1,272 @@
+package org.example.hci.view.render;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An immutable triangle mesh drawn in place of an item's box, with simplified
+ * levels of detail.
+ *
+ * The mesh is normalized to a unit box, -0.5 to 0.5 along x and y and 0 to 1 up,
+ * and every item using it is drawn as an instance stretched to the item's width,
+ * depth and height. One model is shared by all items of a furniture type, so memory
+ * grows with the number of distinct models, not with the number of items.
+ *
+ * Coarser levels are generated by vertex clustering: the unit box is divided into a
+ * grid, the vertices in each cell are merged into their average, and triangles that
+ * collapse are dropped. A level's error is the size of its grid cells, and the
+ * renderer picks the coarsest level whose error stays below a pixel or two at the
+ * size the item appears on screen.
+ */
+public class FurnitureModel {
+    // Grid resolutions tried for the simplified levels, from fine to coarse
+    private static final int[] CLUSTER_GRIDS = {32, 16, 8, 4, 2};
+    // A simplified level is only kept if it has at most this fraction of the previous level's triangles
+    private static final double MIN_REDUCTION = 0.8;
+    public static final double MAX_ERROR_PIXELS = 1.5;
+
+    private final String name;
+    private final List<Level> levels;
+
+    /**
+     * Create a model from raw geometry, normalizing it to the unit box and generating its levels of detail
+     *
+     * @param name A name for messages, e.g. the file it was loaded from
+     * @param positions x, y, z triples with z up, in any unit
+     * @param triangles Vertex index triples, counterclockwise seen from outside
+     */
+    public FurnitureModel(String name, float[] positions, int[] triangles) {
+        if (positions.length % 3 != 0 || triangles.length % 3 != 0) {
+            throw new IllegalArgumentException("Positions and triangles must come in triples");
+        }
+        int vertexCount = positions.length / 3;
+        for (int index : triangles) {
+            if (index < 0 || index >= vertexCount) {
+                throw new IllegalArgumentException("Vertex index out of range in " + name + ": " + index);
+            }
+        }
+        this.name = name;
+
+        List<Level> built = new ArrayList<>();
+        Level full = new Level(normalize(positions), triangles.clone(), 0);
+        built.add(full);
+        Level previous = full;
+        for (int grid : CLUSTER_GRIDS) {
+            Level simplified = cluster(full, grid);
+            if (simplified.getTriangleCount() > 0
+                    && simplified.getTriangleCount() <= previous.getTriangleCount() * MIN_REDUCTION) {
+                built.add(simplified);
+                previous = simplified;
+            }
+        }
+        this.levels = Collections.unmodifiableList(built);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the levels of detail, the full mesh first
+     *
+     * @return The levels, from fine to coarse
+     */
+    public List<Level> getLevels() {
+        return levels;
+    }
+
+    /**
+     * Choose the coarsest level that still looks right at a size on screen
+     *
+     * @param projectedSize The size of the item's largest dimension on screen, in pixels
+     * @return The level to draw
+     */
+    public Level levelFor(double projectedSize) {
+        for (int i = levels.size() - 1; i > 0; i--) {
+            if (levels.get(i).error * projectedSize <= MAX_ERROR_PIXELS) {
+                return levels.get(i);
+            }
+        }
+        return levels.get(0);
+    }
+
+    /**
+     * Get the number of triangles stored for all levels together
+     *
+     * @return The triangle count
+     */
+    public int getStoredTriangleCount() {
+        int count = 0;
+        for (Level level : levels) {
+            count += level.getTriangleCount();
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder counts = new StringBuilder();
+        for (Level level : levels) {
+            counts.append(counts.length() == 0 ? "" : "/").append(level.getTriangleCount());
+        }
+        return name + " (" + counts + " triangles)";
+    }
+
+    /**
+     * Scale and move positions into the unit box, keeping each axis's extent
+     */
+    private static float[] normalize(float[] positions) {
+        float[] min = {Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY};
+        float[] max = {Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+        for (int i = 0; i < positions.length; i++) {
+            min[i % 3] = Math.min(min[i % 3], positions[i]);
+            max[i % 3] = Math.max(max[i % 3], positions[i]);
+        }
+        float[] unit = new float[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            int axis = i % 3;
+            float extent = max[axis] - min[axis];
+            float t = extent > 0 ? (positions[i] - min[axis]) / extent : 0.5f;
+
+            // Centered on the floor, standing on it
+            unit[i] = axis == 2 ? t : t - 0.5f;
+        }
+        return unit;
+    }
+
+    /**
+     * Simplify a level by merging the vertices in each cell of a grid over the unit box
+     */
+    private static Level cluster(Level source, int grid) {
+        float[] vertices = source.vertices;
+        int vertexCount = vertices.length / 3;
+        int[] cellOf = new int[vertexCount];
+        int[] clusterOfCell = new int[grid * grid * grid];
+        Arrays.fill(clusterOfCell, -1);
+        float[] sums = new float[vertexCount * 3];
+        int[] counts = new int[vertexCount];
+        int clusterCount = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            int cx = cell(vertices[v * 3] + 0.5f, grid);
+            int cy = cell(vertices[v * 3 + 1] + 0.5f, grid);
+            int cz = cell(vertices[v * 3 + 2], grid);
+            int cell = (cz * grid + cy) * grid + cx;
+            if (clusterOfCell[cell] < 0) {
+                clusterOfCell[cell] = clusterCount++;
+            }
+            int cluster = clusterOfCell[cell];
+            cellOf[v] = cluster;
+            sums[cluster * 3] += vertices[v * 3];
+            sums[cluster * 3 + 1] += vertices[v * 3 + 1];
+            sums[cluster * 3 + 2] += vertices[v * 3 + 2];
+            counts[cluster]++;
+        }
+        float[] merged = new float[clusterCount * 3];
+        for (int c = 0; c < clusterCount; c++) {
+            merged[c * 3] = sums[c * 3] / counts[c];
+            merged[c * 3 + 1] = sums[c * 3 + 1] / counts[c];
+            merged[c * 3 + 2] = sums[c * 3 + 2] / counts[c];
+        }
+
+        // Drop triangles that collapsed and duplicates with the same winding
+        int[] triangles = source.triangles;
+        int[] kept = new int[triangles.length];
+        int keptCount = 0;
+        Set<Long> seen = new HashSet<>();
+        for (int t = 0; t < triangles.length; t += 3) {
+            int a = cellOf[triangles[t]];
+            int b = cellOf[triangles[t + 1]];
+            int c = cellOf[triangles[t + 2]];
+            if (a == b || b == c || a == c) {
+                continue;
+            }
+
+            // Rotate the smallest index first so the same triangle always gives the same key
+            while (a > b || a > c) {
+                int first = a;
+                a = b;
+                b = c;
+                c = first;
+            }
+            long key = ((long) a * clusterCount + b) * clusterCount + c;
+            if (seen.add(key)) {
+                kept[keptCount++] = a;
+                kept[keptCount++] = b;
+                kept[keptCount++] = c;
+            }
+        }
+        return new Level(merged, Arrays.copyOf(kept, keptCount), 1.0 / grid);
+    }
+
+    private static int cell(float unit, int grid) {
+        return Math.max(0, Math.min(grid - 1, (int) (unit * grid)));
+    }
+
+    /**
+     * One level of detail: vertices in the unit box, triangles, and per triangle its
+     * normal in the unit box and shade
+     */
+    public static final class Level {
+        final float[] vertices;
+        final int[] triangles;
+        final float[] normals;
+        final float[] shades;
+        final double error;
+
+        private Level(float[] vertices, int[] triangles, double error) {
+            this.vertices = vertices;
+            this.triangles = triangles;
+            this.error = error;
+            this.normals = new float[triangles.length];
+            this.shades = new float[triangles.length / 3];
+            for (int t = 0; t < triangles.length; t += 3) {
+                int a = triangles[t] * 3;
+                int b = triangles[t + 1] * 3;
+                int c = triangles[t + 2] * 3;
+                double abX = vertices[b] - vertices[a];
+                double abY = vertices[b + 1] - vertices[a + 1];
+                double abZ = vertices[b + 2] - vertices[a + 2];
+                double acX = vertices[c] - vertices[a];
+                double acY = vertices[c + 1] - vertices[a + 1];
+                double acZ = vertices[c + 2] - vertices[a + 2];
+                double nx = abY * acZ - abZ * acY;
+                double ny = abZ * acX - abX * acZ;
+                double nz = abX * acY - abY * acX;
+                double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+                if (length > 0) {
+                    nx /= length;
+                    ny /= length;
+                    nz /= length;
+                }
+                normals[t] = (float) nx;
+                normals[t + 1] = (float) ny;
+                normals[t + 2] = (float) nz;
+
+                // Blend the shades the box faces use by how much the triangle faces each way
+                shades[t / 3] = (float) (nx * nx * (nx < 0 ? 0.6 : 0.4) + ny * ny * 0.8
+                        + nz * nz * (nz > 0 ? 1.0 : 0.5));
+            }
+        }
+
+        public int getVertexCount() {
+            return vertices.length / 3;
+        }
+
+        public int getTriangleCount() {
+            return triangles.length / 3;
+        }
+
+        /**
+         * Get the largest distance a vertex moved from the full mesh, relative to the model's size
+         *
+         * @return The error, 0 for the full mesh
+         */
+        public double getError() {
+            return error;
+        }
+    }
+}
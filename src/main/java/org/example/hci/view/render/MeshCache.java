@@ -0,0 +1,194 @@
+package org.example.hci.view.render;
+
+import org.example.hci.model.FurnitureItem;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Box meshes of furniture items in room space, kept between frames.
+ *
+ * A mesh is looked up by item id and reused as long as the item's revision is
+ * unchanged, so moving the camera only re-projects the cached vertices and
+ * editing one item rebuilds only that item's mesh. Vertices are measured from the
+ * room corner like the item positions, so resizing the room does not invalidate
+ * anything.
+ */
+public class MeshCache {
+    // Corner indices of the five visible faces: top, front, back, left and right
+    static final int[][] FACES = {
+            {4, 5, 6, 7},
+            {0, 1, 5, 4},
+            {3, 2, 6, 7},
+            {0, 3, 7, 4},
+            {1, 2, 6, 5}
+    };
+    // Corner indices of the twelve edges, each with the faces on either side of it, -1 for the bottom
+    static final int[][] EDGES = {
+            {0, 1, 1, -1}, {1, 2, 4, -1}, {2, 3, 2, -1}, {3, 0, 3, -1},
+            {4, 5, 1, 0}, {5, 6, 4, 0}, {6, 7, 2, 0}, {7, 4, 3, 0},
+            {0, 4, 1, 3}, {1, 5, 1, 4}, {2, 6, 2, 4}, {3, 7, 2, 3}
+    };
+    static final int VERTEX_COUNT = 8;
+
+    private static final double[] FACE_SHADES = {1.0, 0.8, 0.8, 0.6, 0.4};
+
+    private final Map<String, ItemMesh> meshes = new HashMap<>();
+    private long frame = 0;
+    private long rebuildCount = 0;
+
+    /**
+     * Get the mesh of an item, rebuilding it only if the item changed since it was built
+     *
+     * @param item The item
+     * @return The item's mesh
+     */
+    ItemMesh meshOf(FurnitureItem item) {
+        ItemMesh mesh = meshes.get(item.getId());
+        if (mesh == null) {
+            mesh = new ItemMesh();
+            meshes.put(item.getId(), mesh);
+            build(mesh, item);
+        } else if (mesh.item != item || mesh.revision != item.getRevision()) {
+            // A different instance with the same id comes from a reloaded design
+            build(mesh, item);
+        }
+        mesh.lastUsedFrame = frame;
+        return mesh;
+    }
+
+    /**
+     * Finish a frame, dropping the meshes of items that were not drawn in it
+     *
+     * @param itemCount The number of items drawn in the frame
+     */
+    void endFrame(int itemCount) {
+        if (meshes.size() > itemCount) {
+            long current = frame;
+            meshes.values().removeIf(mesh -> mesh.lastUsedFrame != current);
+        }
+        frame++;
+    }
+
+    /**
+     * Get the number of meshes built since the cache was created
+     *
+     * @return The rebuild count
+     */
+    public long getRebuildCount() {
+        return rebuildCount;
+    }
+
+    /**
+     * Get the number of cached meshes
+     *
+     * @return The mesh count
+     */
+    public int size() {
+        return meshes.size();
+    }
+
+    /**
+     * Drop all meshes, e.g. when switching to another design
+     */
+    public void clear() {
+        meshes.clear();
+    }
+
+    private void build(ItemMesh mesh, FurnitureItem item) {
+        double halfWidth = item.getWidth() / 2;
+        double halfDepth = item.getDepth() / 2;
+        double centerX = item.getX() + halfWidth;
+        double centerY = item.getY() + halfDepth;
+        double rotation = Math.toRadians(item.getRotationAngle());
+        double cosRot = Math.cos(rotation);
+        double sinRot = Math.sin(rotation);
+
+        // Bottom corners 0-3, then the top corners 4-7 above them, rotated about the center like the 2D plan
+        float[] vertices = mesh.vertices;
+        for (int level = 0; level < 2; level++) {
+            double z = level == 0 ? 0 : item.getHeight();
+            for (int i = 0; i < 4; i++) {
+                double localX = i == 0 || i == 3 ? -halfWidth : halfWidth;
+                double localY = i < 2 ? -halfDepth : halfDepth;
+                int offset = (level * 4 + i) * 3;
+                vertices[offset] = (float) (centerX + localX * cosRot - localY * sinRot);
+                vertices[offset + 1] = (float) (centerY + localX * sinRot + localY * cosRot);
+                vertices[offset + 2] = (float) z;
+            }
+        }
+
+        // Axis-aligned bounds, for culling items outside the view
+        mesh.minX = Float.POSITIVE_INFINITY;
+        mesh.minY = Float.POSITIVE_INFINITY;
+        mesh.maxX = Float.NEGATIVE_INFINITY;
+        mesh.maxY = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < VERTEX_COUNT; i++) {
+            mesh.minX = Math.min(mesh.minX, vertices[i * 3]);
+            mesh.minY = Math.min(mesh.minY, vertices[i * 3 + 1]);
+            mesh.maxX = Math.max(mesh.maxX, vertices[i * 3]);
+            mesh.maxY = Math.max(mesh.maxY, vertices[i * 3 + 1]);
+        }
+        mesh.maxZ = (float) item.getHeight();
+
+        // Placement of the item, for drawing a shared model as an instance of it
+        mesh.centerX = centerX;
+        mesh.centerY = centerY;
+        mesh.cos = cosRot;
+        mesh.sin = sinRot;
+        mesh.width = item.getWidth();
+        mesh.depth = item.getDepth();
+        mesh.rgb = item.getColor().getRGB();
+
+        // Outward normals of the faces, in the order of FACES
+        float[] normals = mesh.normals;
+        setNormal(normals, 0, 0, 0, 1);
+        setNormal(normals, 1, sinRot, -cosRot, 0);
+        setNormal(normals, 2, -sinRot, cosRot, 0);
+        setNormal(normals, 3, -cosRot, -sinRot, 0);
+        setNormal(normals, 4, cosRot, sinRot, 0);
+
+        int rgb = item.getColor().getRGB();
+        for (int face = 0; face < FACES.length; face++) {
+            mesh.faceColors[face] = SceneRenderer.darken(rgb, FACE_SHADES[face]);
+        }
+
+        mesh.item = item;
+        mesh.revision = item.getRevision();
+        rebuildCount++;
+    }
+
+    private static void setNormal(float[] normals, int face, double x, double y, double z) {
+        normals[face * 3] = (float) x;
+        normals[face * 3 + 1] = (float) y;
+        normals[face * 3 + 2] = (float) z;
+    }
+
+    /**
+     * Room space geometry, bounds, placement and shaded colors of one item's box
+     */
+    static class ItemMesh {
+        final float[] vertices = new float[VERTEX_COUNT * 3];
+        final float[] normals = new float[FACES.length * 3];
+        final int[] faceColors = new int[FACES.length];
+        float minX;
+        float minY;
+        float maxX;
+        float maxY;
+        float maxZ;
+        double centerX;
+        double centerY;
+        double cos;
+        double sin;
+        double width;
+        double depth;
+        int rgb;
+        private FurnitureItem item;
+        private long revision;
+        private long lastUsedFrame;
+
+        FurnitureItem getItem() {
+            return item;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.hci.view.render;
+
+import org.example.hci.model.FurnitureItem;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The mesh models furniture types are drawn with, shared by all renderers.
+ *
+ * A type's model is loaded from {@code <type>.obj} in the model directory, e.g.
+ * {@code models/chair.obj}, the first time it is asked for. Types without a file,
+ * or whose file cannot be read, are drawn as boxes. Models are immutable, so every
+ * item of a type and every renderer uses the same instance.
+ */
+public class ModelStore {
+    public static final String DEFAULT_DIRECTORY = "models/";
+    public static final String EXTENSION = ".obj";
+
+    private static ModelStore shared;
+
+    private final Path directory;
+    private final FurnitureModel[] models = new FurnitureModel[FurnitureItem.FurnitureType.values().length];
+    private final boolean[] resolved = new boolean[models.length];
+
+    public ModelStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Get the store reading from the default model directory
+     *
+     * @return The shared store
+     */
+    public static synchronized ModelStore getShared() {
+        if (shared == null) {
+            shared = new ModelStore(Paths.get(DEFAULT_DIRECTORY));
+        }
+        return shared;
+    }
+
+    /**
+     * Get the model of a furniture type, loading it on first use
+     *
+     * @param type The furniture type
+     * @return The model, or null if the type is drawn as a box
+     */
+    public synchronized FurnitureModel getModel(FurnitureItem.FurnitureType type) {
+        int index = type.ordinal();
+        if (!resolved[index]) {
+            resolved[index] = true;
+            Path path = getModelPath(type);
+            if (Files.isRegularFile(path)) {
+                try {
+                    models[index] = ObjLoader.load(path);
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Error loading model " + path + ": " + e.getMessage());
+                }
+            }
+        }
+        return models[index];
+    }
+
+    /**
+     * Use a model for a furniture type instead of its file
+     *
+     * @param type The furniture type
+     * @param model The model, or null to draw the type as a box
+     */
+    public synchronized void setModel(FurnitureItem.FurnitureType type, FurnitureModel model) {
+        models[type.ordinal()] = model;
+        resolved[type.ordinal()] = true;
+    }
+
+    /**
+     * Forget all models, so they are read from their files again when next used
+     */
+    public synchronized void reload() {
+        Arrays.fill(models, null);
+        Arrays.fill(resolved, false);
+    }
+
+    /**
+     * Get the file a furniture type's model is read from
+     *
+     * @param type The furniture type
+     * @return The path of the OBJ file
+     */
+    public Path getModelPath(FurnitureItem.FurnitureType type) {
+        return directory.resolve(type.name().toLowerCase(Locale.ROOT) + EXTENSION);
+    }
+
+    /**
+     * Get the number of loaded models, which is what their memory grows with
+     *
+     * @return The model count
+     */
+    public synchronized int getModelCount() {
+        int count = 0;
+        for (FurnitureModel model : models) {
+            if (model != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
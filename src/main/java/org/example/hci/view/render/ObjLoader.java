@@ -0,0 +1,139 @@
+package org.example.hci.view.render;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Reads the geometry of Wavefront OBJ files into {@link FurnitureModel}s.
+ *
+ * Only vertex positions and faces are used; texture coordinates, normals, groups
+ * and materials are skipped. Faces with more than three corners are split into a
+ * fan of triangles. OBJ models are y up, so y becomes the height and z the depth,
+ * with the side facing +z becoming the front of the item.
+ */
+public final class ObjLoader {
+
+    private ObjLoader() {
+    }
+
+    /**
+     * Load a model from a file
+     *
+     * @param path The OBJ file
+     * @return The model, with its levels of detail
+     * @throws IOException If the file cannot be read or is not valid OBJ
+     */
+    public static FurnitureModel load(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return load(reader, path.getFileName().toString());
+        }
+    }
+
+    /**
+     * Load a model from OBJ text
+     *
+     * @param source The OBJ text
+     * @param name The name of the model, used in messages
+     * @return The model, with its levels of detail
+     * @throws IOException If the text cannot be read or is not valid OBJ
+     */
+    public static FurnitureModel load(Reader source, String name) throws IOException {
+        BufferedReader reader = source instanceof BufferedReader ? (BufferedReader) source : new BufferedReader(source);
+        float[] positions = new float[3 * 256];
+        int positionCount = 0;
+        int[] triangles = new int[3 * 256];
+        int triangleIndexCount = 0;
+        int[] corners = new int[16];
+
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            String[] tokens = line.trim().split("\\s+");
+            if (tokens[0].equals("v")) {
+                if (tokens.length < 4) {
+                    throw error(name, lineNumber, "vertex needs three coordinates");
+                }
+                if (positionCount * 3 + 3 > positions.length) {
+                    positions = Arrays.copyOf(positions, positions.length * 2);
+                }
+                float x = parseCoordinate(tokens[1], name, lineNumber);
+                float y = parseCoordinate(tokens[2], name, lineNumber);
+                float z = parseCoordinate(tokens[3], name, lineNumber);
+
+                // y up to z up, keeping the handedness: depth is minus the OBJ z
+                positions[positionCount * 3] = x;
+                positions[positionCount * 3 + 1] = -z;
+                positions[positionCount * 3 + 2] = y;
+                positionCount++;
+            } else if (tokens[0].equals("f")) {
+                int cornerCount = tokens.length - 1;
+                if (cornerCount < 3) {
+                    throw error(name, lineNumber, "face needs at least three corners");
+                }
+                if (corners.length < cornerCount) {
+                    corners = new int[cornerCount];
+                }
+                for (int i = 0; i < cornerCount; i++) {
+                    corners[i] = parseIndex(tokens[i + 1], positionCount, name, lineNumber);
+                }
+                int needed = triangleIndexCount + (cornerCount - 2) * 3;
+                if (needed > triangles.length) {
+                    triangles = Arrays.copyOf(triangles, Math.max(needed, triangles.length * 2));
+                }
+                for (int i = 1; i + 1 < cornerCount; i++) {
+                    triangles[triangleIndexCount++] = corners[0];
+                    triangles[triangleIndexCount++] = corners[i];
+                    triangles[triangleIndexCount++] = corners[i + 1];
+                }
+            }
+        }
+        if (triangleIndexCount == 0) {
+            throw new IOException(name + ": no faces");
+        }
+        return new FurnitureModel(name, Arrays.copyOf(positions, positionCount * 3),
+                Arrays.copyOf(triangles, triangleIndexCount));
+    }
+
+    private static float parseCoordinate(String token, String name, int lineNumber) throws IOException {
+        try {
+            return Float.parseFloat(token);
+        } catch (NumberFormatException e) {
+            throw error(name, lineNumber, "invalid coordinate " + token);
+        }
+    }
+
+    /**
+     * Parse the position index of a face corner such as 7, 7/2, 7//3 or -1
+     */
+    private static int parseIndex(String token, int positionCount, String name, int lineNumber) throws IOException {
+        int slash = token.indexOf('/');
+        String position = slash < 0 ? token : token.substring(0, slash);
+        int index;
+        try {
+            index = Integer.parseInt(position);
+        } catch (NumberFormatException e) {
+            throw error(name, lineNumber, "invalid vertex index " + token);
+        }
+
+        // Indices count from 1, negative ones count back from the last vertex
+        int resolved = index > 0 ? index - 1 : positionCount + index;
+        if (index == 0 || resolved < 0 || resolved >= positionCount) {
+            throw error(name, lineNumber, "vertex index out of range " + token);
+        }
+        return resolved;
+    }
+
+    private static IOException error(String name, int lineNumber, String message) {
+        return new IOException(name + ":" + lineNumber + ": " + message);
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.hci.view.render;
+
+import org.example.hci.model.Design;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * Renders designs into images without a window, e.g. for previews generated on a
+ * server running with {@code java.awt.headless=true}.
+ *
+ * Frames are rendered supersampled, downsampled and labeled the same way the 3D view
+ * refines its frames. A renderer keeps its buffers between frames, so rendering many
+ * images of the same size allocates little more than the images themselves. It is not
+ * thread-safe; use one renderer per thread.
+ */
+public class OffscreenRenderer {
+    public static final int DEFAULT_BACKGROUND_RGB = 0xEEEEEE;
+
+    private final SceneRenderer renderer;
+    private final Rasterizer raster = new Rasterizer(1, 1);
+    private int supersampling = ProgressiveRenderer.SUPERSAMPLING;
+    private int backgroundRgb = DEFAULT_BACKGROUND_RGB;
+    private boolean labels = true;
+
+    /**
+     * Create a renderer drawing on the calling thread only
+     */
+    public OffscreenRenderer() {
+        this(1);
+    }
+
+    /**
+     * Create a renderer
+     *
+     * @param threadCount The number of threads rasterizing each image, 1 to render on the calling thread
+     */
+    public OffscreenRenderer(int threadCount) {
+        this.renderer = new SceneRenderer(threadCount);
+    }
+
+    /**
+     * Render a design into a new image
+     *
+     * @param design The design to render
+     * @param camera The view of the design
+     * @param width The width of the image in pixels
+     * @param height The height of the image in pixels
+     * @return The rendered image
+     */
+    public BufferedImage render(Design design, Camera camera, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image size must be positive: " + width + "x" + height);
+        }
+        raster.resize(width * supersampling, height * supersampling);
+        renderer.render(design, raster, camera, backgroundRgb);
+
+        BufferedImage image = raster.downsample(supersampling);
+        if (labels) {
+            Graphics2D g2d = image.createGraphics();
+            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            renderer.drawLabels(g2d, raster, supersampling);
+            g2d.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Set the number of samples per pixel along each axis
+     *
+     * @param supersampling 1 for no antialiasing, 2 or more to smooth edges
+     */
+    public void setSupersampling(int supersampling) {
+        if (supersampling < 1) {
+            throw new IllegalArgumentException("Supersampling must be at least 1: " + supersampling);
+        }
+        this.supersampling = supersampling;
+    }
+
+    public int getSupersampling() {
+        return supersampling;
+    }
+
+    public void setBackgroundRgb(int backgroundRgb) {
+        this.backgroundRgb = backgroundRgb;
+    }
+
+    public int getBackgroundRgb() {
+        return backgroundRgb;
+    }
+
+    /**
+     * Choose whether furniture labels are drawn
+     *
+     * @param labels true to label the furniture, as in the 3D view
+     */
+    public void setLabels(boolean labels) {
+        this.labels = labels;
+    }
+
+    public boolean isLabels() {
+        return labels;
+    }
+
+    /**
+     * Get the scene renderer, e.g. for its statistics or to change its model store
+     *
+     * @return The scene renderer
+     */
+    public SceneRenderer getSceneRenderer() {
+        return renderer;
+    }
+
+    /**
+     * Stop the renderer's rasterizing threads, if it has any
+     */
+    public void shutdown() {
+        renderer.shutdown();
+    }
+}
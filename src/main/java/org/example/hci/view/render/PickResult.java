@@ -0,0 +1,77 @@
+package org.example.hci.view.render;
+
+import org.example.hci.model.FurnitureItem;
+
+/**
+ * The nearest furniture item hit by a picking ray, and where it was hit
+ */
+public class PickResult {
+
+    /**
+     * The faces of an item's box. The first five are in the order of the faces the
+     * renderer draws.
+     */
+    public enum Face {
+        TOP, FRONT, BACK, LEFT, RIGHT, BOTTOM
+    }
+
+    private final FurnitureItem item;
+    private final Face face;
+    private final double distance;
+    private final double x;
+    private final double y;
+    private final double z;
+
+    public PickResult(FurnitureItem item, Face face, double distance, double x, double y, double z) {
+        this.item = item;
+        this.face = face;
+        this.distance = distance;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    public FurnitureItem getItem() {
+        return item;
+    }
+
+    public Face getFace() {
+        return face;
+    }
+
+    /**
+     * Get the distance along the ray from its origin to the hit point
+     *
+     * @return The distance in meters
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * Get the x coordinate of the hit point, in meters from the room corner like item positions
+     *
+     * @return The x coordinate
+     */
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * Get the height of the hit point above the floor
+     *
+     * @return The z coordinate in meters
+     */
+    public double getZ() {
+        return z;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s at (%.2f, %.2f, %.2f)", item.getType(), face, x, y, z);
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.hci.view.render;
+
+import java.util.Arrays;
+
+/**
+ * Projected triangles and lines of one frame, kept in flat primitive arrays that
+ * are reused from frame to frame.
+ * Each triangle takes nine floats (x, y, depth for three vertices), each line six.
+ */
+final class PrimitiveBuffer {
+    static final int TRIANGLE_STRIDE = 9;
+    static final int LINE_STRIDE = 6;
+
+    float[] triangles = new float[TRIANGLE_STRIDE * 256];
+    int[] triangleColors = new int[256];
+    int triangleCount = 0;
+
+    float[] lines = new float[LINE_STRIDE * 256];
+    int[] lineColors = new int[256];
+    int lineCount = 0;
+
+    void clear() {
+        triangleCount = 0;
+        lineCount = 0;
+    }
+
+    void addTriangle(float x0, float y0, float z0, float x1, float y1, float z1,
+                     float x2, float y2, float z2, int rgb) {
+        if (triangleCount == triangleColors.length) {
+            triangleColors = Arrays.copyOf(triangleColors, triangleCount * 2);
+            triangles = Arrays.copyOf(triangles, triangleCount * 2 * TRIANGLE_STRIDE);
+        }
+        int offset = triangleCount * TRIANGLE_STRIDE;
+        triangles[offset] = x0;
+        triangles[offset + 1] = y0;
+        triangles[offset + 2] = z0;
+        triangles[offset + 3] = x1;
+        triangles[offset + 4] = y1;
+        triangles[offset + 5] = z1;
+        triangles[offset + 6] = x2;
+        triangles[offset + 7] = y2;
+        triangles[offset + 8] = z2;
+        triangleColors[triangleCount++] = rgb;
+    }
+
+    void addLine(float x0, float y0, float z0, float x1, float y1, float z1, int rgb) {
+        if (lineCount == lineColors.length) {
+            lineColors = Arrays.copyOf(lineColors, lineCount * 2);
+            lines = Arrays.copyOf(lines, lineCount * 2 * LINE_STRIDE);
+        }
+        int offset = lineCount * LINE_STRIDE;
+        lines[offset] = x0;
+        lines[offset + 1] = y0;
+        lines[offset + 2] = z0;
+        lines[offset + 3] = x1;
+        lines[offset + 4] = y1;
+        lines[offset + 5] = z1;
+        lineColors[lineCount++] = rgb;
+    }
+}
@@ -0,0 +1,294 @@
+package org.example.hci.view.render;
+
+import org.example.hci.model.Design;
+import org.example.hci.model.FurnitureItem;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Adaptive quality for the 3D view: cheap previews while the view changes, a
+ * refined frame once it has settled.
+ *
+ * Every change to what is shown starts a new generation. Until the frame of the
+ * current generation is finished, the component paints a preview rendered on the
+ * Event Dispatch Thread at a fraction of its resolution, without labels. When no
+ * change has happened for the idle delay, the frame is refined: its geometry is
+ * prepared on the Event Dispatch Thread, then it is rasterized supersampled,
+ * downsampled and labeled with antialiased text on a background thread. A refined
+ * frame is only shown if no change happened while it was rendered, so a finished
+ * frame is never replaced by an outdated one.
+ *
+ * All methods must be called on the Event Dispatch Thread.
+ */
+public class ProgressiveRenderer {
+    public static final int DEFAULT_PREVIEW_DIVISOR = 2;
+    public static final int DEFAULT_IDLE_DELAY = 150; // Milliseconds without changes before refining
+    public static final int SUPERSAMPLING = 2;
+
+    private final JComponent component;
+    private final Timer idleTimer;
+    private final ExecutorService refineExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "render-refine");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private SceneRenderer previewRenderer;
+    private final Rasterizer previewRaster = new Rasterizer(1, 1);
+    private int previewDivisor = DEFAULT_PREVIEW_DIVISOR;
+    private FurnitureItem highlightedItem;
+
+    // Only touched by the refine thread while a refinement is running
+    private SceneRenderer refineRenderer;
+    private final Rasterizer refineRaster = new Rasterizer(1, 1);
+    private boolean refining = false;
+    private boolean refineRequested = false;
+
+    // What was last painted, and the finished frame if there is one
+    private long generation = 0;
+    private long paintedGeneration = -1;
+    private Design paintedDesign;
+    private final Camera paintedCamera = new Camera();
+    private int paintedWidth;
+    private int paintedHeight;
+    private int paintedBackground;
+    private BufferedImage finishedImage;
+    private long finishedGeneration = -1;
+
+    private long previewCount = 0;
+    private long refineCount = 0;
+    private long discardedCount = 0;
+
+    /**
+     * Create a progressive renderer for a component
+     *
+     * @param component The component painting the frames, repainted when a refined frame is ready
+     * @param threadCount The number of threads each frame is rasterized on
+     */
+    public ProgressiveRenderer(JComponent component, int threadCount) {
+        this.component = component;
+        this.previewRenderer = new SceneRenderer(threadCount);
+        this.refineRenderer = new SceneRenderer(threadCount);
+        this.idleTimer = new Timer(DEFAULT_IDLE_DELAY, event -> refine());
+        this.idleTimer.setRepeats(false);
+    }
+
+    /**
+     * Start a new generation after the view or the design changed. The finished frame
+     * becomes outdated and a refinement is scheduled for when changes stop.
+     */
+    public void invalidate() {
+        generation++;
+        idleTimer.restart();
+    }
+
+    /**
+     * Paint the current frame, the finished one if it is up to date or a preview otherwise
+     *
+     * @param g2d The graphics context of the component
+     * @param design The design to render
+     * @param width The width of the view in pixels
+     * @param height The height of the view in pixels
+     * @param camera The camera the design is seen through
+     * @param backgroundRgb The color behind the room
+     */
+    public void paint(Graphics2D g2d, Design design, int width, int height, Camera camera, int backgroundRgb) {
+        if (design != paintedDesign || width != paintedWidth || height != paintedHeight
+                || backgroundRgb != paintedBackground || !camera.sameView(paintedCamera)) {
+            // Resizing, switching designs or moving the camera outdates the frame even without invalidate()
+            generation++;
+        }
+        paintedGeneration = generation;
+        paintedDesign = design;
+        paintedCamera.set(camera);
+        paintedWidth = width;
+        paintedHeight = height;
+        paintedBackground = backgroundRgb;
+
+        if (finishedImage != null && finishedGeneration == generation) {
+            g2d.drawImage(finishedImage, 0, 0, null);
+            return;
+        }
+
+        previewRaster.resize(width / previewDivisor, height / previewDivisor);
+        previewRenderer.render(design, previewRaster, camera, backgroundRgb);
+        g2d.drawImage(previewRaster.getImage(), 0, 0, width, height, null);
+        previewCount++;
+
+        if (!idleTimer.isRunning() && !refining) {
+            idleTimer.restart();
+        }
+    }
+
+    /**
+     * Outline an item in the highlight color in previews and refined frames
+     *
+     * @param item The item to highlight, or null for none
+     */
+    public void setHighlightedItem(FurnitureItem item) {
+        if (item != highlightedItem) {
+            highlightedItem = item;
+            previewRenderer.setHighlightedItem(item);
+            invalidate();
+        }
+    }
+
+    public FurnitureItem getHighlightedItem() {
+        return highlightedItem;
+    }
+
+    /**
+     * Change the fraction of the resolution previews are rendered at
+     *
+     * @param previewDivisor The divisor of the width and height, 1 for full resolution
+     */
+    public void setPreviewDivisor(int previewDivisor) {
+        if (previewDivisor <= 0) {
+            throw new IllegalArgumentException("Preview divisor must be positive: " + previewDivisor);
+        }
+        this.previewDivisor = previewDivisor;
+    }
+
+    public int getPreviewDivisor() {
+        return previewDivisor;
+    }
+
+    /**
+     * Change how long the view must stay unchanged before the frame is refined
+     *
+     * @param idleDelay The delay in milliseconds
+     */
+    public void setIdleDelay(int idleDelay) {
+        idleTimer.setInitialDelay(idleDelay);
+    }
+
+    public int getIdleDelay() {
+        return idleTimer.getInitialDelay();
+    }
+
+    /**
+     * Change the number of threads frames are rasterized on
+     *
+     * @param threadCount The thread count
+     */
+    public void setThreadCount(int threadCount) {
+        SceneRenderer previousPreview = previewRenderer;
+        SceneRenderer previousRefine = refineRenderer;
+        previewRenderer = new SceneRenderer(threadCount);
+        previewRenderer.setHighlightedItem(highlightedItem);
+        refineRenderer = new SceneRenderer(threadCount);
+        previousPreview.shutdown();
+
+        // A running refinement may still use the old renderer, so stop it after that
+        refineExecutor.execute(previousRefine::shutdown);
+    }
+
+    public int getThreadCount() {
+        return previewRenderer.getThreadCount();
+    }
+
+    /**
+     * Check whether the frame shown for the current generation is the refined one
+     *
+     * @return True if the refined frame is up to date
+     */
+    public boolean isRefined() {
+        return finishedImage != null && finishedGeneration == generation;
+    }
+
+    /**
+     * Get the renderer previews are drawn with, e.g. to read the culling counts of the last preview
+     *
+     * @return The preview renderer
+     */
+    public SceneRenderer getPreviewRenderer() {
+        return previewRenderer;
+    }
+
+    public long getPreviewCount() {
+        return previewCount;
+    }
+
+    public long getRefineCount() {
+        return refineCount;
+    }
+
+    /**
+     * Get the number of refined frames thrown away because the view changed while they were rendered
+     *
+     * @return The discarded frame count
+     */
+    public long getDiscardedCount() {
+        return discardedCount;
+    }
+
+    /**
+     * Stop the background threads. The renderer must not be used afterwards.
+     */
+    public void shutdown() {
+        idleTimer.stop();
+        previewRenderer.shutdown();
+        refineExecutor.execute(refineRenderer::shutdown);
+        refineExecutor.shutdown();
+    }
+
+    private void refine() {
+        if (refining) {
+            refineRequested = true;
+            return;
+        }
+        // Nothing painted for this generation yet, the next paint schedules the refinement
+        if (paintedGeneration != generation || paintedDesign == null || isRefined()) {
+            return;
+        }
+
+        long frameGeneration = generation;
+        int width = paintedWidth;
+        int height = paintedHeight;
+        int background = paintedBackground;
+        SceneRenderer renderer = refineRenderer;
+        refineRaster.resize(width * SUPERSAMPLING, height * SUPERSAMPLING);
+        renderer.setHighlightedItem(highlightedItem);
+        renderer.prepare(paintedDesign, refineRaster, paintedCamera);
+
+        refining = true;
+        refineExecutor.execute(() -> {
+            BufferedImage image = null;
+            try {
+                renderer.rasterize(refineRaster, background);
+                image = refineRaster.downsample(SUPERSAMPLING);
+                Graphics2D g2d = image.createGraphics();
+                g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                renderer.drawLabels(g2d, refineRaster, SUPERSAMPLING);
+                g2d.dispose();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+            BufferedImage refined = image;
+            SwingUtilities.invokeLater(() -> refined(refined, frameGeneration));
+        });
+    }
+
+    private void refined(BufferedImage image, long frameGeneration) {
+        refining = false;
+        if (image != null && frameGeneration == generation) {
+            finishedImage = image;
+            finishedGeneration = frameGeneration;
+            refineCount++;
+            component.repaint();
+        } else {
+            discardedCount++;
+        }
+        if (refineRequested) {
+            refineRequested = false;
+            refine();
+        }
+    }
+}
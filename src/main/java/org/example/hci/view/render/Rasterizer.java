@@ -0,0 +1,314 @@
+package org.example.hci.view.render;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Scanline rasterizer with a depth buffer, drawing straight into the pixels of a
+ * {@link BufferedImage}.
+ *
+ * Triangles are filled with one flat color; a pixel is written only if the triangle
+ * is nearer than what is already there (smaller depth), so the draw order of the
+ * scene does not matter. Pixel centers are sampled at {@code +0.5}, which lets
+ * triangles sharing an edge meet without gaps or double coverage.
+ */
+public class Rasterizer {
+    // Lets outlines win against the faces they lie on
+    private static final float LINE_DEPTH_BIAS = 1.5f;
+
+    private BufferedImage image;
+    private int[] pixels;
+    private float[] depth;
+    private int width;
+    private int height;
+
+    public Rasterizer(int width, int height) {
+        resize(width, height);
+    }
+
+    /**
+     * Change the size of the target, reallocating buffers only if it actually changed
+     *
+     * @param width The width in pixels
+     * @param height The height in pixels
+     */
+    public void resize(int width, int height) {
+        width = Math.max(1, width);
+        height = Math.max(1, height);
+        if (image != null && width == this.width && height == this.height) {
+            return;
+        }
+        this.width = width;
+        this.height = height;
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        this.depth = new float[width * height];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get the image the rasterizer draws into
+     *
+     * @return The image, backed by the rasterizer's pixel buffer
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Average each block of supersampled pixels into one pixel of a new image
+     *
+     * @param factor The supersampling factor along each axis
+     * @return A new image of the rasterizer's size divided by the factor
+     */
+    BufferedImage downsample(int factor) {
+        int targetWidth = width / factor;
+        int targetHeight = height / factor;
+        BufferedImage target = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+        int[] targetPixels = ((DataBufferInt) target.getRaster().getDataBuffer()).getData();
+        int samples = factor * factor;
+        for (int y = 0; y < targetHeight; y++) {
+            for (int x = 0; x < targetWidth; x++) {
+                int r = 0;
+                int g = 0;
+                int b = 0;
+                for (int sy = 0; sy < factor; sy++) {
+                    int index = (y * factor + sy) * width + x * factor;
+                    for (int sx = 0; sx < factor; sx++) {
+                        int rgb = pixels[index + sx];
+                        r += (rgb >> 16) & 0xFF;
+                        g += (rgb >> 8) & 0xFF;
+                        b += rgb & 0xFF;
+                    }
+                }
+                targetPixels[y * targetWidth + x] = (r / samples) << 16 | (g / samples) << 8 | b / samples;
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Get the pixel buffer of the image, one packed RGB value per pixel, row by row
+     *
+     * @return The pixels, shared with the image
+     */
+    int[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * Fill the image with a color and reset the depth buffer to infinitely far
+     *
+     * @param rgb The background color
+     */
+    public void clear(int rgb) {
+        Arrays.fill(pixels, rgb);
+        Arrays.fill(depth, Float.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Clear only a rectangle of the image, e.g. one tile of a frame rendered in parallel
+     *
+     * @param rgb The background color
+     * @param left The first column
+     * @param top The first row
+     * @param right The column after the last one
+     * @param bottom The row after the last one
+     */
+    void clear(int rgb, int left, int top, int right, int bottom) {
+        for (int row = top; row < bottom; row++) {
+            int start = row * width + left;
+            int end = row * width + right;
+            Arrays.fill(pixels, start, end, rgb);
+            Arrays.fill(depth, start, end, Float.POSITIVE_INFINITY);
+        }
+    }
+
+    /**
+     * Get the depth stored for a pixel
+     *
+     * @param x The pixel column
+     * @param y The pixel row
+     * @return The depth of the nearest surface, or infinity outside the image or where nothing was drawn
+     */
+    public float depthAt(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return Float.POSITIVE_INFINITY;
+        }
+        return depth[y * width + x];
+    }
+
+    /**
+     * Fill a triangle, keeping only the pixels where it is the nearest surface
+     *
+     * @param rgb The fill color
+     */
+    public void fillTriangle(float x0, float y0, float z0,
+                             float x1, float y1, float z1,
+                             float x2, float y2, float z2, int rgb) {
+        fillTriangle(x0, y0, z0, x1, y1, z1, x2, y2, z2, rgb, 0, 0, width, height);
+    }
+
+    /**
+     * Fill the part of a triangle that lies inside a clip rectangle. Tiles sharing
+     * an edge sample the same pixel centers, so a triangle split across tiles is
+     * drawn exactly as it would be in one piece.
+     *
+     * @param rgb The fill color
+     * @param clipLeft The first column that may be written
+     * @param clipTop The first row that may be written
+     * @param clipRight The column after the last one that may be written
+     * @param clipBottom The row after the last one that may be written
+     */
+    void fillTriangle(float x0, float y0, float z0,
+                      float x1, float y1, float z1,
+                      float x2, float y2, float z2, int rgb,
+                      int clipLeft, int clipTop, int clipRight, int clipBottom) {
+        // Sort the vertices top to bottom
+        if (y1 < y0) {
+            float t = x0; x0 = x1; x1 = t;
+            t = y0; y0 = y1; y1 = t;
+            t = z0; z0 = z1; z1 = t;
+        }
+        if (y2 < y0) {
+            float t = x0; x0 = x2; x2 = t;
+            t = y0; y0 = y2; y2 = t;
+            t = z0; z0 = z2; z2 = t;
+        }
+        if (y2 < y1) {
+            float t = x1; x1 = x2; x2 = t;
+            t = y1; y1 = y2; y2 = t;
+            t = z1; z1 = z2; z2 = t;
+        }
+
+        float area = (x1 - x0) * (y2 - y0) - (x2 - x0) * (y1 - y0);
+        if (area == 0 || Float.isNaN(area)) {
+            return;
+        }
+
+        // Depth is linear across the triangle
+        float depthStepX = ((z1 - z0) * (y2 - y0) - (z2 - z0) * (y1 - y0)) / area;
+        float depthStepY = ((z2 - z0) * (x1 - x0) - (z1 - z0) * (x2 - x0)) / area;
+
+        float longSlope = (x2 - x0) / (y2 - y0);
+        float upperSlope = y1 > y0 ? (x1 - x0) / (y1 - y0) : 0;
+        float lowerSlope = y2 > y1 ? (x2 - x1) / (y2 - y1) : 0;
+
+        int rowStart = Math.max(clipTop, (int) Math.ceil(y0 - 0.5f));
+        int rowEnd = Math.min(clipBottom - 1, (int) Math.ceil(y2 - 0.5f) - 1);
+        for (int row = rowStart; row <= rowEnd; row++) {
+            float sampleY = row + 0.5f;
+            float longX = x0 + (sampleY - y0) * longSlope;
+            float shortX = sampleY < y1
+                    ? x0 + (sampleY - y0) * upperSlope
+                    : x1 + (sampleY - y1) * lowerSlope;
+            float left = Math.min(longX, shortX);
+            float right = Math.max(longX, shortX);
+
+            int columnStart = Math.max(clipLeft, (int) Math.ceil(left - 0.5f));
+            int columnEnd = Math.min(clipRight - 1, (int) Math.ceil(right - 0.5f) - 1);
+            if (columnStart > columnEnd) {
+                continue;
+            }
+
+            float z = z0 + (columnStart + 0.5f - x0) * depthStepX + (sampleY - y0) * depthStepY;
+            int index = row * width + columnStart;
+            for (int column = columnStart; column <= columnEnd; column++, index++) {
+                if (z < depth[index]) {
+                    depth[index] = z;
+                    pixels[index] = rgb;
+                }
+                z += depthStepX;
+            }
+        }
+    }
+
+    /**
+     * Fill a convex quad given in drawing order, as two triangles
+     *
+     * @param rgb The fill color
+     */
+    public void fillQuad(float x0, float y0, float z0, float x1, float y1, float z1,
+                         float x2, float y2, float z2, float x3, float y3, float z3, int rgb) {
+        fillTriangle(x0, y0, z0, x1, y1, z1, x2, y2, z2, rgb);
+        fillTriangle(x0, y0, z0, x2, y2, z2, x3, y3, z3, rgb);
+    }
+
+    /**
+     * Draw a one pixel wide line that is hidden where a nearer surface covers it
+     *
+     * @param rgb The line color
+     */
+    public void drawLine(float x0, float y0, float z0, float x1, float y1, float z1, int rgb) {
+        drawLine(x0, y0, z0, x1, y1, z1, rgb, 0, 0, width, height);
+    }
+
+    /**
+     * Draw the part of a line that lies inside a clip rectangle
+     *
+     * @param rgb The line color
+     * @param clipLeft The first column that may be written
+     * @param clipTop The first row that may be written
+     * @param clipRight The column after the last one that may be written
+     * @param clipBottom The row after the last one that may be written
+     */
+    void drawLine(float x0, float y0, float z0, float x1, float y1, float z1, int rgb,
+                  int clipLeft, int clipTop, int clipRight, int clipBottom) {
+        if (Math.max(x0, x1) < clipLeft || Math.max(y0, y1) < clipTop
+                || Math.min(x0, x1) >= clipRight || Math.min(y0, y1) >= clipBottom) {
+            return;
+        }
+
+        float dx = x1 - x0;
+        float dy = y1 - y0;
+        int steps = Math.max(1, (int) Math.ceil(Math.max(Math.abs(dx), Math.abs(dy))));
+        float stepX = dx / steps;
+        float stepY = dy / steps;
+        float stepZ = (z1 - z0) / steps;
+
+        // Only walk the steps near the clip rectangle, lines ending close to the camera can be very long
+        double first = 0;
+        double last = steps;
+        if (stepX != 0) {
+            double a = (clipLeft - 1 - x0) / stepX;
+            double b = (clipRight + 1 - x0) / stepX;
+            first = Math.max(first, Math.min(a, b));
+            last = Math.min(last, Math.max(a, b));
+        }
+        if (stepY != 0) {
+            double a = (clipTop - 1 - y0) / stepY;
+            double b = (clipBottom + 1 - y0) / stepY;
+            first = Math.max(first, Math.min(a, b));
+            last = Math.min(last, Math.max(a, b));
+        }
+        if (first > last) {
+            return;
+        }
+        int firstStep = (int) Math.max(0, Math.floor(first));
+        int lastStep = (int) Math.min(steps, Math.ceil(last));
+        float x = x0 + stepX * firstStep;
+        float y = y0 + stepY * firstStep;
+        float z = z0 - LINE_DEPTH_BIAS + stepZ * firstStep;
+        for (int i = firstStep; i <= lastStep; i++) {
+            int column = (int) Math.floor(x);
+            int row = (int) Math.floor(y);
+            if (column >= clipLeft && row >= clipTop && column < clipRight && row < clipBottom) {
+                int index = row * width + column;
+                if (z <= depth[index]) {
+                    pixels[index] = rgb;
+                }
+            }
+            x += stepX;
+            y += stepY;
+            z += stepZ;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.example.hci.view.render;
+
+import javax.swing.Timer;
+
+/**
+ * Paces a canvas's frames to a target rate on the Event Dispatch Thread.
+ *
+ * Input handlers record what changed and call {@link #requestFrame()} instead of
+ * applying every event right away. Requests arriving before the next frame is due
+ * are merged into it, so a 1000 Hz mouse or key auto-repeat results in at most one
+ * frame per refresh interval. The frame callback applies the accumulated input and
+ * repaints. All methods must be called on the Event Dispatch Thread.
+ */
+public class RenderScheduler {
+    public static final int DEFAULT_FRAME_RATE = 60;
+
+    private final Runnable frame;
+    private final Timer timer;
+    private long frameIntervalNanos;
+    private long lastFrameNanos;
+    private long dueNanos;
+    private boolean pending = false;
+
+    private long requestCount = 0;
+    private long frameCount = 0;
+    private long coalescedCount = 0;
+    private long droppedFrameCount = 0;
+
+    public RenderScheduler(Runnable frame) {
+        this(DEFAULT_FRAME_RATE, frame);
+    }
+
+    /**
+     * Create a scheduler
+     *
+     * @param targetFrameRate The maximum number of frames per second
+     * @param frame Applies pending input and repaints, called on the Event Dispatch Thread
+     */
+    public RenderScheduler(int targetFrameRate, Runnable frame) {
+        this.frame = frame;
+        this.timer = new Timer(0, event -> runFrame());
+        this.timer.setRepeats(false);
+        setTargetFrameRate(targetFrameRate);
+        this.lastFrameNanos = System.nanoTime() - frameIntervalNanos;
+    }
+
+    /**
+     * Change the maximum frame rate
+     *
+     * @param targetFrameRate Frames per second, e.g. 60 or 120
+     */
+    public void setTargetFrameRate(int targetFrameRate) {
+        if (targetFrameRate <= 0) {
+            throw new IllegalArgumentException("Frame rate must be positive: " + targetFrameRate);
+        }
+        this.frameIntervalNanos = 1_000_000_000L / targetFrameRate;
+    }
+
+    public int getTargetFrameRate() {
+        return (int) (1_000_000_000L / frameIntervalNanos);
+    }
+
+    /**
+     * Ask for a frame. It runs once the frame interval since the previous frame has passed;
+     * further requests until then are coalesced into it.
+     */
+    public void requestFrame() {
+        requestCount++;
+        if (pending) {
+            coalescedCount++;
+            return;
+        }
+
+        pending = true;
+        long now = System.nanoTime();
+        dueNanos = Math.max(now, lastFrameNanos + frameIntervalNanos);
+        timer.setInitialDelay((int) ((dueNanos - now) / 1_000_000));
+        timer.restart();
+    }
+
+    /**
+     * Run a pending frame immediately, e.g. when a drag ends and the final position must show
+     */
+    public void flush() {
+        if (pending) {
+            timer.stop();
+            runFrame();
+        }
+    }
+
+    /**
+     * Discard a pending frame without running it
+     */
+    public void cancel() {
+        timer.stop();
+        pending = false;
+    }
+
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Get the number of requests that were merged into an already pending frame
+     *
+     * @return The coalesced request count
+     */
+    public long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * Get the number of frame intervals missed because frames started late,
+     * e.g. because the previous frame or other work held up the Event Dispatch Thread
+     *
+     * @return The dropped frame count
+     */
+    public long getDroppedFrameCount() {
+        return droppedFrameCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d frames at %d fps target, %d requests coalesced, %d frames dropped",
+                frameCount, getTargetFrameRate(), coalescedCount, droppedFrameCount);
+    }
+
+    private void runFrame() {
+        if (!pending) {
+            return;
+        }
+        pending = false;
+
+        long now = System.nanoTime();
+        droppedFrameCount += (now - dueNanos) / frameIntervalNanos;
+        lastFrameNanos = now;
+        frameCount++;
+        frame.run();
+    }
+}
@@ -0,0 +1,963 @@
+package org.example.hci.view.render;
+
+import org.example.hci.model.Design;
+import org.example.hci.model.FurnitureItem;
+import org.example.hci.model.Room;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Renders a design's room and furniture as flat-shaded boxes into a {@link Rasterizer}.
+ *
+ * The view is the perspective projection of a {@link Camera}, held in a
+ * {@link ViewProjection} matrix that all vertices of a frame are transformed by in
+ * one pass; vertices, primitives and tile bins live in arrays reused between frames,
+ * so orbiting the camera allocates nothing. Item boxes come from a {@link MeshCache}
+ * and are only rebuilt when the item changes. Furniture types with a model in the
+ * {@link ModelStore} are drawn as instances of the shared model instead, at a level
+ * of detail chosen by their size on screen. Items whose bounds are outside the view
+ * are skipped before projection, and faces turned away from the viewer are skipped
+ * by their normals. Every remaining face is rasterized with its depth, so occlusion
+ * is correct regardless of how items overlap or are rotated. Side faces are shaded
+ * darker than the top, like the original polygon renderer.
+ *
+ * A frame is built in two passes. The scene is first projected into a list of
+ * screen-space triangles and lines, each of which is binned into the square tiles
+ * its bounds overlap. The tiles are then rasterized independently, in parallel on a
+ * {@link ForkJoinPool} when more than one thread is configured. Tiles cover disjoint
+ * pixels of the same image, so no merging is needed once all of them are done.
+ * Rendering the same frame with any thread count gives identical pixels.
+ */
+public class SceneRenderer {
+    public static final double WALL_HEIGHT_SCALE = 0.7; // Make walls shorter for better visibility
+    public static final int TILE_SIZE = 64;
+    public static final int DEFAULT_MODEL_TRIANGLE_BUDGET = 60_000;
+
+    private static final int OUTLINE_RGB = 0x000000;
+    private static final int HIGHLIGHT_RGB = 0x0000FF; // Selected items are outlined in blue like in the 2D view
+    private static final Font LABEL_FONT = new Font("Arial", Font.PLAIN, 10);
+
+    // Room space vertices of the frame, projected in one pass into screen space
+    private final ViewProjection viewProjection = new ViewProjection();
+    private float[] worldVertices = new float[3 * 8 * 64];
+    private float[] screenVertices = new float[3 * 8 * 64];
+    private float[] clipVertices = new float[4 * 8 * 64];
+    private int vertexCount = 0;
+
+    // Polygon of a face while it is clipped against the near plane
+    private final float[] clipPolygon = new float[4 * 8];
+    private final float[] clippedPolygon = new float[4 * 8];
+    private final MeshCache meshCache = new MeshCache();
+    private MeshCache.ItemMesh[] frameMeshes = new MeshCache.ItemMesh[64];
+    private FurnitureModel[] frameModels = new FurnitureModel[64];
+    private double[] frameSizes = new double[64];
+    private FurnitureModel.Level[] frameLevels = new FurnitureModel.Level[64];
+    private int[] frameBases = new int[64];
+    private ModelStore modelStore = ModelStore.getShared();
+    private int modelTriangleBudget = DEFAULT_MODEL_TRIANGLE_BUDGET;
+    private double lastDetailScale = 1;
+    private int modelTriangleCount = 0;
+
+    // Label anchors of the last frame
+    private float[] labelX = new float[64];
+    private float[] labelY = new float[64];
+    private float[] labelZ = new float[64];
+    private String[] labelText = new String[64];
+    private int labelCount = 0;
+
+    // The item drawn with a highlighted outline, and the color of the lines being added
+    private FurnitureItem highlightedItem;
+    private int lineRgb = OUTLINE_RGB;
+
+    // Primitives of the current frame and the tiles they were binned into
+    private final PrimitiveBuffer primitives = new PrimitiveBuffer();
+    private int tilesX;
+    private int tilesY;
+    private int[][] triangleBins = new int[0][];
+    private int[] triangleBinCounts = new int[0];
+    private int[][] lineBins = new int[0][];
+    private int[] lineBinCounts = new int[0];
+
+    // Parallel rasterization, null when rendering on the calling thread only
+    private final int threadCount;
+    private final ForkJoinPool pool;
+    private final FrameTask frameTask = new FrameTask();
+    private TileTask[] tileTasks = new TileTask[0];
+    private Rasterizer target;
+    private int targetBackground;
+
+    private long lastGeometryNanos = 0;
+
+    // What the last frame drew and what culling skipped
+    private int drawnItemCount = 0;
+    private int culledItemCount = 0;
+    private int drawnFaceCount = 0;
+    private int culledFaceCount = 0;
+    private long lastRasterNanos = 0;
+
+    public SceneRenderer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a renderer with a fixed number of rasterizer threads
+     *
+     * @param threadCount The number of threads tiles are rasterized on, 1 to render on the calling thread only
+     */
+    public SceneRenderer(int threadCount) {
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threadCount);
+        }
+        this.threadCount = threadCount;
+        this.pool = threadCount > 1 ? new ForkJoinPool(threadCount) : null;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Get the time the last frame spent projecting the scene and binning primitives
+     *
+     * @return The duration in nanoseconds
+     */
+    public long getLastGeometryNanos() {
+        return lastGeometryNanos;
+    }
+
+    /**
+     * Get the time the last frame spent rasterizing its tiles
+     *
+     * @return The duration in nanoseconds
+     */
+    public long getLastRasterNanos() {
+        return lastRasterNanos;
+    }
+
+    /**
+     * Get the number of triangles in the last frame
+     *
+     * @return The triangle count
+     */
+    public int getTriangleCount() {
+        return primitives.triangleCount;
+    }
+
+    public int getLineCount() {
+        return primitives.lineCount;
+    }
+
+    /**
+     * Get the number of items of the last frame that were at least partly in view
+     *
+     * @return The drawn item count
+     */
+    public int getDrawnItemCount() {
+        return drawnItemCount;
+    }
+
+    /**
+     * Get the number of items of the last frame skipped because their bounds were outside the view
+     *
+     * @return The culled item count
+     */
+    public int getCulledItemCount() {
+        return culledItemCount;
+    }
+
+    /**
+     * Get the number of room and item faces of the last frame that faced the viewer
+     *
+     * @return The drawn face count
+     */
+    public int getDrawnFaceCount() {
+        return drawnFaceCount;
+    }
+
+    /**
+     * Get the number of room and item faces of the last frame skipped because they faced away,
+     * not counting those of culled items
+     *
+     * @return The culled face count
+     */
+    public int getCulledFaceCount() {
+        return culledFaceCount;
+    }
+
+    /**
+     * Stop the rasterizer threads. The renderer must not be used afterwards.
+     */
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Render a design seen through a perspective camera
+     *
+     * @param design The design to render
+     * @param raster The target, already sized to the view
+     * @param camera The camera
+     * @param backgroundRgb The color behind the room
+     */
+    public void render(Design design, Rasterizer raster, Camera camera, int backgroundRgb) {
+        prepare(design, raster, camera);
+        rasterize(raster, backgroundRgb);
+    }
+
+    /**
+     * Run the geometry pass of a frame: project the design and bin its primitives into tiles.
+     * This is the only part of a frame that reads the design, so it must run on the thread
+     * that owns the model, while {@link #rasterize} may run on any other thread.
+     *
+     * @param design The design to render
+     * @param raster The target the frame will be rasterized into, already sized to the view
+     * @param camera The camera
+     */
+    public void prepare(Design design, Rasterizer raster, Camera camera) {
+        long start = System.nanoTime();
+        viewProjection.update(camera, raster.getWidth(), raster.getHeight());
+        buildFrame(design, raster);
+        lastGeometryNanos = System.nanoTime() - start;
+    }
+
+    private void buildFrame(Design design, Rasterizer raster) {
+        primitives.clear();
+        labelCount = 0;
+        drawnItemCount = 0;
+        culledItemCount = 0;
+        drawnFaceCount = 0;
+        culledFaceCount = 0;
+        modelTriangleCount = 0;
+
+        // Corners of the room first, then eight per item
+        Room room = design.getRoom();
+        List<FurnitureItem> items = design.getFurnitureItems();
+        vertexCount = 0;
+        ensureVertexCapacity(8 * (items.size() + 1));
+        if (frameMeshes.length < items.size()) {
+            frameMeshes = new MeshCache.ItemMesh[items.size() * 3 / 2];
+            frameModels = new FurnitureModel[frameMeshes.length];
+            frameSizes = new double[frameMeshes.length];
+            frameLevels = new FurnitureModel.Level[frameMeshes.length];
+            frameBases = new int[frameMeshes.length];
+        }
+        addRoomVertices(room);
+
+        // Items entirely outside the view are neither projected nor drawn
+        for (int i = 0; i < items.size(); i++) {
+            FurnitureItem item = items.get(i);
+            MeshCache.ItemMesh mesh = meshCache.meshOf(item);
+            if (!viewProjection.intersectsFrustum(mesh.minX, mesh.minY, 0, mesh.maxX, mesh.maxY, mesh.maxZ)) {
+                culledItemCount++;
+                continue;
+            }
+
+            // Items with a model are drawn at the level of detail their size on screen needs
+            FurnitureModel model = modelStore == null ? null : modelStore.getModel(item.getType());
+            frameMeshes[drawnItemCount] = mesh;
+            frameModels[drawnItemCount] = model;
+            if (model != null) {
+                double size = Math.max(mesh.maxZ, Math.max(mesh.width, mesh.depth));
+                frameSizes[drawnItemCount] = size * viewProjection.pixelsPerMeterAt(mesh.centerX, mesh.centerY, mesh.maxZ / 2);
+            }
+            drawnItemCount++;
+        }
+        chooseLevels();
+
+        for (int i = 0; i < drawnItemCount; i++) {
+            MeshCache.ItemMesh mesh = frameMeshes[i];
+            FurnitureModel.Level level = frameLevels[i];
+            frameBases[i] = vertexCount;
+
+            // The box corners come first, also for models, as they place the label and the highlight
+            ensureVertexCapacity(vertexCount + MeshCache.VERTEX_COUNT + (level == null ? 0 : level.getVertexCount()));
+            System.arraycopy(mesh.vertices, 0, worldVertices, vertexCount * 3, mesh.vertices.length);
+            vertexCount += MeshCache.VERTEX_COUNT;
+            if (level != null) {
+                addInstanceVertices(mesh, level);
+            }
+        }
+        viewProjection.transform(worldVertices, clipVertices, screenVertices, vertexCount);
+
+        drawRoom(room);
+        for (int i = 0; i < drawnItemCount; i++) {
+            if (frameLevels[i] == null) {
+                drawItem(frameMeshes[i], frameBases[i]);
+            } else {
+                drawModel(frameMeshes[i], frameLevels[i], frameBases[i]);
+            }
+            frameMeshes[i] = null;
+            frameModels[i] = null;
+            frameLevels[i] = null;
+        }
+        meshCache.endFrame(items.size());
+        binPrimitives(raster.getWidth(), raster.getHeight());
+    }
+
+    /**
+     * Rasterize the frame prepared by the last call to {@link #prepare}
+     *
+     * @param raster The target passed to {@link #prepare}
+     * @param backgroundRgb The color behind the room
+     */
+    public void rasterize(Rasterizer raster, int backgroundRgb) {
+        if ((raster.getWidth() + TILE_SIZE - 1) / TILE_SIZE != tilesX
+                || (raster.getHeight() + TILE_SIZE - 1) / TILE_SIZE != tilesY) {
+            throw new IllegalStateException("Frame was prepared for a target of another size");
+        }
+        long start = System.nanoTime();
+        target = raster;
+        targetBackground = backgroundRgb;
+        try {
+            int tileCount = tilesX * tilesY;
+            if (pool == null) {
+                for (int tile = 0; tile < tileCount; tile++) {
+                    rasterizeTile(tile);
+                }
+            } else {
+                prepareTileTasks(tileCount);
+                frameTask.reinitialize();
+                pool.invoke(frameTask);
+            }
+        } finally {
+            target = null;
+        }
+
+        lastRasterNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Draw the furniture labels of the last rendered frame, skipping those hidden behind other surfaces
+     *
+     * @param g2d The graphics context the rendered image was drawn to
+     * @param raster The rasterizer the frame was rendered with
+     */
+    public void drawLabels(Graphics2D g2d, Rasterizer raster) {
+        drawLabels(g2d, raster, 1);
+    }
+
+    /**
+     * Draw the furniture labels of the last rendered frame onto an image smaller than the raster,
+     * e.g. after downsampling a supersampled frame
+     *
+     * @param g2d The graphics context the downsampled image was drawn to
+     * @param raster The rasterizer the frame was rendered with
+     * @param pixelScale The number of raster pixels per image pixel along each axis
+     */
+    public void drawLabels(Graphics2D g2d, Rasterizer raster, int pixelScale) {
+        g2d.setColor(Color.BLACK);
+        g2d.setFont(LABEL_FONT);
+        for (int i = 0; i < labelCount; i++) {
+            if (labelZ[i] <= raster.depthAt((int) labelX[i], (int) labelY[i]) + pixelScale) {
+                g2d.drawString(labelText[i], (int) (labelX[i] / pixelScale), (int) (labelY[i] / pixelScale));
+            }
+        }
+    }
+
+    /**
+     * Change where the models of furniture types come from
+     *
+     * @param modelStore The model store, or null to draw every item as a box
+     */
+    public void setModelStore(ModelStore modelStore) {
+        this.modelStore = modelStore;
+    }
+
+    public ModelStore getModelStore() {
+        return modelStore;
+    }
+
+    /**
+     * Change how many model triangles a frame may hold before levels of detail are coarsened
+     *
+     * @param modelTriangleBudget The triangle budget
+     */
+    public void setModelTriangleBudget(int modelTriangleBudget) {
+        this.modelTriangleBudget = modelTriangleBudget;
+    }
+
+    public int getModelTriangleBudget() {
+        return modelTriangleBudget;
+    }
+
+    /**
+     * Get the factor item sizes were scaled by to keep the last frame within the triangle budget
+     *
+     * @return The detail scale, 1 if the budget was not exceeded
+     */
+    public double getLastDetailScale() {
+        return lastDetailScale;
+    }
+
+    /**
+     * Get the number of model triangles drawn in the last frame, after choosing levels of detail and culling
+     *
+     * @return The model triangle count
+     */
+    public int getModelTriangleCount() {
+        return modelTriangleCount;
+    }
+
+    /**
+     * Outline an item in the highlight color, e.g. the one selected in the 3D view
+     *
+     * @param item The item to highlight, or null for none
+     */
+    public void setHighlightedItem(FurnitureItem item) {
+        this.highlightedItem = item;
+    }
+
+    public FurnitureItem getHighlightedItem() {
+        return highlightedItem;
+    }
+
+    /**
+     * Get the projection the last frame was rendered with
+     *
+     * @return The view projection, rebuilt only when the view changes
+     */
+    public ViewProjection getViewProjection() {
+        return viewProjection;
+    }
+
+    /**
+     * Get the cache of item meshes the frames are built from
+     *
+     * @return The mesh cache
+     */
+    public MeshCache getMeshCache() {
+        return meshCache;
+    }
+
+    /**
+     * Get the buffer the primitives of each frame are collected in, reused across frames
+     *
+     * @return The primitive buffer
+     */
+    PrimitiveBuffer getPrimitives() {
+        return primitives;
+    }
+
+    /**
+     * Get the per tile lists of triangle indices, reused across frames of the same size
+     *
+     * @return The triangle bins, one per tile
+     */
+    int[][] getTriangleBins() {
+        return triangleBins;
+    }
+
+    /**
+     * Get the per tile lists of line indices, reused across frames of the same size
+     *
+     * @return The line bins, one per tile
+     */
+    int[][] getLineBins() {
+        return lineBins;
+    }
+
+    private void ensureVertexCapacity(int vertices) {
+        if (worldVertices.length < vertices * 3) {
+            // Vertices added so far in this frame are kept, nothing has been projected yet
+            float[] grown = new float[vertices * 3 * 3 / 2];
+            System.arraycopy(worldVertices, 0, grown, 0, vertexCount * 3);
+            worldVertices = grown;
+            screenVertices = new float[worldVertices.length];
+            clipVertices = new float[worldVertices.length / 3 * 4];
+        }
+    }
+
+    /**
+     * Choose the level of detail of each model item. When the levels their sizes on screen
+     * call for add up to more triangles than the budget, all items are taken as half as
+     * large until they fit or the coarsest levels are reached, which bounds the frame time.
+     */
+    private void chooseLevels() {
+        double detailScale = 1;
+        while (true) {
+            int triangles = 0;
+            for (int i = 0; i < drawnItemCount; i++) {
+                FurnitureModel model = frameModels[i];
+                frameLevels[i] = model == null ? null : model.levelFor(frameSizes[i] * detailScale);
+                triangles += model == null ? 0 : frameLevels[i].getTriangleCount();
+            }
+            if (triangles <= modelTriangleBudget || detailScale < 1e-3) {
+                break;
+            }
+            detailScale /= 2;
+        }
+        lastDetailScale = detailScale;
+    }
+
+    /**
+     * Add the vertices of a model level stretched, rotated and moved into an item's place
+     */
+    private void addInstanceVertices(MeshCache.ItemMesh mesh, FurnitureModel.Level level) {
+        float[] unit = level.vertices;
+        double height = mesh.maxZ;
+        int offset = vertexCount * 3;
+        for (int i = 0; i < unit.length; i += 3) {
+            double localX = unit[i] * mesh.width;
+            double localY = unit[i + 1] * mesh.depth;
+            worldVertices[offset++] = (float) (mesh.centerX + localX * mesh.cos - localY * mesh.sin);
+            worldVertices[offset++] = (float) (mesh.centerY + localX * mesh.sin + localY * mesh.cos);
+            worldVertices[offset++] = (float) (unit[i + 2] * height);
+        }
+        vertexCount += unit.length / 3;
+    }
+
+    private void addVertex(double x, double y, double z) {
+        int offset = vertexCount * 3;
+        worldVertices[offset] = (float) x;
+        worldVertices[offset + 1] = (float) y;
+        worldVertices[offset + 2] = (float) z;
+        vertexCount++;
+    }
+
+    private void addRoomVertices(Room room) {
+        double width = room.getWidth();
+        double length = room.getLength();
+        double height = room.getHeight() * WALL_HEIGHT_SCALE;
+
+        // Floor corners 0-3 and ceiling corners 4-7, clockwise from the back left
+        addVertex(0, 0, 0);
+        addVertex(width, 0, 0);
+        addVertex(width, length, 0);
+        addVertex(0, length, 0);
+        addVertex(0, 0, height);
+        addVertex(width, 0, height);
+        addVertex(width, length, height);
+        addVertex(0, length, height);
+    }
+
+    private void drawRoom(Room room) {
+        double width = room.getWidth();
+        double length = room.getLength();
+
+        if (isFrontFace(0, 0, 0, 0, 0, 1)) {
+            fillFace(0, 0, 1, 2, 3, room.getFloorColor().getRGB());
+            outlineFace(0, 0, 1, 2, 3);
+        }
+
+        // Only the walls whose inside faces the viewer are drawn, the near ones would hide the furniture
+        int wallRgb = room.getWallColor().getRGB();
+        if (isFrontFace(0, 0, 0, 1, 0, 0)) {
+            fillFace(0, 0, 3, 7, 4, wallRgb);
+            outlineFace(0, 0, 3, 7, 4);
+        }
+        if (isFrontFace(width, 0, 0, -1, 0, 0)) {
+            fillFace(0, 1, 2, 6, 5, wallRgb);
+            outlineFace(0, 1, 2, 6, 5);
+        }
+        if (isFrontFace(0, 0, 0, 0, 1, 0)) {
+            fillFace(0, 0, 1, 5, 4, wallRgb);
+            outlineFace(0, 0, 1, 5, 4);
+        }
+        if (isFrontFace(0, length, 0, 0, -1, 0)) {
+            fillFace(0, 3, 2, 6, 7, wallRgb);
+            outlineFace(0, 3, 2, 6, 7);
+        }
+    }
+
+    /**
+     * Draw an item as an instance of its model: the triangles facing the viewer, shaded by their normal
+     *
+     * @param mesh The item's box, whose corners come first at the base
+     * @param level The level of detail, whose vertices follow the box corners
+     * @param base The index of the item's first vertex
+     */
+    private void drawModel(MeshCache.ItemMesh mesh, FurnitureModel.Level level, int base) {
+        int modelBase = base + MeshCache.VERTEX_COUNT;
+        int[] triangles = level.triangles;
+        float[] normals = level.normals;
+
+        // Normals are scaled inversely to the vertices before being rotated like them
+        double inverseWidth = mesh.width > 0 ? 1 / mesh.width : 0;
+        double inverseDepth = mesh.depth > 0 ? 1 / mesh.depth : 0;
+        double inverseHeight = mesh.maxZ > 0 ? 1 / mesh.maxZ : 0;
+        for (int t = 0; t < triangles.length; t += 3) {
+            double scaledX = normals[t] * inverseWidth;
+            double scaledY = normals[t + 1] * inverseDepth;
+            double normalX = scaledX * mesh.cos - scaledY * mesh.sin;
+            double normalY = scaledX * mesh.sin + scaledY * mesh.cos;
+            int point = (modelBase + triangles[t]) * 3;
+            if (isFrontFace(worldVertices[point], worldVertices[point + 1], worldVertices[point + 2],
+                    normalX, normalY, normals[t + 2] * inverseHeight)) {
+                fillTriangle(modelBase, triangles[t], triangles[t + 1], triangles[t + 2],
+                        darken(mesh.rgb, level.shades[t / 3]));
+                modelTriangleCount++;
+            }
+        }
+
+        // Models have no outlines, except the box of a highlighted item
+        if (mesh.getItem() == highlightedItem) {
+            lineRgb = HIGHLIGHT_RGB;
+            for (int[] edge : MeshCache.EDGES) {
+                addLine(base + edge[0], base + edge[1]);
+            }
+            lineRgb = OUTLINE_RGB;
+        }
+        addItemLabel(mesh, base);
+    }
+
+    private void drawItem(MeshCache.ItemMesh mesh, int base) {
+        float[] vertices = mesh.vertices;
+        float[] normals = mesh.normals;
+        int visibleFaces = 0;
+        for (int face = 0; face < MeshCache.FACES.length; face++) {
+            int[] corners = MeshCache.FACES[face];
+            int point = corners[0] * 3;
+            int normal = face * 3;
+            if (isFrontFace(vertices[point], vertices[point + 1], vertices[point + 2],
+                    normals[normal], normals[normal + 1], normals[normal + 2])) {
+                fillFace(base, corners[0], corners[1], corners[2], corners[3], mesh.faceColors[face]);
+                visibleFaces |= 1 << face;
+            }
+        }
+
+        // Outline only the edges of faces facing the viewer, each once
+        lineRgb = mesh.getItem() == highlightedItem ? HIGHLIGHT_RGB : OUTLINE_RGB;
+        for (int[] edge : MeshCache.EDGES) {
+            if ((visibleFaces & 1 << edge[2]) != 0 || edge[3] >= 0 && (visibleFaces & 1 << edge[3]) != 0) {
+                addLine(base + edge[0], base + edge[1]);
+            }
+        }
+        lineRgb = OUTLINE_RGB;
+        addItemLabel(mesh, base);
+    }
+
+    /**
+     * Label an item at the center of the top of its box
+     */
+    private void addItemLabel(MeshCache.ItemMesh mesh, int base) {
+        float x = 0;
+        float y = 0;
+        float z = 0;
+        for (int i = 4; i < 8; i++) {
+            int offset = (base + i) * 3;
+            x += screenVertices[offset];
+            y += screenVertices[offset + 1];
+            z += screenVertices[offset + 2];
+        }
+        if (!Float.isNaN(x)) {
+            addLabel(mesh.getItem().getType().toString(), x / 4, y / 4, z / 4);
+        }
+    }
+
+    /**
+     * Back-face culling: check whether a face is turned towards the viewer, counting the outcome
+     *
+     * @return True if the face should be drawn
+     */
+    private boolean isFrontFace(double x, double y, double z, double normalX, double normalY, double normalZ) {
+        if (viewProjection.facesViewer(x, y, z, normalX, normalY, normalZ)) {
+            drawnFaceCount++;
+            return true;
+        }
+        culledFaceCount++;
+        return false;
+    }
+
+    private void fillTriangle(int base, int a, int b, int c, int rgb) {
+        float[] v = screenVertices;
+        a += base;
+        b += base;
+        c += base;
+        if (Float.isNaN(v[a * 3]) || Float.isNaN(v[b * 3]) || Float.isNaN(v[c * 3])) {
+            fillClippedFace(a, b, c, c, rgb);
+            return;
+        }
+        a *= 3;
+        b *= 3;
+        c *= 3;
+        primitives.addTriangle(v[a], v[a + 1], v[a + 2], v[b], v[b + 1], v[b + 2], v[c], v[c + 1], v[c + 2], rgb);
+    }
+
+    private void fillFace(int base, int a, int b, int c, int d, int rgb) {
+        float[] v = screenVertices;
+        a += base;
+        b += base;
+        c += base;
+        d += base;
+        if (Float.isNaN(v[a * 3]) || Float.isNaN(v[b * 3]) || Float.isNaN(v[c * 3]) || Float.isNaN(v[d * 3])) {
+            fillClippedFace(a, b, c, d, rgb);
+            return;
+        }
+        a *= 3;
+        b *= 3;
+        c *= 3;
+        d *= 3;
+        primitives.addTriangle(v[a], v[a + 1], v[a + 2], v[b], v[b + 1], v[b + 2], v[c], v[c + 1], v[c + 2], rgb);
+        primitives.addTriangle(v[a], v[a + 1], v[a + 2], v[c], v[c + 1], v[c + 2], v[d], v[d + 1], v[d + 2], rgb);
+    }
+
+    /**
+     * Fill the part of a face in front of the near plane, for faces the camera is inside of or close to
+     */
+    private void fillClippedFace(int a, int b, int c, int d, int rgb) {
+        System.arraycopy(clipVertices, a * 4, clipPolygon, 0, 4);
+        System.arraycopy(clipVertices, b * 4, clipPolygon, 4, 4);
+        System.arraycopy(clipVertices, c * 4, clipPolygon, 8, 4);
+        System.arraycopy(clipVertices, d * 4, clipPolygon, 12, 4);
+
+        // Keep the part with w at least at the near plane, one edge at a time
+        float minW = viewProjection.getMinW();
+        int count = 0;
+        for (int i = 0; i < 4; i++) {
+            int from = i * 4;
+            int to = ((i + 1) % 4) * 4;
+            float fromW = clipPolygon[from + 3];
+            float toW = clipPolygon[to + 3];
+            if (fromW >= minW) {
+                System.arraycopy(clipPolygon, from, clippedPolygon, count * 4, 4);
+                count++;
+            }
+            if ((fromW >= minW) != (toW >= minW)) {
+                float t = (minW - fromW) / (toW - fromW);
+                for (int k = 0; k < 4; k++) {
+                    clippedPolygon[count * 4 + k] = clipPolygon[from + k] + (clipPolygon[to + k] - clipPolygon[from + k]) * t;
+                }
+                count++;
+            }
+        }
+
+        // The clipped polygon is convex, so it is filled as a fan
+        for (int i = 0; i < count; i++) {
+            float w = clippedPolygon[i * 4 + 3];
+            clippedPolygon[i * 4] /= w;
+            clippedPolygon[i * 4 + 1] /= w;
+            clippedPolygon[i * 4 + 2] /= w;
+        }
+        float[] p = clippedPolygon;
+        for (int i = 1; i + 1 < count; i++) {
+            int j = i * 4;
+            int k = (i + 1) * 4;
+            primitives.addTriangle(p[0], p[1], p[2], p[j], p[j + 1], p[j + 2], p[k], p[k + 1], p[k + 2], rgb);
+        }
+    }
+
+    private void outlineFace(int base, int a, int b, int c, int d) {
+        addLine(base + a, base + b);
+        addLine(base + b, base + c);
+        addLine(base + c, base + d);
+        addLine(base + d, base + a);
+    }
+
+    private void addLine(int from, int to) {
+        float[] v = screenVertices;
+        if (Float.isNaN(v[from * 3]) || Float.isNaN(v[to * 3])) {
+            addClippedLine(from, to);
+            return;
+        }
+        from *= 3;
+        to *= 3;
+        primitives.addLine(v[from], v[from + 1], v[from + 2], v[to], v[to + 1], v[to + 2], lineRgb);
+    }
+
+    /**
+     * Draw the part of a line in front of the near plane
+     */
+    private void addClippedLine(int from, int to) {
+        float[] c = clipVertices;
+        float minW = viewProjection.getMinW();
+        from *= 4;
+        to *= 4;
+        float fromW = c[from + 3];
+        float toW = c[to + 3];
+        if (fromW < minW && toW < minW) {
+            return;
+        }
+
+        // Move the end behind the near plane onto it
+        float fromT = fromW < minW ? (minW - fromW) / (toW - fromW) : 0;
+        float toT = toW < minW ? (minW - fromW) / (toW - fromW) : 1;
+        float x0 = c[from] + (c[to] - c[from]) * fromT;
+        float y0 = c[from + 1] + (c[to + 1] - c[from + 1]) * fromT;
+        float z0 = c[from + 2] + (c[to + 2] - c[from + 2]) * fromT;
+        float w0 = fromW + (toW - fromW) * fromT;
+        float x1 = c[from] + (c[to] - c[from]) * toT;
+        float y1 = c[from + 1] + (c[to + 1] - c[from + 1]) * toT;
+        float z1 = c[from + 2] + (c[to + 2] - c[from + 2]) * toT;
+        float w1 = fromW + (toW - fromW) * toT;
+        primitives.addLine(x0 / w0, y0 / w0, z0 / w0, x1 / w1, y1 / w1, z1 / w1, lineRgb);
+    }
+
+    /**
+     * Sort the primitives of the frame into the tiles their screen bounds overlap
+     */
+    private void binPrimitives(int width, int height) {
+        tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+        int tileCount = tilesX * tilesY;
+        if (triangleBins.length != tileCount) {
+            triangleBins = new int[tileCount][16];
+            triangleBinCounts = new int[tileCount];
+            lineBins = new int[tileCount][16];
+            lineBinCounts = new int[tileCount];
+        } else {
+            Arrays.fill(triangleBinCounts, 0);
+            Arrays.fill(lineBinCounts, 0);
+        }
+
+        float[] triangles = primitives.triangles;
+        for (int i = 0; i < primitives.triangleCount; i++) {
+            int offset = i * PrimitiveBuffer.TRIANGLE_STRIDE;
+            float minX = Math.min(triangles[offset], Math.min(triangles[offset + 3], triangles[offset + 6]));
+            float maxX = Math.max(triangles[offset], Math.max(triangles[offset + 3], triangles[offset + 6]));
+            float minY = Math.min(triangles[offset + 1], Math.min(triangles[offset + 4], triangles[offset + 7]));
+            float maxY = Math.max(triangles[offset + 1], Math.max(triangles[offset + 4], triangles[offset + 7]));
+            binBounds(i, minX, minY, maxX, maxY, triangleBins, triangleBinCounts);
+        }
+
+        float[] lines = primitives.lines;
+        for (int i = 0; i < primitives.lineCount; i++) {
+            int offset = i * PrimitiveBuffer.LINE_STRIDE;
+            binBounds(i, Math.min(lines[offset], lines[offset + 3]), Math.min(lines[offset + 1], lines[offset + 4]),
+                    Math.max(lines[offset], lines[offset + 3]), Math.max(lines[offset + 1], lines[offset + 4]),
+                    lineBins, lineBinCounts);
+        }
+    }
+
+    private void binBounds(int primitive, float minX, float minY, float maxX, float maxY,
+                           int[][] bins, int[] binCounts) {
+        // Also rejects NaN coordinates, which fail every comparison
+        if (!(maxX >= 0 && maxY >= 0 && minX < tilesX * TILE_SIZE && minY < tilesY * TILE_SIZE)) {
+            return;
+        }
+        int firstColumn = Math.max(0, (int) Math.floor(minX) / TILE_SIZE);
+        int lastColumn = Math.min(tilesX - 1, (int) Math.floor(maxX) / TILE_SIZE);
+        int firstRow = Math.max(0, (int) Math.floor(minY) / TILE_SIZE);
+        int lastRow = Math.min(tilesY - 1, (int) Math.floor(maxY) / TILE_SIZE);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int tile = row * tilesX + column;
+                int count = binCounts[tile];
+                if (count == bins[tile].length) {
+                    bins[tile] = Arrays.copyOf(bins[tile], count * 2);
+                }
+                bins[tile][count] = primitive;
+                binCounts[tile] = count + 1;
+            }
+        }
+    }
+
+    /**
+     * Clear one tile and draw everything binned into it, faces first so outlines are depth-tested against all of them
+     */
+    private void rasterizeTile(int tile) {
+        Rasterizer raster = target;
+        int left = (tile % tilesX) * TILE_SIZE;
+        int top = (tile / tilesX) * TILE_SIZE;
+        int right = Math.min(left + TILE_SIZE, raster.getWidth());
+        int bottom = Math.min(top + TILE_SIZE, raster.getHeight());
+        raster.clear(targetBackground, left, top, right, bottom);
+
+        float[] triangles = primitives.triangles;
+        int[] triangleColors = primitives.triangleColors;
+        int[] triangleBin = triangleBins[tile];
+        for (int i = 0; i < triangleBinCounts[tile]; i++) {
+            int triangle = triangleBin[i];
+            int offset = triangle * PrimitiveBuffer.TRIANGLE_STRIDE;
+            raster.fillTriangle(triangles[offset], triangles[offset + 1], triangles[offset + 2],
+                    triangles[offset + 3], triangles[offset + 4], triangles[offset + 5],
+                    triangles[offset + 6], triangles[offset + 7], triangles[offset + 8],
+                    triangleColors[triangle], left, top, right, bottom);
+        }
+
+        float[] lines = primitives.lines;
+        int[] lineColors = primitives.lineColors;
+        int[] lineBin = lineBins[tile];
+        for (int i = 0; i < lineBinCounts[tile]; i++) {
+            int line = lineBin[i];
+            int offset = line * PrimitiveBuffer.LINE_STRIDE;
+            raster.drawLine(lines[offset], lines[offset + 1], lines[offset + 2],
+                    lines[offset + 3], lines[offset + 4], lines[offset + 5],
+                    lineColors[line], left, top, right, bottom);
+        }
+    }
+
+    private void addLabel(String text, float x, float y, float z) {
+        if (labelCount == labelX.length) {
+            int capacity = labelCount * 2;
+            labelX = Arrays.copyOf(labelX, capacity);
+            labelY = Arrays.copyOf(labelY, capacity);
+            labelZ = Arrays.copyOf(labelZ, capacity);
+            labelText = Arrays.copyOf(labelText, capacity);
+        }
+        labelX[labelCount] = x;
+        labelY[labelCount] = y;
+        labelZ[labelCount] = z;
+        labelText[labelCount] = text;
+        labelCount++;
+    }
+
+    /**
+     * Size the reusable tile tasks for a frame, a few per thread so idle threads can steal work
+     */
+    private void prepareTileTasks(int tileCount) {
+        int taskCount = Math.min(tileCount, threadCount * 4);
+        if (tileTasks.length != taskCount) {
+            tileTasks = new TileTask[taskCount];
+            for (int i = 0; i < taskCount; i++) {
+                tileTasks[i] = new TileTask(i);
+            }
+        }
+        for (TileTask task : tileTasks) {
+            task.reinitialize();
+        }
+    }
+
+    /**
+     * Runs all tile tasks of a frame inside the pool. Tasks are reused from frame to frame.
+     */
+    private class FrameTask extends RecursiveAction {
+        @Override
+        protected void compute() {
+            invokeAll(tileTasks);
+        }
+    }
+
+    /**
+     * Rasterizes every n-th tile, n being the number of tasks. Interleaving spreads the
+     * busy tiles in the middle of the view over all tasks.
+     */
+    private class TileTask extends RecursiveAction {
+        private final int first;
+
+        TileTask(int first) {
+            this.first = first;
+        }
+
+        @Override
+        protected void compute() {
+            int tileCount = tilesX * tilesY;
+            for (int tile = first; tile < tileCount; tile += tileTasks.length) {
+                rasterizeTile(tile);
+            }
+        }
+    }
+
+    /**
+     * Create a darker shade of a color
+     *
+     * @param rgb The base color
+     * @param factor The darkening factor (0.0 to 1.0)
+     * @return The darkened color
+     */
+    static int darken(int rgb, double factor) {
+        int r = (int) (((rgb >> 16) & 0xFF) * factor);
+        int g = (int) (((rgb >> 8) & 0xFF) * factor);
+        int b = (int) ((rgb & 0xFF) * factor);
+        return (Math.max(0, Math.min(255, r)) << 16)
+                | (Math.max(0, Math.min(255, g)) << 8)
+                | Math.max(0, Math.min(255, b));
+    }
+}
@@ -0,0 +1,314 @@
+package org.example.hci.view.render;
+
+import org.example.hci.model.Design;
+import org.example.hci.storage.DesignStore;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders many preview images in parallel and writes them as PNG files, e.g. to
+ * pre-generate the previews of every stored design overnight.
+ *
+ * Work is spread over a fixed pool of threads, one per core by default, and each
+ * thread renders with its own {@link OffscreenRenderer}. Stored designs are loaded by
+ * the thread rendering them and dropped afterwards, so memory stays bounded however
+ * many designs there are. A design that fails is reported and does not stop the others.
+ */
+public class SnapshotBatch implements AutoCloseable {
+    public static final String IMAGE_FORMAT = "png";
+    public static final String IMAGE_EXTENSION = ".png";
+    public static final int DEFAULT_WIDTH = 800;
+    public static final int DEFAULT_HEIGHT = 600;
+
+    private final ExecutorService executor;
+    private final ThreadLocal<OffscreenRenderer> renderers = ThreadLocal.withInitial(OffscreenRenderer::new);
+    private volatile int width = DEFAULT_WIDTH;
+    private volatile int height = DEFAULT_HEIGHT;
+    private volatile int supersampling = ProgressiveRenderer.SUPERSAMPLING;
+    private volatile int backgroundRgb = OffscreenRenderer.DEFAULT_BACKGROUND_RGB;
+    private volatile boolean skipExisting = false;
+
+    public SnapshotBatch() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a batch renderer
+     *
+     * @param threadCount The number of images rendered at the same time
+     */
+    public SnapshotBatch(int threadCount) {
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threadCount);
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Render a design turning around its room, one image per step, in parallel
+     *
+     * @param design The design, which must not change until the returned future completes
+     * @param start The view of the first frame
+     * @param frameCount The number of frames in a full turn
+     * @param outputDirectory The directory the frames are written to
+     * @param prefix The start of the file names, followed by the frame number
+     * @return A future completing with the metrics once every frame has been written
+     */
+    public CompletableFuture<BatchMetrics> renderTurntable(Design design, Camera start, int frameCount,
+                                                           Path outputDirectory, String prefix) {
+        long startTime = System.nanoTime();
+        AtomicInteger written = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        Camera first = new Camera(start);
+
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[frameCount];
+        for (int i = 0; i < frameCount; i++) {
+            int frame = i;
+            tasks[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    write(renderFrame(design, first, frame, frameCount), frameFile(outputDirectory, prefix, frame, frameCount));
+                    written.incrementAndGet();
+                } catch (IOException | RuntimeException e) {
+                    failed.incrementAndGet();
+                    System.err.println("Could not render frame " + frame + " of " + design.getName() + ": " + e);
+                }
+            }, executor);
+        }
+
+        return CompletableFuture.allOf(tasks).thenApply(v -> new BatchMetrics(
+                1, written.get(), failed.get(), 0, System.nanoTime() - startTime));
+    }
+
+    /**
+     * Render stored designs in parallel, each into {@code <design id>.png}, or into
+     * {@code <design id>-<frame>.png} for a turntable of several frames
+     *
+     * @param store The store the designs are read from
+     * @param files The design files to render, e.g. {@link DesignStore#listDesignFiles()}
+     * @param preset The view of each design's room, the first frame of a turntable
+     * @param frameCount The number of frames per design, 1 for a single image
+     * @param outputDirectory The directory the images are written to
+     * @return A future completing with the metrics once every design has been handled
+     */
+    public CompletableFuture<BatchMetrics> renderDesigns(DesignStore store, List<Path> files, Camera.Preset preset,
+                                                         int frameCount, Path outputDirectory) {
+        long startTime = System.nanoTime();
+        AtomicInteger written = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[files.size()];
+        for (int i = 0; i < tasks.length; i++) {
+            Path file = files.get(i);
+            tasks[i] = CompletableFuture.runAsync(() -> {
+                String prefix = file.getFileName().toString();
+                int dot = prefix.lastIndexOf('.');
+                prefix = dot > 0 ? prefix.substring(0, dot) : prefix;
+
+                // Frames are written in order, so the last one existing means the design is done
+                if (skipExisting && Files.exists(frameFile(outputDirectory, prefix, frameCount - 1, frameCount))) {
+                    skipped.incrementAndGet();
+                    return;
+                }
+                try {
+                    Design design = store.read(file);
+                    Camera first = Camera.preset(preset, design.getRoom());
+                    for (int frame = 0; frame < frameCount; frame++) {
+                        write(renderFrame(design, first, frame, frameCount),
+                                frameFile(outputDirectory, prefix, frame, frameCount));
+                        written.incrementAndGet();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failed.incrementAndGet();
+                    System.err.println("Could not render design " + file.getFileName() + ": " + e);
+                }
+            }, executor);
+        }
+
+        return CompletableFuture.allOf(tasks).thenApply(v -> new BatchMetrics(
+                files.size(), written.get(), failed.get(), skipped.get(), System.nanoTime() - startTime));
+    }
+
+    /**
+     * Render one frame of a turn on the calling worker's renderer
+     */
+    private BufferedImage renderFrame(Design design, Camera first, int frame, int frameCount) {
+        Camera camera = new Camera(first);
+        camera.orbit(360.0 * frame / frameCount, 0);
+        OffscreenRenderer renderer = renderers.get();
+        renderer.setSupersampling(supersampling);
+        renderer.setBackgroundRgb(backgroundRgb);
+        return renderer.render(design, camera, width, height);
+    }
+
+    private static Path frameFile(Path outputDirectory, String prefix, int frame, int frameCount) {
+        if (frameCount == 1) {
+            return outputDirectory.resolve(prefix + IMAGE_EXTENSION);
+        }
+        return outputDirectory.resolve(String.format("%s-%03d%s", prefix, frame, IMAGE_EXTENSION));
+    }
+
+    /**
+     * Write an image through a temporary file, so an interrupted run never leaves a partial image behind
+     */
+    private static void write(BufferedImage image, Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + DesignStore.TEMP_SUFFIX);
+        if (!ImageIO.write(image, IMAGE_FORMAT, temp.toFile())) {
+            throw new IOException("No writer for " + IMAGE_FORMAT + " images");
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Set the size of the images
+     *
+     * @param width The width in pixels
+     * @param height The height in pixels
+     */
+    public void setSize(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image size must be positive: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public void setSupersampling(int supersampling) {
+        if (supersampling < 1) {
+            throw new IllegalArgumentException("Supersampling must be at least 1: " + supersampling);
+        }
+        this.supersampling = supersampling;
+    }
+
+    public void setBackgroundRgb(int backgroundRgb) {
+        this.backgroundRgb = backgroundRgb;
+    }
+
+    /**
+     * Choose whether designs whose images were already written are rendered again,
+     * so an interrupted run can be resumed
+     *
+     * @param skipExisting true to skip designs that already have their images
+     */
+    public void setSkipExisting(boolean skipExisting) {
+        this.skipExisting = skipExisting;
+    }
+
+    /**
+     * Stop the worker threads once the queued images are done
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Render every design in a directory into previews.
+     * Usage: {@code SnapshotBatch <design directory> <output directory> [width height [frames]]}
+     *
+     * @param args The command line arguments
+     */
+    public static void main(String[] args) {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        if (args.length != 2 && args.length != 4 && args.length != 5) {
+            System.err.println("Usage: SnapshotBatch <design directory> <output directory> [width height [frames]]");
+            System.exit(2);
+        }
+
+        DesignStore store = new DesignStore(Paths.get(args[0]));
+        Path outputDirectory = Paths.get(args[1]);
+        try (SnapshotBatch batch = new SnapshotBatch()) {
+            if (args.length >= 4) {
+                batch.setSize(Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+            }
+            int frameCount = args.length == 5 ? Integer.parseInt(args[4]) : 1;
+            batch.setSkipExisting(true);
+            Files.createDirectories(outputDirectory);
+
+            BatchMetrics metrics = batch.renderDesigns(store, store.listDesignFiles(), Camera.Preset.PERSPECTIVE,
+                    frameCount, outputDirectory).join();
+            System.out.println(metrics);
+            System.exit(metrics.getFailedCount() > 0 ? 1 : 0);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("SnapshotBatch: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Outcome and timing of a batch run
+     */
+    public static class BatchMetrics {
+        private final int designCount;
+        private final int imageCount;
+        private final int failedCount;
+        private final int skippedCount;
+        private final long totalNanos;
+
+        public BatchMetrics(int designCount, int imageCount, int failedCount, int skippedCount, long totalNanos) {
+            this.designCount = designCount;
+            this.imageCount = imageCount;
+            this.failedCount = failedCount;
+            this.skippedCount = skippedCount;
+            this.totalNanos = totalNanos;
+        }
+
+        public int getDesignCount() {
+            return designCount;
+        }
+
+        public int getImageCount() {
+            return imageCount;
+        }
+
+        /**
+         * Get the number of designs, or frames of a single turntable, that could not be rendered
+         *
+         * @return The failure count
+         */
+        public int getFailedCount() {
+            return failedCount;
+        }
+
+        public int getSkippedCount() {
+            return skippedCount;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d images of %d designs written (%d failed, %d skipped), total %.1f s, %.1f ms per image",
+                    imageCount, designCount, failedCount, skippedCount, totalNanos / 1_000_000_000.0,
+                    imageCount == 0 ? 0.0 : totalNanos / 1_000_000.0 / imageCount);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package org.example.hci.view.render;
+
+/**
+ * 4x4 matrix taking room space (meters from the room corner the floor plan is
+ * measured from, z up) to the screen, with the depth used by the {@link Rasterizer}
+ * as third coordinate.
+ *
+ * The matrix is the perspective projection of a {@link Camera}. It is only rebuilt
+ * when the camera or the viewport actually changes, and vertices are transformed in
+ * bulk between flat float arrays, so projecting a frame allocates nothing.
+ *
+ * Depth is the reciprocal of the distance from the camera, scaled so that one meter
+ * at the target distance is about one unit of depth per pixel. Unlike the distance
+ * itself it is linear in screen space, which is what the rasterizer interpolates.
+ */
+public class ViewProjection {
+    private final float[] matrix = new float[16];
+    private double centerX = Double.NaN;
+    private double centerY = Double.NaN;
+    private final Camera camera = new Camera();
+    private long rebuildCount = 0;
+
+    // Vertices are only projected between these distances from the viewer
+    private float minW = 0;
+    private float maxW = Float.POSITIVE_INFINITY;
+
+    // Planes bounding the visible space, four coefficients each, positive inside
+    private final double[] frustumPlanes = new double[6 * 4];
+    private int frustumPlaneCount = 0;
+
+    // Where the camera is
+    private double viewerX;
+    private double viewerY;
+    private double viewerZ;
+
+    // Pixels per meter at unit distance from the camera
+    private double pixelsPerMeter;
+
+    /**
+     * Set the view, rebuilding the matrix only if the camera or the viewport changed
+     *
+     * @param camera The camera
+     * @param width The width of the target in pixels
+     * @param height The height of the target in pixels
+     * @return True if the matrix was rebuilt
+     */
+    public boolean update(Camera camera, int width, int height) {
+        double centerX = width / 2.0;
+        double centerY = height / 2.0;
+        if (rebuildCount > 0 && this.camera.sameView(camera) && centerX == this.centerX && centerY == this.centerY) {
+            return false;
+        }
+        this.camera.set(camera);
+        this.centerX = centerX;
+        this.centerY = centerY;
+
+        double yaw = Math.toRadians(camera.getYaw());
+        double pitch = Math.toRadians(camera.getPitch());
+        double positionX = camera.getPositionX();
+        double positionY = camera.getPositionY();
+        double positionZ = camera.getPositionZ();
+
+        // View basis: right and down on the screen, forward into it
+        double rightX = Math.cos(yaw);
+        double rightY = -Math.sin(yaw);
+        double downX = Math.sin(pitch) * Math.sin(yaw);
+        double downY = Math.sin(pitch) * Math.cos(yaw);
+        double downZ = -Math.cos(pitch);
+        double forwardX = -Math.cos(pitch) * Math.sin(yaw);
+        double forwardY = -Math.cos(pitch) * Math.cos(yaw);
+        double forwardZ = -Math.sin(pitch);
+
+        double focal = centerY / Math.tan(Math.toRadians(camera.getFieldOfView()) / 2);
+        double depthScale = focal * camera.getDistance();
+
+        setAffine(0, focal * rightX + centerX * forwardX, focal * rightY + centerX * forwardY,
+                centerX * forwardZ, positionX, positionY, positionZ);
+        setAffine(1, focal * downX + centerY * forwardX, focal * downY + centerY * forwardY,
+                focal * downZ + centerY * forwardZ, positionX, positionY, positionZ);
+        set(2, 0, 0, 0, -depthScale);
+        setAffine(3, forwardX, forwardY, forwardZ, positionX, positionY, positionZ);
+
+        minW = (float) camera.getNear();
+        maxW = (float) camera.getFar();
+        updateFrustum(width, height);
+        pixelsPerMeter = focal;
+        viewerX = positionX;
+        viewerY = positionY;
+        viewerZ = positionZ;
+        rebuildCount++;
+        return true;
+    }
+
+    /**
+     * Transform vertices to the screen
+     *
+     * @param source Room space x, y, z triples
+     * @param target Receives screen x, y and depth triples, may be the source array
+     * @param vertexCount The number of vertices to transform
+     */
+    public void transform(float[] source, float[] target, int vertexCount) {
+        float m00 = matrix[0], m01 = matrix[1], m02 = matrix[2], m03 = matrix[3];
+        float m10 = matrix[4], m11 = matrix[5], m12 = matrix[6], m13 = matrix[7];
+        float m20 = matrix[8], m21 = matrix[9], m22 = matrix[10], m23 = matrix[11];
+        float m30 = matrix[12], m31 = matrix[13], m32 = matrix[14], m33 = matrix[15];
+        int end = vertexCount * 3;
+        for (int i = 0; i < end; i += 3) {
+            float x = source[i];
+            float y = source[i + 1];
+            float z = source[i + 2];
+            float w = m30 * x + m31 * y + m32 * z + m33;
+            float inverseW = w == 1 ? 1 : 1 / w;
+            target[i] = (m00 * x + m01 * y + m02 * z + m03) * inverseW;
+            target[i + 1] = (m10 * x + m11 * y + m12 * z + m13) * inverseW;
+            target[i + 2] = (m20 * x + m21 * y + m22 * z + m23) * inverseW;
+        }
+    }
+
+    /**
+     * Transform vertices to clip space and, where they lie between the near and far
+     * planes, on to the screen. Screen coordinates of vertices outside are NaN; their
+     * clip coordinates are what edges crossing the near plane are clipped with.
+     *
+     * @param source Room space x, y, z triples
+     * @param clip Receives the untransformed x, y, z, w quadruples
+     * @param screen Receives screen x, y and depth triples
+     * @param vertexCount The number of vertices to transform
+     */
+    public void transform(float[] source, float[] clip, float[] screen, int vertexCount) {
+        float m00 = matrix[0], m01 = matrix[1], m02 = matrix[2], m03 = matrix[3];
+        float m10 = matrix[4], m11 = matrix[5], m12 = matrix[6], m13 = matrix[7];
+        float m20 = matrix[8], m21 = matrix[9], m22 = matrix[10], m23 = matrix[11];
+        float m30 = matrix[12], m31 = matrix[13], m32 = matrix[14], m33 = matrix[15];
+        for (int i = 0; i < vertexCount; i++) {
+            int in = i * 3;
+            int out = i * 4;
+            float x = source[in];
+            float y = source[in + 1];
+            float z = source[in + 2];
+            float clipX = m00 * x + m01 * y + m02 * z + m03;
+            float clipY = m10 * x + m11 * y + m12 * z + m13;
+            float clipZ = m20 * x + m21 * y + m22 * z + m23;
+            float w = m30 * x + m31 * y + m32 * z + m33;
+            clip[out] = clipX;
+            clip[out + 1] = clipY;
+            clip[out + 2] = clipZ;
+            clip[out + 3] = w;
+            if (w >= minW && w <= maxW) {
+                float inverseW = w == 1 ? 1 : 1 / w;
+                screen[in] = clipX * inverseW;
+                screen[in + 1] = clipY * inverseW;
+                screen[in + 2] = clipZ * inverseW;
+            } else {
+                screen[in] = Float.NaN;
+                screen[in + 1] = Float.NaN;
+                screen[in + 2] = Float.NaN;
+            }
+        }
+    }
+
+    /**
+     * Check whether the front of a surface is turned towards the viewer
+     *
+     * @param x The x coordinate of a point on the surface
+     * @param y The y coordinate of a point on the surface
+     * @param z The z coordinate of a point on the surface
+     * @param normalX The x component of the surface's front normal
+     * @param normalY The y component of the surface's front normal
+     * @param normalZ The z component of the surface's front normal
+     * @return True if the viewer sees the front of the surface
+     */
+    public boolean facesViewer(double x, double y, double z, double normalX, double normalY, double normalZ) {
+        return (viewerX - x) * normalX + (viewerY - y) * normalY + (viewerZ - z) * normalZ > 0;
+    }
+
+    /**
+     * Get how large one meter appears on screen at a point, e.g. to choose a level of detail
+     *
+     * @param x The x coordinate in room space
+     * @param y The y coordinate in room space
+     * @param z The height in room space
+     * @return Pixels per meter, infinite at or behind the camera
+     */
+    public double pixelsPerMeterAt(double x, double y, double z) {
+        double w = matrix[12] * x + matrix[13] * y + matrix[14] * z + matrix[15];
+        return w > 0 ? pixelsPerMeter / w : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Check whether an axis-aligned box may be visible. Boxes entirely outside one
+     * of the planes bounding the view are not; boxes near a corner of the view may
+     * pass although they are not visible, which only costs them being drawn.
+     *
+     * @return False if the box is certainly outside the view
+     */
+    public boolean intersectsFrustum(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        for (int i = 0; i < frustumPlaneCount * 4; i += 4) {
+            double a = frustumPlanes[i];
+            double b = frustumPlanes[i + 1];
+            double c = frustumPlanes[i + 2];
+
+            // The corner furthest inside tells whether any of the box is inside
+            double distance = a * (a > 0 ? maxX : minX) + b * (b > 0 ? maxY : minY)
+                    + c * (c > 0 ? maxZ : minZ) + frustumPlanes[i + 3];
+            if (distance < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the smallest w a vertex may have to be projected, the near plane
+     *
+     * @return The minimum w
+     */
+    public float getMinW() {
+        return minW;
+    }
+
+    /**
+     * Get the number of times the matrix was rebuilt
+     *
+     * @return The rebuild count
+     */
+    public long getRebuildCount() {
+        return rebuildCount;
+    }
+
+    /**
+     * Derive the planes bounding the view from the matrix: the screen edges, and the near and far planes
+     */
+    private void updateFrustum(double width, double height) {
+        frustumPlaneCount = 0;
+        addPlane(0, 1, 0, 0);           // x >= 0
+        addPlane(0, -1, width, 0);      // x <= width
+        addPlane(1, 1, 0, 0);           // y >= 0
+        addPlane(1, -1, height, 0);     // y <= height
+        if (minW > 0) {
+            addPlane(3, 1, 0, -minW);   // w >= near
+        }
+        if (maxW < Float.POSITIVE_INFINITY) {
+            addPlane(3, -1, 0, maxW);   // w <= far
+        }
+    }
+
+    /**
+     * Add the plane sign * row + limit * w + constant >= 0, with screen coordinates still multiplied by w
+     */
+    private void addPlane(int row, double sign, double limit, double constant) {
+        int offset = frustumPlaneCount * 4;
+        for (int k = 0; k < 4; k++) {
+            frustumPlanes[offset + k] = sign * matrix[row * 4 + k] + limit * matrix[12 + k];
+        }
+        frustumPlanes[offset + 3] += constant;
+        frustumPlaneCount++;
+    }
+
+    private void set(int row, double c0, double c1, double c2, double c3) {
+        matrix[row * 4] = (float) c0;
+        matrix[row * 4 + 1] = (float) c1;
+        matrix[row * 4 + 2] = (float) c2;
+        matrix[row * 4 + 3] = (float) c3;
+    }
+
+    /**
+     * Set a row that measures along a vector from a point, i.e. with the point moved to the origin first
+     */
+    private void setAffine(int row, double c0, double c1, double c2, double originX, double originY, double originZ) {
+        set(row, c0, c1, c2, -(c0 * originX + c1 * originY + c2 * originZ));
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.hci.auth;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileCredentialStoreTest {
+
+    @Test
+    void findsAccountsAfterGrowingAndReopening() throws IOException {
+        Path file = Files.createTempFile("credentials", ".db");
+        Files.delete(file);
+        try {
+            FileCredentialStore store = FileCredentialStore.open(file);
+            for (int i = 0; i < 5000; i++) {
+                assertTrue(store.insert(new UserAccount("user" + i, "hash" + i, "salt" + i,
+                        i % 2 == 0 ? "user" + i + "@example.com" : null, "Désigner " + i, i, 0, true)));
+            }
+            assertFalse(store.insert(new UserAccount("user42", "other", "other", null, null, 0, 0, true)));
+            assertTrue(store.updateLastLogin("user42", 1234));
+            assertThrows(IOException.class, () -> FileCredentialStore.open(file));
+            store.close();
+
+            store = FileCredentialStore.open(file);
+            assertEquals(5000, store.count());
+            UserAccount account = store.find("user42");
+            assertEquals("hash42", account.getPasswordHash());
+            assertEquals("user42@example.com", account.getEmail());
+            assertEquals("Désigner 42", account.getFullName());
+            assertEquals(1234, account.getLastLoginTime());
+            assertNull(store.find("user43").getEmail());
+            assertNull(store.find("nobody"));
+            store.close();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void readsEveryAccountAfterTheIndexGrows() throws IOException {
+        Path file = Files.createTempFile("credentials", ".db");
+        Files.delete(file);
+        int accountCount = 2100;
+        try {
+            // 4096 initial slots grow at half load, after 2048 accounts
+            FileCredentialStore store = FileCredentialStore.open(file);
+            for (int i = 0; i < accountCount; i++) {
+                assertTrue(store.insert(new UserAccount("user" + i, "hash" + i, "salt" + i, null, null, i, 0, true)));
+            }
+            for (int i = 0; i < accountCount; i++) {
+                assertEquals("hash" + i, store.find("user" + i).getPasswordHash());
+            }
+            assertTrue(store.updateLastLogin("user0", 99));
+            assertFalse(store.insert(new UserAccount("user2049", "other", "other", null, null, 0, 0, true)));
+            store.close();
+
+            store = FileCredentialStore.open(file);
+            assertEquals(accountCount, store.count());
+            for (int i = 0; i < accountCount; i++) {
+                assertEquals("salt" + i, store.find("user" + i).getSalt());
+            }
+            assertEquals(99, store.find("user0").getLastLoginTime());
+            store.close();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
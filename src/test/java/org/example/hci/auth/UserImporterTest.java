@@ -0,0 +1,66 @@
+package org.example.hci.auth;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserImporterTest {
+
+    @Test
+    void parsesQuotedCsvFields() {
+        assertEquals(List.of("anna", "secret", "anna@example.com", "Anna Smith"),
+                UserImporter.parseCsvLine("anna,secret,anna@example.com,Anna Smith"));
+        assertEquals(List.of("bob", "pa,ss", "", "Bob \"The Builder\""),
+                UserImporter.parseCsvLine("bob,\"pa,ss\",,\"Bob \"\"The Builder\"\"\""));
+        assertEquals(List.of("carl", ""), UserImporter.parseCsvLine("carl,"));
+    }
+
+    @Test
+    void reportsFailedRowsAndAddsTheRest() throws IOException {
+        Path file = Files.createTempFile("credentials", ".db");
+        Files.delete(file);
+        try (CredentialAuthService service = new CredentialAuthService(FileCredentialStore.open(file))) {
+            UserImporter importer = new UserImporter(service);
+            importer.setBatchSize(2);
+            String csv = "Username,Password,Email,Full name\n"
+                    + "anna,secret,anna@example.com,\"Smith, Anna\"\n"
+                    + "admin,taken,,\n"
+                    + "\n"
+                    + ",nameless,,\n"
+                    + "bob,,,\n"
+                    + "carl,pw,,Carl\n"
+                    + "anna,again,,\n";
+
+            UserImporter.ImportResult result = importer.importCsv(new BufferedReader(new StringReader(csv)));
+
+            assertEquals(6, result.getRowCount());
+            assertEquals(2, result.getAddedCount());
+            List<UserImporter.Failure> failures = result.getFailures();
+            assertEquals(4, failures.size());
+            assertEquals(3, failures.get(0).getRow().getLineNumber());
+            assertEquals(CredentialStore.USERNAME_TAKEN, failures.get(0).getReason());
+            assertEquals("Missing username", failures.get(1).getReason());
+            assertEquals("Missing password", failures.get(2).getReason());
+            assertEquals(8, failures.get(3).getRow().getLineNumber());
+            assertEquals(CredentialStore.USERNAME_TAKEN, failures.get(3).getReason());
+
+            assertTrue(service.authenticate("anna", "secret"));
+            assertTrue(service.authenticate("carl", "pw"));
+            assertEquals("Smith, Anna", service.getStore().find("anna").getFullName());
+            assertNull(service.getStore().find("bob"));
+            assertNotNull(service.getStore().find("admin"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.hci.storage;
+
+import org.example.hci.model.Design;
+import org.example.hci.model.DesignSummary;
+import org.example.hci.model.FurnitureItem;
+import org.example.hci.model.Room;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DesignCodecTest {
+
+    @Test
+    void roundTripsDesign() throws Exception {
+        Design design = new Design("Living room", new Room(5.0, 6.0, 2.5));
+        design.getRoom().setWallColor(new Color(10, 20, 30, 40));
+        FurnitureItem sofa = new FurnitureItem(FurnitureItem.FurnitureType.SOFA, 1.5, 2.25);
+        sofa.setRotationAngle(45);
+        design.addFurnitureItem(sofa);
+        design.addFurnitureItem(new FurnitureItem("custom-id", FurnitureItem.FurnitureType.BED,
+                0, 0, 1.6, 2.0, 0.5, Color.WHITE, 90));
+
+        Design decoded = DesignCodec.decode(DesignCodec.encode(design));
+
+        assertEquals(design.getId(), decoded.getId());
+        assertEquals(design.getName(), decoded.getName());
+        assertEquals(design.getLastModifiedTimestamp(), decoded.getLastModifiedTimestamp());
+        assertEquals(new Color(10, 20, 30, 40), decoded.getRoom().getWallColor());
+        assertEquals(2, decoded.getFurnitureItems().size());
+
+        FurnitureItem decodedSofa = decoded.getFurnitureItems().get(0);
+        assertEquals(sofa.getId(), decodedSofa.getId());
+        assertEquals(2.25, decodedSofa.getY());
+        assertEquals(45, decodedSofa.getRotationAngle());
+        assertEquals("custom-id", decoded.getFurnitureItems().get(1).getId());
+    }
+
+    @Test
+    void rejectsCorruptPayload() {
+        Design design = new Design("Office", new Room(4.0, 4.0, 2.5));
+        ByteBuffer buffer = DesignCodec.encode(design);
+        buffer.put(buffer.limit() - 1, (byte) 0x7F);
+
+        assertThrows(DesignFormatException.class, () -> DesignCodec.decode(buffer));
+    }
+
+    @Test
+    void readsSummaryOfDesignNamedLikeItsId() throws Exception {
+        Design design = new Design("same", "same", new Room(3.0, 4.0, 2.5), new ArrayList<>(), 1, 2);
+        ByteBuffer encoded = DesignCodec.encode(design);
+        assertEquals(1, encoded.getInt(DesignCodec.HEADER_SIZE));
+
+        DesignSummary summary = readSummary(encoded);
+        assertEquals("same", summary.getId());
+        assertEquals("same", summary.getName());
+
+        // The name points past the single string
+        int nameRef = DesignCodec.HEADER_SIZE + 4 + 4 + "same".getBytes(StandardCharsets.UTF_8).length + 4;
+        encoded.putInt(nameRef, 1);
+        assertThrows(DesignFormatException.class, () -> readSummary(encoded));
+    }
+
+    private static DesignSummary readSummary(ByteBuffer encoded) throws Exception {
+        Path file = Files.createTempFile("design", DesignCodec.FILE_EXTENSION);
+        try {
+            Files.write(file, Arrays.copyOfRange(encoded.array(), encoded.position(), encoded.limit()));
+            try (SeekableByteChannel channel = Files.newByteChannel(file)) {
+                return DesignCodec.readSummary(channel);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package org.example.hci.storage;
+
+import org.example.hci.model.Design;
+import org.example.hci.model.FurnitureItem;
+import org.example.hci.model.Room;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EditJournalTest {
+
+    @Test
+    void replaysEditsToTheSavedDesign() throws Exception {
+        Path directory = Files.createTempDirectory("designs");
+        try {
+            DesignStore store = new DesignStore(directory);
+            Design design = editedDesign(store);
+
+            assertTrue(Files.size(store.journalPathFor(store.pathFor(design.getId()))) > EditJournal.HEADER_SIZE);
+            assertSameDesign(design, new DesignStore(directory).load(design.getId()));
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    void dropsTornLastRecordAndKeepsTheRest() throws Exception {
+        Path directory = Files.createTempDirectory("designs");
+        try {
+            DesignStore store = new DesignStore(directory);
+            Design design = editedDesign(store);
+            Design beforeLastEdit = design.copy();
+            design.getFurnitureItems().get(0).setX(4.0);
+            store.save(design);
+
+            // Cut the last record short, as a crash in the middle of appending it would
+            Path journal = store.journalPathFor(store.pathFor(design.getId()));
+            try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+                channel.truncate(channel.size() - 3);
+            }
+
+            Design snapshot = DesignCodec.decode(ByteBuffer.wrap(Files.readAllBytes(store.pathFor(design.getId()))));
+            int snapshotCrc = ByteBuffer.wrap(Files.readAllBytes(store.pathFor(design.getId())))
+                    .getInt(DesignCodec.CRC_OFFSET);
+            EditJournal.Replay replay = EditJournal.replay(snapshot,
+                    ByteBuffer.wrap(Files.readAllBytes(journal)), snapshotCrc);
+            assertTrue(replay.isTorn());
+            assertTrue(replay.getValidLength() < Files.size(journal));
+            assertSameDesign(beforeLastEdit, replay.getDesign());
+
+            // Saving again after recovery overwrites the torn record
+            DesignStore reopened = new DesignStore(directory);
+            Design recovered = reopened.load(design.getId());
+            assertSameDesign(beforeLastEdit, recovered);
+            recovered.getFurnitureItems().get(0).setY(0.5);
+            reopened.save(recovered);
+            assertSameDesign(recovered, new DesignStore(directory).load(design.getId()));
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    void writesSnapshotInsteadOfOverwritingRecordsOfNewerVersion() throws Exception {
+        Path directory = Files.createTempDirectory("designs");
+        try {
+            DesignStore store = new DesignStore(directory);
+            Design design = editedDesign(store);
+
+            // A record with an operation this version does not know, as a newer version would write
+            Path journal = store.journalPathFor(store.pathFor(design.getId()));
+            ByteBuffer body = ByteBuffer.allocate(9).put((byte) 99).putLong(0L).flip();
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+            ByteBuffer record = ByteBuffer.allocate(8 + body.remaining())
+                    .putInt(body.remaining()).putInt((int) crc.getValue()).put(body).flip();
+            try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.APPEND)) {
+                channel.write(record);
+            }
+            long journalSize = Files.size(journal);
+
+            DesignStore reopened = new DesignStore(directory);
+            Design loaded = reopened.load(design.getId());
+            assertSameDesign(design, loaded);
+            assertEquals(journalSize, Files.size(journal));
+
+            loaded.getFurnitureItems().get(0).setX(2.0);
+            reopened.save(loaded);
+            assertFalse(Files.exists(journal));
+            assertSameDesign(loaded, new DesignStore(directory).load(design.getId()));
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    void writesSnapshotForNameTooLongForARecord() throws Exception {
+        Path directory = Files.createTempDirectory("designs");
+        try {
+            DesignStore store = new DesignStore(directory);
+            Design design = editedDesign(store);
+            Path journal = store.journalPathFor(store.pathFor(design.getId()));
+
+            // Three bytes per character in UTF-8, so a cut at 65535 bytes would fall mid-character
+            design.setName("\u20AC".repeat(30000));
+            store.save(design);
+
+            assertFalse(Files.exists(journal));
+            assertSameDesign(design, new DesignStore(directory).load(design.getId()));
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    void ignoresJournalOfAnotherSnapshot() {
+        Design snapshot = new Design("Office", new Room(4.0, 4.0, 2.5));
+        Design edited = snapshot.copy();
+        edited.setName("Study");
+        int snapshotCrc = DesignCodec.encode(snapshot).getInt(DesignCodec.CRC_OFFSET);
+
+        ByteBuffer header = EditJournal.header(snapshotCrc + 1);
+        byte[] records = EditJournal.diff(snapshot, edited);
+        ByteBuffer journal = ByteBuffer.allocate(header.remaining() + records.length).put(header).put(records).flip();
+
+        EditJournal.Replay replay = EditJournal.replay(snapshot, journal, snapshotCrc);
+        assertEquals(0, replay.getValidLength());
+        assertEquals(0, replay.getRecordCount());
+        assertEquals("Office", replay.getDesign().getName());
+    }
+
+    @Test
+    void compactionKeepsTheDesign() throws Exception {
+        Path directory = Files.createTempDirectory("designs");
+        try {
+            DesignStore store = new DesignStore(directory);
+            Design design = editedDesign(store);
+            Path journal = store.journalPathFor(store.pathFor(design.getId()));
+
+            store.compact(design.getId());
+
+            assertFalse(Files.exists(journal));
+            assertSameDesign(design, new DesignStore(directory).load(design.getId()));
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    /**
+     * Save a design, load it back and save a few edits, which go to its journal
+     */
+    private static Design editedDesign(DesignStore store) throws IOException {
+        Design original = new Design("Living room", new Room(5.0, 6.0, 2.5));
+        original.addFurnitureItem(new FurnitureItem(FurnitureItem.FurnitureType.SOFA, 1.0, 1.0));
+        original.addFurnitureItem(new FurnitureItem(FurnitureItem.FurnitureType.TABLE, 2.0, 2.0));
+        original.addFurnitureItem(new FurnitureItem("custom-id", FurnitureItem.FurnitureType.BED,
+                0, 0, 1.6, 2.0, 0.5, Color.WHITE, 90));
+        store.save(original);
+
+        Design design = store.load(original.getId());
+        design.setName("Lounge");
+        FurnitureItem sofa = design.getFurnitureItems().get(0);
+        sofa.setX(3.0);
+        sofa.setRotationAngle(45);
+        design.getFurnitureItems().get(2).setColor(new Color(10, 20, 30));
+        design.removeFurnitureItem(design.getFurnitureItems().get(1));
+        design.addFurnitureItem(new FurnitureItem(FurnitureItem.FurnitureType.CHAIR, 0.5, 0.5));
+        store.save(design);
+        return design;
+    }
+
+    private static void assertSameDesign(Design expected, Design actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getRoom().getWidth(), actual.getRoom().getWidth());
+        assertEquals(expected.getRoom().getLength(), actual.getRoom().getLength());
+        assertEquals(expected.getFurnitureItems().size(), actual.getFurnitureItems().size());
+        for (int i = 0; i < expected.getFurnitureItems().size(); i++) {
+            FurnitureItem expectedItem = expected.getFurnitureItems().get(i);
+            FurnitureItem actualItem = actual.getFurnitureItems().get(i);
+            assertEquals(expectedItem.getId(), actualItem.getId());
+            assertEquals(expectedItem.getType(), actualItem.getType());
+            assertEquals(expectedItem.getX(), actualItem.getX());
+            assertEquals(expectedItem.getY(), actualItem.getY());
+            assertEquals(expectedItem.getRotationAngle(), actualItem.getRotationAngle());
+            assertEquals(expectedItem.getColor(), actualItem.getColor());
+            assertEquals(expectedItem.getWidth(), actualItem.getWidth());
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.hci.view.render;
+
+import org.example.hci.model.Design;
+import org.example.hci.model.FurnitureItem;
+import org.example.hci.model.Room;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class FurnitureBvhTest {
+
+    @Test
+    void picksTheNearestItemAndTheFaceHit() {
+        Design design = new Design("Pick", new Room(10.0, 8.0, 2.5));
+        FurnitureItem table = new FurnitureItem(FurnitureItem.FurnitureType.TABLE, 2, 2);
+        FurnitureItem cabinet = new FurnitureItem(FurnitureItem.FurnitureType.CABINET, 6, 2);
+        design.addFurnitureItem(table);
+        design.addFurnitureItem(cabinet);
+        FurnitureBvh bvh = new FurnitureBvh();
+        bvh.setDesign(design);
+
+        // Straight down onto the table
+        PickResult hit = bvh.pick(2.5, 2.5, 10, 0, 0, -1);
+        assertSame(table, hit.getItem());
+        assertEquals(PickResult.Face.TOP, hit.getFace());
+
+        // Along the floor from the left, the table is in front of the cabinet
+        hit = bvh.pick(-1, 2.3, 0.3, 1, 0, 0);
+        assertSame(table, hit.getItem());
+        assertEquals(PickResult.Face.LEFT, hit.getFace());
+
+        assertNull(bvh.pick(9, 7, 10, 0, 0, -1));
+    }
+
+    @Test
+    void refitsMovedItemsWithoutRebuilding() {
+        Design design = new Design("Pick", new Room(50.0, 50.0, 2.5));
+        FurnitureItem.FurnitureType[] types = FurnitureItem.FurnitureType.values();
+        for (int i = 0; i < 400; i++) {
+            design.addFurnitureItem(new FurnitureItem(types[i % types.length], (i % 20) * 2.4, (i / 20) * 2.4));
+        }
+        FurnitureBvh bvh = new FurnitureBvh();
+        bvh.setDesign(design);
+        design.addDesignChangeListener(bvh::designChanged);
+        bvh.pick(0, 0, 10, 0, 0, -1);
+
+        FurnitureItem moved = design.getFurnitureItems().get(123);
+        moved.setX(-20);
+        moved.setY(-20);
+        PickResult hit = bvh.pick(-20 + moved.getWidth() / 2, -20 + moved.getDepth() / 2, 10, 0, 0, -1);
+        assertSame(moved, hit.getItem());
+        assertEquals(1, bvh.getRebuildCount());
+
+        design.removeFurnitureItem(moved);
+        assertNull(bvh.pick(-20 + moved.getWidth() / 2, -20 + moved.getDepth() / 2, 10, 0, 0, -1));
+        assertEquals(2, bvh.getRebuildCount());
+    }
+}
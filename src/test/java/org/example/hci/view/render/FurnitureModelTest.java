@@ -0,0 +1,65 @@
+package org.example.hci.view.render;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FurnitureModelTest {
+
+    @Test
+    void loadsObjFacesAsTrianglesInTheUnitBox() throws IOException {
+        String cube = "# cube\n"
+                + "v 0 0 0\nv 2 0 0\nv 2 4 0\nv 0 4 0\nv 0 0 1\nv 2 0 1\nv 2 4 1\nv 0 4 1\n"
+                + "vn 0 0 1\n"
+                + "f 1//1 2//1 3//1 4//1\nf 5 8 7 6\nf 1 5 6 2\nf 2 6 7 3\nf 3 7 8 4\nf -4 -8 -5 -1\n";
+        FurnitureModel model = ObjLoader.load(new StringReader(cube), "cube.obj");
+        FurnitureModel.Level full = model.getLevels().get(0);
+
+        assertEquals(12, full.getTriangleCount());
+        for (int i = 0; i < full.vertices.length; i += 3) {
+            assertTrue(Math.abs(full.vertices[i]) == 0.5f, "x " + full.vertices[i]);
+            assertTrue(Math.abs(full.vertices[i + 1]) == 0.5f, "y " + full.vertices[i + 1]);
+            assertTrue(full.vertices[i + 2] == 0 || full.vertices[i + 2] == 1, "z " + full.vertices[i + 2]);
+        }
+
+        assertThrows(IOException.class, () -> ObjLoader.load(new StringReader("v 0 0 0\nf 1 2 3\n"), "bad.obj"));
+    }
+
+    @Test
+    void choosesCoarserLevelsForSmallerItems() throws IOException {
+        StringBuilder sphere = new StringBuilder();
+        int stacks = 24;
+        int slices = 32;
+        for (int i = 0; i <= stacks; i++) {
+            for (int j = 0; j < slices; j++) {
+                double theta = Math.PI * i / stacks;
+                double phi = 2 * Math.PI * j / slices;
+                sphere.append("v ").append(Math.sin(theta) * Math.cos(phi)).append(' ')
+                        .append(Math.cos(theta)).append(' ').append(Math.sin(theta) * Math.sin(phi)).append('\n');
+            }
+        }
+        for (int i = 0; i < stacks; i++) {
+            for (int j = 0; j < slices; j++) {
+                int a = i * slices + j + 1;
+                int b = i * slices + (j + 1) % slices + 1;
+                sphere.append("f ").append(a).append(' ').append(a + slices).append(' ')
+                        .append(b + slices).append(' ').append(b).append('\n');
+            }
+        }
+        FurnitureModel model = ObjLoader.load(new StringReader(sphere.toString()), "sphere.obj");
+
+        assertTrue(model.getLevels().size() > 2, "Levels " + model);
+        for (int i = 1; i < model.getLevels().size(); i++) {
+            assertTrue(model.getLevels().get(i).getTriangleCount() < model.getLevels().get(i - 1).getTriangleCount(),
+                    "Level " + i + " of " + model);
+        }
+        assertSame(model.getLevels().get(0), model.levelFor(10_000));
+        assertSame(model.getLevels().get(model.getLevels().size() - 1), model.levelFor(1));
+    }
+}
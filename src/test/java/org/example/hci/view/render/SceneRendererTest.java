@@ -0,0 +1,133 @@
+package org.example.hci.view.render;
+
+import org.example.hci.model.Design;
+import org.example.hci.model.FurnitureItem;
+import org.example.hci.model.Room;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SceneRendererTest {
+
+    @Test
+    void orbitingReusesFrameBuffers() {
+        Design design = furnishedDesign(200);
+        SceneRenderer renderer = new SceneRenderer(1);
+        Rasterizer raster = new Rasterizer(320, 240);
+        Camera camera = Camera.preset(Camera.Preset.PERSPECTIVE, design.getRoom());
+
+        // One full orbit lets every buffer reach the size the views of this orbit need
+        for (int i = 0; i < 72; i++) {
+            camera.orbit(5, 0);
+            renderer.render(design, raster, camera, 0xFFFFFF);
+        }
+        PrimitiveBuffer primitives = renderer.getPrimitives();
+        float[] triangles = primitives.triangles;
+        float[] lines = primitives.lines;
+        int[][] triangleBins = renderer.getTriangleBins();
+        int[][] triangleBinArrays = triangleBins.clone();
+        int[][] lineBins = renderer.getLineBins();
+        int[][] lineBinArrays = lineBins.clone();
+
+        // The same orbit again must render into the same arrays
+        for (int i = 0; i < 72; i++) {
+            camera.orbit(5, 0);
+            renderer.render(design, raster, camera, 0xFFFFFF);
+        }
+        assertSame(primitives, renderer.getPrimitives());
+        assertSame(triangles, primitives.triangles);
+        assertSame(lines, primitives.lines);
+        assertSame(triangleBins, renderer.getTriangleBins());
+        assertSame(lineBins, renderer.getLineBins());
+        for (int tile = 0; tile < triangleBins.length; tile++) {
+            assertSame(triangleBinArrays[tile], triangleBins[tile], "Triangle bin of tile " + tile + " grew");
+            assertSame(lineBinArrays[tile], lineBins[tile], "Line bin of tile " + tile + " grew");
+        }
+    }
+
+    @Test
+    void rebuildsProjectionOnlyWhenViewChanges() {
+        Design design = furnishedDesign(3);
+        SceneRenderer renderer = new SceneRenderer(1);
+        Rasterizer raster = new Rasterizer(200, 100);
+        Camera camera = Camera.preset(Camera.Preset.PERSPECTIVE, design.getRoom());
+
+        renderer.render(design, raster, camera, 0xFFFFFF);
+        renderer.render(design, raster, camera, 0xFFFFFF);
+        assertEquals(1, renderer.getViewProjection().getRebuildCount());
+
+        camera.orbit(5, 0);
+        renderer.render(design, raster, camera, 0xFFFFFF);
+        assertEquals(2, renderer.getViewProjection().getRebuildCount());
+    }
+
+    @Test
+    void rebuildsOnlyTheMeshOfAnEditedItem() {
+        Design design = furnishedDesign(50);
+        SceneRenderer renderer = new SceneRenderer(1);
+        Rasterizer raster = new Rasterizer(200, 100);
+        Camera camera = Camera.preset(Camera.Preset.PERSPECTIVE, design.getRoom());
+
+        renderer.render(design, raster, camera, 0xFFFFFF);
+        camera.orbit(15, 5);
+        renderer.render(design, raster, camera, 0xFFFFFF);
+        assertEquals(50, renderer.getMeshCache().getRebuildCount());
+
+        design.getFurnitureItems().get(7).setRotationAngle(10);
+        renderer.render(design, raster, camera, 0xFFFFFF);
+        assertEquals(51, renderer.getMeshCache().getRebuildCount());
+
+        design.removeFurnitureItem(design.getFurnitureItems().get(0));
+        renderer.render(design, raster, camera, 0xFFFFFF);
+        assertEquals(49, renderer.getMeshCache().size());
+    }
+
+    @Test
+    void cullsItemsOutsideTheViewAndFacesTurnedAway() {
+        Design design = furnishedDesign(50);
+        SceneRenderer renderer = new SceneRenderer(1);
+        Rasterizer raster = new Rasterizer(200, 100);
+
+        // Looking at the whole room, every item is drawn with at most three of its five faces
+        Camera camera = Camera.preset(Camera.Preset.PERSPECTIVE, design.getRoom());
+        renderer.render(design, raster, camera, 0xFFFFFF);
+        assertEquals(50, renderer.getDrawnItemCount());
+        assertEquals(0, renderer.getCulledItemCount());
+        assertTrue(renderer.getCulledFaceCount() >= 50 * 2, "Culled " + renderer.getCulledFaceCount() + " faces");
+
+        // Zoomed in on one corner, most items are skipped entirely
+        camera.setTarget(0.5, 0.5, 0);
+        camera.dolly(0.1);
+        renderer.render(design, raster, camera, 0xFFFFFF);
+        assertTrue(renderer.getCulledItemCount() > 25, "Culled " + renderer.getCulledItemCount() + " items");
+        assertEquals(50, renderer.getDrawnItemCount() + renderer.getCulledItemCount());
+    }
+
+    @Test
+    void rendersOffscreenWithoutAWindow() {
+        Design design = furnishedDesign(20);
+        OffscreenRenderer renderer = new OffscreenRenderer();
+        renderer.setBackgroundRgb(0x123456);
+        BufferedImage image = renderer.render(design, Camera.preset(Camera.Preset.PERSPECTIVE, design.getRoom()), 160, 120);
+
+        assertEquals(160, image.getWidth());
+        assertEquals(120, image.getHeight());
+        assertEquals(0x123456, image.getRGB(0, 0) & 0xFFFFFF);
+        assertTrue((image.getRGB(80, 60) & 0xFFFFFF) != 0x123456, "The room is drawn in the middle");
+    }
+
+    private static Design furnishedDesign(int itemCount) {
+        Design design = new Design("Orbit", new Room(10.0, 8.0, 2.5));
+        FurnitureItem.FurnitureType[] types = FurnitureItem.FurnitureType.values();
+        for (int i = 0; i < itemCount; i++) {
+            FurnitureItem item = new FurnitureItem(types[i % types.length], (i * 0.37) % 9, (i * 0.53) % 7);
+            item.setRotationAngle(i * 15 % 360);
+            design.addFurnitureItem(item);
+        }
+        return design;
+    }
+}